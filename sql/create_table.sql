@@ -41,14 +41,23 @@ create table post
     cover      varchar(1024)                      null comment '封面图片',
     thumbNum   int      default 0                 not null comment '点赞数',
     favourNum  int      default 0                 not null comment '收藏数',
+    commentNum int      default 0                 not null comment '评论数',
     userId     bigint                             not null comment '创建用户 id',
     createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
     isDelete   tinyint  default 0                 not null comment '是否删除'
 ) comment '帖子' collate = utf8mb4_unicode_ci;
 
-create index idx_userId
-    on post (userId);
+-- 游标分页按 (createTime, id) 倒序扫描
+create index idx_createTime_id
+    on post (createTime, id);
+
+-- 已有库升级：评论数由评论新增、删除消息异步累加
+-- alter table post add column commentNum int default 0 not null comment '评论数' after favourNum;
+-- update post p set commentNum = (select count(*) from post_comment c where c.postId = p.id and c.isDelete = 0);
+
+create index idx_userId_createTime_id
+    on post (userId, createTime, id);
 
 -- 帖子点赞表（硬删除）
 create table post_thumb
@@ -58,15 +67,16 @@ create table post_thumb
     postId     bigint                             not null comment '帖子 id',
     userId     bigint                             not null comment '创建用户 id',
     createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
-    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间'
+    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    -- 同一用户对同一帖子只有一条关系，切换时按影响行数判断
+    constraint uk_postId_userId
+        unique (postId, userId)
 )
     comment '帖子点赞' row_format = DYNAMIC;
 
-create index idx_postId
-    on post_thumb (postId);
-
-create index idx_userId
-    on post_thumb (userId);
+-- 按操作时间游标分页查询用户点赞的帖子，覆盖索引无需回表
+create index idx_userId_createTime_postId
+    on post_thumb (userId, createTime, postId);
 
 
 -- 帖子收藏表（硬删除）
@@ -77,15 +87,83 @@ create table post_favour
     postId     bigint                             not null comment '帖子 id',
     userId     bigint                             not null comment '创建用户 id',
     createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
-    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间'
+    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    -- 同一用户对同一帖子只有一条关系，切换时按影响行数判断
+    constraint uk_postId_userId
+        unique (postId, userId)
 )
     comment '帖子收藏' row_format = DYNAMIC;
 
+-- 按操作时间游标分页查询用户收藏的帖子，覆盖索引无需回表
+create index idx_userId_createTime_postId
+    on post_favour (userId, createTime, postId);
+
+-- 已有数据升级：删除重复关系后添加唯一索引
+-- delete t1 from post_thumb t1 join post_thumb t2 on t1.postId = t2.postId and t1.userId = t2.userId and t1.id > t2.id;
+-- alter table post_thumb drop index idx_postId, add constraint uk_postId_userId unique (postId, userId);
+-- delete f1 from post_favour f1 join post_favour f2 on f1.postId = f2.postId and f1.userId = f2.userId and f1.id > f2.id;
+-- alter table post_favour drop index idx_postId, add constraint uk_postId_userId unique (postId, userId);
+-- alter table post_thumb drop index idx_userId, add index idx_userId_createTime_postId (userId, createTime, postId);
+-- alter table post_favour drop index idx_userId, add index idx_userId_createTime_postId (userId, createTime, postId);
+
+-- 帖子计数分片表（热点帖子的点赞、收藏数先分散写入分片，定时合并回帖子表，硬删除）
+create table post_counter_shard
+(
+    id         bigint auto_increment comment 'id'
+        primary key,
+    postId     bigint                             not null comment '帖子 id',
+    slot       int                                not null comment '分片序号',
+    thumbNum   bigint   default 0                 not null comment '未合并的点赞数增量',
+    favourNum  bigint   default 0                 not null comment '未合并的收藏数增量',
+    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    constraint uk_postId_slot
+        unique (postId, slot)
+) comment '帖子计数分片' collate = utf8mb4_unicode_ci;
+
+-- 帖子标签关联表（标签倒排索引，硬删除）
+create table post_tag
+(
+    id         bigint auto_increment comment 'id'
+        primary key,
+    postId     bigint                             not null comment '帖子 id',
+    tagName    varchar(256)                       not null comment '标签名称',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    constraint uk_tagName_postId
+        unique (tagName, postId)
+) comment '帖子标签关联' collate = utf8mb4_unicode_ci;
+
 create index idx_postId
-    on post_favour (postId);
+    on post_tag (postId);
+
+-- 用户标签关联表（标签倒排索引，硬删除）
+create table user_tag
+(
+    id         bigint auto_increment comment 'id'
+        primary key,
+    userId     bigint                             not null comment '用户 id',
+    tagName    varchar(256)                       not null comment '标签名称',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    constraint uk_tagName_userId
+        unique (tagName, userId)
+) comment '用户标签关联' collate = utf8mb4_unicode_ci;
 
 create index idx_userId
-    on post_favour (userId);
+    on user_tag (userId);
+
+-- 由已有数据回填标签倒排索引（MySQL 8.0+）
+insert ignore into post_tag (postId, tagName)
+select p.id, jt.tagName
+from post p,
+     json_table(p.tags, '$[*]' columns (tagName varchar(256) path '$')) jt
+where p.isDelete = 0
+  and p.tags is not null;
+
+insert ignore into user_tag (userId, tagName)
+select u.id, jt.tagName
+from user u,
+     json_table(u.tags, '$[*]' columns (tagName varchar(256) path '$')) jt
+where u.isDelete = 0
+  and u.tags is not null;
 
 -- 标签表
 create table tag
@@ -125,15 +203,52 @@ create table log_files
 -- 图表信息表
 create table chart
 (
-    id         bigint auto_increment comment 'id'
+    id              bigint auto_increment comment 'id'
         primary key,
-    goal       text                               null comment '分析目标',
-    `name`     varchar(128)                       null comment '图表名称',
-    chartData  text                               null comment '图表数据',
-    chartType  varchar(256)                       null comment '图表类型',
-    genChart   text                               null comment '生成的图表数据',
-    genResult  text                               null comment '生成的分析结论',
-    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
-    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
-    isDelete   tinyint  default 0                 not null comment '是否删除'
+    goal            text                               null comment '分析目标',
+    `name`          varchar(128)                       null comment '图表名称',
+    chartData       text                               null comment '图表数据',
+    chartType       varchar(256)                       null comment '图表类型',
+    genChart        text                               null comment '生成的图表数据',
+    genResult       text                               null comment '生成的分析结论',
+    status          varchar(128)                       null comment '图表状态(wait,running,succeed,failed)',
+    executorMessage text                               null comment '执行信息',
+    userId          bigint                             null comment '创建用户id',
+    createTime      datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime      datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    isDelete        tinyint  default 0                 not null comment '是否删除'
 ) comment '图表信息' collate = utf8mb4_unicode_ci;
+
+-- 游标分页按 (createTime, id) 倒序扫描
+create index idx_createTime_id
+    on chart (createTime, id);
+
+create index idx_userId_createTime_id
+    on chart (userId, createTime, id);
+
+-- 帖子评论表
+create table post_comment
+(
+    id          bigint auto_increment comment 'id'
+        primary key,
+    postId      bigint                             not null comment '帖子id',
+    rootId      bigint                             null comment '根评论id',
+    content     text                               null comment '评论内容',
+    userId      bigint                             not null comment '评论人id',
+    toUid       bigint                             null comment '被评论人id',
+    toCommentId bigint                             null comment '被评论的评论id',
+    thumbCount  int      default 0                 not null comment '点赞数',
+    createTime  datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    isDelete    tinyint  default 0                 not null comment '是否删除'
+) comment '帖子评论' collate = utf8mb4_unicode_ci;
+
+-- 游标分页按 (createTime, id) 倒序扫描
+create index idx_postId_createTime_id
+    on post_comment (postId, createTime, id);
+
+create index idx_userId_createTime_id
+    on post_comment (userId, createTime, id);
+
+-- 评论楼层按根评论查询回复，覆盖已删除过滤和 (createTime, id) 排序
+create index idx_rootId_isDelete_createTime_id
+    on post_comment (rootId, isDelete, createTime, id);
@@ -0,0 +1,33 @@
+package com.stephen.trajectory.common;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ *
+ * @author stephen qiu
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+	
+	/**
+	 * 当前页数据
+	 */
+	private List<T> records = new ArrayList<>();
+	
+	/**
+	 * 下一页游标，没有下一页时为空
+	 */
+	private String nextCursor;
+	
+	/**
+	 * 是否还有下一页
+	 */
+	private Boolean hasMore = false;
+	
+	private static final long serialVersionUID = 1L;
+}
@@ -30,4 +30,9 @@ public class PageRequest {
 	 * 排序顺序（默认升序）
 	 */
 	private String sortOrder = CommonConstant.SORT_ORDER_ASC;
+	
+	/**
+	 * 是否查询总数（默认查询，无需总数时传 false 可跳过 count 查询）
+	 */
+	private boolean searchCount = true;
 }
@@ -0,0 +1,37 @@
+package com.stephen.trajectory.config.cache.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 业务缓存加载配置属性
+ *
+ * @author stephen qiu
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+	
+	/**
+	 * 是否开启分布式锁，开启后同一个缓存 key 在集群中只有一个节点回源加载
+	 */
+	private Boolean distributedLock = false;
+	
+	/**
+	 * 等待分布式锁的最长时间，单位：毫秒
+	 */
+	private Long lockWaitTime = 3000L;
+	
+	/**
+	 * 等待同一节点内其他线程加载结果的最长时间，单位：毫秒
+	 */
+	private Long loadTimeout = 5000L;
+	
+	/**
+	 * 提前刷新系数，越大越倾向于在过期前提前刷新，小于等于 0 时关闭提前刷新
+	 */
+	private Double earlyRefreshBeta = 1.0;
+	
+}
@@ -0,0 +1,42 @@
+package com.stephen.trajectory.config.comment.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 评论缓冲写入配置属性
+ *
+ * @author stephen qiu
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "comment.ingest")
+public class CommentIngestProperties {
+	
+	/**
+	 * 是否开启缓冲写入，开启后评论校验通过即投递到消息队列并立即返回，由消费者批量写入数据库
+	 */
+	private Boolean enabled = false;
+	
+	/**
+	 * 消费者每批最多写入的评论数量
+	 */
+	private Integer batchSize = 500;
+	
+	/**
+	 * 消费者凑批的最长等待时间，单位：毫秒
+	 */
+	private Long batchTimeout = 200L;
+	
+	/**
+	 * 作者未落库评论的可见时间，单位：秒
+	 */
+	private Long overlayExpired = 120L;
+	
+	/**
+	 * 客户端消息 id 的去重时间，单位：秒
+	 */
+	private Long dedupExpired = 24 * 60 * 60L;
+	
+}
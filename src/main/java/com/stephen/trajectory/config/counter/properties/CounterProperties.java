@@ -0,0 +1,82 @@
+package com.stephen.trajectory.config.counter.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 帖子点赞、收藏计数配置属性
+ *
+ * @author stephen qiu
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "counter")
+public class CounterProperties {
+	
+	/**
+	 * 是否开启 Redis 计数并异步批量回写数据库，关闭时每次点赞、收藏直接写数据库
+	 */
+	private Boolean writeBehind = true;
+	
+	/**
+	 * 回写数据库的间隔，单位：毫秒
+	 */
+	private Long flushInterval = 1000L;
+	
+	/**
+	 * 用户点赞、收藏关系集合的过期时间，单位：秒
+	 */
+	private Long memberExpired = 7 * 24 * 60 * 60L;
+	
+	/**
+	 * 帖子每秒计数写入次数超过该值时开启分片计数，小于等于 0 时关闭
+	 */
+	private Integer hotThreshold = 50;
+	
+	/**
+	 * 帖子开启分片计数后的持续时间，单位：秒
+	 */
+	private Long hotExpired = 10 * 60L;
+	
+	/**
+	 * 每个热点帖子的计数分片数量
+	 */
+	private Integer shardCount = 16;
+	
+	/**
+	 * 分片计数合并回帖子表的间隔，单位：毫秒
+	 */
+	private Long compactInterval = 5000L;
+	
+	/**
+	 * 计数对账任务的执行间隔，单位：毫秒
+	 */
+	private Long reconcileInterval = 60 * 1000L;
+	
+	/**
+	 * 计数对账每批扫描的帖子数量
+	 */
+	private Integer reconcileBatchSize = 500;
+	
+	/**
+	 * 计数对账每次执行最多扫描的批次数
+	 */
+	private Integer reconcileMaxBatches = 100;
+	
+	/**
+	 * 计数对账两个批次之间的停顿，单位：毫秒
+	 */
+	private Long reconcilePause = 100L;
+	
+	/**
+	 * 评论数消息每批最多合并的消息数量
+	 */
+	private Integer commentBatchSize = 200;
+	
+	/**
+	 * 评论数消息凑批的最长等待时间，单位：毫秒
+	 */
+	private Long commentBatchTimeout = 1000L;
+	
+}
@@ -3,13 +3,15 @@ package com.stephen.trajectory.config.mybatisplus;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.BlockAttackInnerInterceptor;
-import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.stephen.trajectory.config.mybatisplus.interceptor.CountStrategyPaginationInnerInterceptor;
+import com.stephen.trajectory.config.mybatisplus.properties.PaginationProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 
 /**
  * MyBatis Plus 配置
@@ -21,6 +23,9 @@ import javax.annotation.PostConstruct;
 @Slf4j
 public class MyBatisPlusConfiguration {
 	
+	@Resource
+	private PaginationProperties paginationProperties;
+	
 	/**
 	 * MyBatis-Plus插件
 	 */
@@ -29,8 +34,8 @@ public class MyBatisPlusConfiguration {
 		MybatisPlusInterceptor mybatisPlusInterceptor = new MybatisPlusInterceptor();
 		// 防止全表更新与删除插件
 		mybatisPlusInterceptor.addInnerInterceptor(new BlockAttackInnerInterceptor());
-		// 分页插件，如果有多个插件，分页插件添加在最后
-		mybatisPlusInterceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
+		// 分页插件（带 count 缓存与 count 上限），如果有多个插件，分页插件添加在最后
+		mybatisPlusInterceptor.addInnerInterceptor(new CountStrategyPaginationInnerInterceptor(DbType.MYSQL, paginationProperties));
 		return mybatisPlusInterceptor;
 	}
 	
@@ -0,0 +1,144 @@
+package com.stephen.trajectory.config.mybatisplus.interceptor;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stephen.trajectory.config.mybatisplus.properties.PaginationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带 count 策略的分页插件
+ * <p>
+ * 1. 相同查询条件的 count 结果在本地缓存一段时间，翻页时不再重复 count；
+ * 2. count 时最多扫描 maxCount + 1 行，超过上限时总数按上限返回（总数的下限），仍正常查询当前页，
+ *    并在响应头 {@link #TOTAL_CAPPED_HEADER} 中标记总数已截断，客户端据此显示"maxCount+"；
+ * 3. 客户端传入 searchCount = false 时不执行 count。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Slf4j
+public class CountStrategyPaginationInnerInterceptor extends PaginationInnerInterceptor {
+	
+	/**
+	 * 优化后的 count 语句前缀
+	 */
+	private static final String OPTIMIZED_COUNT_PREFIX = "SELECT COUNT(*) AS total ";
+	
+	/**
+	 * 未优化的 count 语句前缀
+	 */
+	private static final String LOW_LEVEL_COUNT_PREFIX = "SELECT COUNT(*) ";
+	
+	/**
+	 * 总数超过 count 上限时添加的响应头，值为 true
+	 */
+	public static final String TOTAL_CAPPED_HEADER = "X-Total-Capped";
+	
+	private final long maxCount;
+	
+	/**
+	 * count 结果缓存，key 为查询语句及参数的摘要
+	 */
+	private final Cache<String, Long> countCache;
+	
+	public CountStrategyPaginationInnerInterceptor(DbType dbType, PaginationProperties paginationProperties) {
+		super(dbType);
+		this.maxCount = paginationProperties.getMaxCount();
+		long expired = paginationProperties.getCountCacheExpired();
+		this.countCache = expired > 0 ? Caffeine.newBuilder()
+				.expireAfterWrite(expired, TimeUnit.SECONDS)
+				.maximumSize(paginationProperties.getCountCacheMaxSize())
+				.build() : null;
+	}
+	
+	/**
+	 * 执行 count 前先查询缓存，未命中再由父类执行 count 并缓存结果
+	 */
+	@Override
+	public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+	                           ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+		IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+		if (page == null || page.getSize() < 0 || !page.searchCount()) {
+			return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+		}
+		if (countCache == null) {
+			boolean result = super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+			return handleCapped(page) || result;
+		}
+		// 查询语句和参数相同即视为同一个 count，与页码无关
+		String countKey = ms.getId() + ":" + DigestUtils.md5DigestAsHex(
+				executor.createCacheKey(ms, parameter, rowBounds, boundSql).toString().getBytes(StandardCharsets.UTF_8));
+		Long total = countCache.getIfPresent(countKey);
+		if (total != null) {
+			page.setTotal(total);
+			return handleCapped(page) || continuePage(page);
+		}
+		boolean result = super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+		// 缓存原始 count 结果（超过上限时为 maxCount + 1），命中缓存时据此判断是否截断
+		countCache.put(countKey, page.getTotal());
+		return handleCapped(page) || result;
+	}
+	
+	/**
+	 * count 结果超过上限时，总数按上限返回并在响应头中标记总数已截断
+	 * <p>
+	 * 实际总数未知，当前页可能位于上限之后，因此总是继续查询当前页
+	 * </p>
+	 *
+	 * @param page 分页对象
+	 * @return 是否超过上限
+	 */
+	private boolean handleCapped(IPage<?> page) {
+		if (maxCount <= 0 || page.getTotal() <= maxCount) {
+			return false;
+		}
+		page.setTotal(maxCount);
+		RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		if (requestAttributes instanceof ServletRequestAttributes) {
+			HttpServletResponse response = ((ServletRequestAttributes) requestAttributes).getResponse();
+			if (response != null) {
+				response.setHeader(TOTAL_CAPPED_HEADER, Boolean.TRUE.toString());
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * 在自动生成的 count 语句外包一层 LIMIT，最多扫描 maxCount + 1 行（多扫描一行用于判断是否超过上限）
+	 */
+	@Override
+	protected String autoCountSql(IPage<?> page, String sql) {
+		String countSql = super.autoCountSql(page, sql);
+		if (maxCount <= 0) {
+			return countSql;
+		}
+		String fromSql;
+		if (StringUtils.startsWithIgnoreCase(countSql, OPTIMIZED_COUNT_PREFIX)) {
+			fromSql = countSql.substring(OPTIMIZED_COUNT_PREFIX.length());
+		} else if (StringUtils.startsWithIgnoreCase(countSql, LOW_LEVEL_COUNT_PREFIX)) {
+			fromSql = countSql.substring(LOW_LEVEL_COUNT_PREFIX.length());
+		} else {
+			return countSql;
+		}
+		return String.format("SELECT COUNT(*) FROM (SELECT 1 %s LIMIT %d) CAPPED_TOTAL", fromSql, maxCount + 1);
+	}
+}
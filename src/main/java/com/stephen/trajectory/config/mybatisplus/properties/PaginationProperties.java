@@ -0,0 +1,32 @@
+package com.stephen.trajectory.config.mybatisplus.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分页插件 count 策略配置属性
+ *
+ * @author stephen qiu
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "pagination")
+public class PaginationProperties {
+	
+	/**
+	 * count 结果缓存过期时间，单位：秒，小于等于 0 时不缓存
+	 */
+	private Long countCacheExpired = 30L;
+	
+	/**
+	 * count 结果缓存最大条数
+	 */
+	private Long countCacheMaxSize = 10000L;
+	
+	/**
+	 * count 上限，超过上限时总数按上限返回并添加响应头 X-Total-Capped: true，小于等于 0 时精确 count
+	 */
+	private Long maxCount = 10000L;
+	
+}
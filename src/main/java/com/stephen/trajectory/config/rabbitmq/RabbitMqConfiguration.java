@@ -1,14 +1,20 @@
 package com.stephen.trajectory.config.rabbitmq;
 
+import com.stephen.trajectory.config.comment.properties.CommentIngestProperties;
+import com.stephen.trajectory.config.counter.properties.CounterProperties;
 import com.stephen.trajectory.config.rabbitmq.condition.RabbitMqCondition;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 
 /**
  * 消息队列RabbitMQ实例配置
@@ -20,6 +26,12 @@ import javax.annotation.PostConstruct;
 @Conditional(RabbitMqCondition.class)
 public class RabbitMqConfiguration {
 	
+	@Resource
+	private CounterProperties counterProperties;
+	
+	@Resource
+	private CommentIngestProperties commentIngestProperties;
+	
 	/**
 	 * 注册RabbitTemplate实例
 	 *
@@ -54,6 +66,54 @@ public class RabbitMqConfiguration {
 		return rabbitTemplate;
 	}
 	
+	/**
+	 * 注册帖子评论数消息的批量消费监听容器工厂
+	 *
+	 * @param configurer        Spring Boot 默认的监听容器配置
+	 * @param connectionFactory 连接工厂接口
+	 * @return 返回结果
+	 */
+	@Bean("batchRabbitListenerContainerFactory")
+	public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+	                                                                                ConnectionFactory connectionFactory) {
+		return buildBatchFactory(configurer, connectionFactory, counterProperties.getCommentBatchSize(), counterProperties.getCommentBatchTimeout());
+	}
+	
+	/**
+	 * 注册评论缓冲写入消息的批量消费监听容器工厂
+	 *
+	 * @param configurer        Spring Boot 默认的监听容器配置
+	 * @param connectionFactory 连接工厂接口
+	 * @return 返回结果
+	 */
+	@Bean("commentIngestListenerContainerFactory")
+	public SimpleRabbitListenerContainerFactory commentIngestListenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+	                                                                                  ConnectionFactory connectionFactory) {
+		return buildBatchFactory(configurer, connectionFactory, commentIngestProperties.getBatchSize(), commentIngestProperties.getBatchTimeout());
+	}
+	
+	/**
+	 * 构建批量消费的监听容器工厂，一次拉取一批消息交给监听方法，由监听方法整批手动确认
+	 *
+	 * @param configurer        Spring Boot 默认的监听容器配置
+	 * @param connectionFactory 连接工厂接口
+	 * @param batchSize         每批最多消息数量
+	 * @param batchTimeout      凑批的最长等待时间，单位：毫秒
+	 * @return 返回结果
+	 */
+	private SimpleRabbitListenerContainerFactory buildBatchFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+	                                                               ConnectionFactory connectionFactory, int batchSize, long batchTimeout) {
+		SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+		configurer.configure(factory, connectionFactory);
+		factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+		factory.setBatchListener(true);
+		factory.setConsumerBatchEnabled(true);
+		factory.setBatchSize(batchSize);
+		factory.setPrefetchCount(batchSize);
+		factory.setReceiveTimeout(batchTimeout);
+		return factory;
+	}
+	
 	/**
 	 * 依赖注入日志输出
 	 */
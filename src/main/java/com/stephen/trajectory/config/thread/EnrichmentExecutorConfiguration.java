@@ -0,0 +1,61 @@
+package com.stephen.trajectory.config.thread;
+
+import com.stephen.trajectory.config.thread.properties.EnrichmentProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 视图填充线程池配置
+ * <p>
+ * 视图分页填充用户信息、点赞收藏状态等关联数据时使用的独立有界线程池，避免阻塞的数据库调用占满公共 ForkJoin 线程池。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Slf4j
+@Configuration
+public class EnrichmentExecutorConfiguration {
+	
+	@Resource
+	private EnrichmentProperties enrichmentProperties;
+	
+	@Bean
+	public ThreadPoolExecutor enrichmentExecutor() {
+		return new ThreadPoolExecutor(
+				enrichmentProperties.getCorePoolSize(),
+				enrichmentProperties.getMaxPoolSize(),
+				enrichmentProperties.getKeepAliveTime(),
+				TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(enrichmentProperties.getQueueCapacity()),
+				new ThreadFactory() {
+					private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+					private final AtomicInteger threadCount = new AtomicInteger(1);
+					
+					@Override
+					public Thread newThread(@NotNull Runnable r) {
+						Thread thread = defaultFactory.newThread(r);
+						thread.setName("enrichment-thread-" + threadCount.getAndIncrement());
+						thread.setDaemon(true);
+						return thread;
+					}
+				},
+				// 队列满时直接拒绝，由调用方降级处理
+				new ThreadPoolExecutor.AbortPolicy()
+		);
+	}
+	
+	/**
+	 * 依赖注入日志输出
+	 */
+	@PostConstruct
+	private void initDi() {
+		log.info("############ {} Configuration DI.", this.getClass().getSimpleName());
+	}
+}
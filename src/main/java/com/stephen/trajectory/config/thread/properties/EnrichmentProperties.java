@@ -0,0 +1,42 @@
+package com.stephen.trajectory.config.thread.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 视图填充线程池配置属性
+ *
+ * @author stephen qiu
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "enrichment")
+public class EnrichmentProperties {
+	
+	/**
+	 * 核心线程数
+	 */
+	private Integer corePoolSize = 8;
+	
+	/**
+	 * 最大线程数
+	 */
+	private Integer maxPoolSize = 16;
+	
+	/**
+	 * 阻塞队列容量，队列满时直接拒绝，由调用方降级
+	 */
+	private Integer queueCapacity = 200;
+	
+	/**
+	 * 非核心线程空闲存活时间，单位：秒
+	 */
+	private Long keepAliveTime = 60L;
+	
+	/**
+	 * 单次请求填充视图的截止时间，超时的环节降级返回，单位：毫秒
+	 */
+	private Long timeout = 800L;
+	
+}
@@ -2,6 +2,7 @@ package com.stephen.trajectory.controller;
 
 import cn.dev33.satoken.annotation.SaCheckRole;
 import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.stephen.trajectory.common.*;
 import com.stephen.trajectory.common.exception.BusinessException;
@@ -17,6 +18,7 @@ import com.stephen.trajectory.service.ChartService;
 import com.stephen.trajectory.service.UserService;
 import com.stephen.trajectory.utils.document.excel.ExcelUtils;
 import com.stephen.trajectory.utils.document.file.FileUtils;
+import com.stephen.trajectory.utils.sql.CursorUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
@@ -171,7 +173,7 @@ public class ChartController {
 		long current = chartQueryRequest.getCurrent();
 		long size = chartQueryRequest.getPageSize();
 		// 查询数据库
-		Page<Chart> chartPage = chartService.page(new Page<>(current, size),
+		Page<Chart> chartPage = chartService.page(new Page<>(current, size, chartQueryRequest.isSearchCount()),
 				chartService.getQueryWrapper(chartQueryRequest));
 		return ResultUtils.success(chartPage);
 	}
@@ -193,12 +195,36 @@ public class ChartController {
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
 		// 查询数据库
-		Page<Chart> chartPage = chartService.page(new Page<>(current, size),
+		Page<Chart> chartPage = chartService.page(new Page<>(current, size, chartQueryRequest.isSearchCount()),
 				chartService.getQueryWrapper(chartQueryRequest));
 		// 获取封装类
 		return ResultUtils.success(chartService.getChartVOPage(chartPage, request));
 	}
 	
+	/**
+	 * 游标分页获取图表信息列表（封装类），按 (createTime, id) 倒序，不执行 count 查询
+	 *
+	 * @param chartQueryRequest chartQueryRequest
+	 * @param request           request
+	 * @return {@link BaseResponse<CursorPage<ChartVO>>}
+	 */
+	@PostMapping("/list/cursor/vo")
+	public BaseResponse<CursorPage<ChartVO>> listChartVOByCursor(@RequestBody ChartQueryRequest chartQueryRequest,
+	                                                             HttpServletRequest request) {
+		long size = chartQueryRequest.getPageSize();
+		// 限制爬虫
+		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+		// 游标分页固定按 (createTime, id) 倒序，忽略自定义排序字段
+		chartQueryRequest.setSortField(null);
+		QueryWrapper<Chart> queryWrapper = chartService.getQueryWrapper(chartQueryRequest);
+		CursorUtils.applyCursor(queryWrapper, chartQueryRequest.getCursor());
+		// 查询数据库
+		Page<Chart> chartPage = chartService.page(CursorUtils.buildPage(size), queryWrapper);
+		// 获取封装类
+		return ResultUtils.success(CursorUtils.toCursorPage(chartPage, size, Chart::getCreateTime, Chart::getId,
+				page -> chartService.getChartVOPage(page, request).getRecords()));
+	}
+	
 	/**
 	 * 分页获取当前登录用户创建的图表信息列表
 	 *
@@ -218,7 +244,7 @@ public class ChartController {
 		long current = chartQueryRequest.getCurrent();
 		long size = chartQueryRequest.getPageSize();
 		// 查询数据库
-		Page<Chart> chartPage = chartService.page(new Page<>(current, size), chartService.getQueryWrapper(chartQueryRequest));
+		Page<Chart> chartPage = chartService.page(new Page<>(current, size, chartQueryRequest.isSearchCount()), chartService.getQueryWrapper(chartQueryRequest));
 		// 获取封装类
 		return ResultUtils.success(chartService.getChartVOPage(chartPage, request));
 	}
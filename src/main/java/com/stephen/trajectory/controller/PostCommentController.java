@@ -1,25 +1,35 @@
 package com.stephen.trajectory.controller;
 
 import cn.dev33.satoken.annotation.SaCheckRole;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.stephen.trajectory.common.*;
 import com.stephen.trajectory.common.exception.BusinessException;
+import com.stephen.trajectory.constants.CommonConstant;
 import com.stephen.trajectory.constants.UserConstant;
+import com.stephen.trajectory.manager.cache.PostCommentThreadCacheManager;
+import com.stephen.trajectory.manager.comment.CommentIngestManager;
 import com.stephen.trajectory.model.dto.postComment.PostCommentAddRequest;
 import com.stephen.trajectory.model.dto.postComment.PostCommentEditRequest;
 import com.stephen.trajectory.model.dto.postComment.PostCommentQueryRequest;
+import com.stephen.trajectory.model.dto.postComment.PostCommentThreadQueryRequest;
 import com.stephen.trajectory.model.dto.postComment.PostCommentUpdateRequest;
 import com.stephen.trajectory.model.entity.PostComment;
 import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.PostCommentThreadVO;
 import com.stephen.trajectory.model.vo.PostCommentVO;
 import com.stephen.trajectory.service.PostCommentService;
 import com.stephen.trajectory.service.UserService;
+import com.stephen.trajectory.utils.sql.CursorUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 帖子评论接口
@@ -37,6 +47,12 @@ public class PostCommentController {
 	@Resource
 	private UserService userService;
 	
+	@Resource
+	private PostCommentThreadCacheManager postCommentThreadCacheManager;
+	
+	@Resource
+	private CommentIngestManager commentIngestManager;
+	
 	// region 增删改查
 	
 	/**
@@ -52,11 +68,17 @@ public class PostCommentController {
 		// todo 在此处将实体类和 DTO 进行转换
 		PostComment postComment = new PostComment();
 		BeanUtils.copyProperties(postCommentAddRequest, postComment);
-		// 数据校验
-		postCommentService.validPostComment(postComment, true);
 		// todo 填充默认值
 		User loginUser = userService.getLoginUser(request);
 		postComment.setUserId(loginUser.getId());
+		// 数据校验（回复作者自己尚未落库的评论时需要 userId）
+		postCommentService.validPostComment(postComment, true);
+		// 开启缓冲写入时分配 id 并投递到消息队列后直接返回，由消费者批量写入数据库
+		if (commentIngestManager.isEnabled()) {
+			String clientMsgId = postCommentAddRequest.getClientMsgId();
+			ThrowUtils.throwIf(clientMsgId != null && clientMsgId.length() > 64, ErrorCode.PARAMS_ERROR, "客户端消息id过长");
+			return ResultUtils.success(commentIngestManager.submit(postComment, clientMsgId));
+		}
 		// 写入数据库
 		boolean result = postCommentService.save(postComment);
 		ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
@@ -147,7 +169,7 @@ public class PostCommentController {
 		long current = postCommentQueryRequest.getCurrent();
 		long size = postCommentQueryRequest.getPageSize();
 		// 查询数据库
-		Page<PostComment> postCommentPage = postCommentService.page(new Page<>(current, size), postCommentService.getQueryWrapper(postCommentQueryRequest));
+		Page<PostComment> postCommentPage = postCommentService.page(new Page<>(current, size, postCommentQueryRequest.isSearchCount()), postCommentService.getQueryWrapper(postCommentQueryRequest));
 		return ResultUtils.success(postCommentPage);
 	}
 	
@@ -166,9 +188,82 @@ public class PostCommentController {
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
 		// 查询数据库
-		Page<PostComment> postCommentPage = postCommentService.page(new Page<>(current, size), postCommentService.getQueryWrapper(postCommentQueryRequest));
+		Page<PostComment> postCommentPage = postCommentService.page(new Page<>(current, size, postCommentQueryRequest.isSearchCount()), postCommentService.getQueryWrapper(postCommentQueryRequest));
 		// 获取封装类
-		return ResultUtils.success(postCommentService.getPostCommentVOPage(postCommentPage, request));
+		Page<PostCommentVO> postCommentVOPage = postCommentService.getPostCommentVOPage(postCommentPage, request);
+		// 按时间倒序的第一页合并当前用户尚未落库的评论
+		boolean newestFirst = "createTime".equals(postCommentQueryRequest.getSortField())
+				&& !CommonConstant.SORT_ORDER_ASC.equals(postCommentQueryRequest.getSortOrder());
+		if (current == 1 && newestFirst) {
+			List<PostCommentVO> postCommentVOList = new ArrayList<>(postCommentVOPage.getRecords());
+			postCommentService.mergePendingComments(postCommentVOList, postCommentQueryRequest, size, request);
+			postCommentVOPage.setRecords(postCommentVOList);
+		}
+		return ResultUtils.success(postCommentVOPage);
+	}
+	
+	/**
+	 * 游标分页获取帖子评论列表（封装类），按 (createTime, id) 倒序，不执行 count 查询
+	 *
+	 * @param postCommentQueryRequest postCommentQueryRequest
+	 * @param request                 request
+	 * @return {@link BaseResponse<CursorPage<PostCommentVO>>}
+	 */
+	@PostMapping("/list/cursor/vo")
+	public BaseResponse<CursorPage<PostCommentVO>> listPostCommentVOByCursor(@RequestBody PostCommentQueryRequest postCommentQueryRequest,
+	                                                                         HttpServletRequest request) {
+		long size = postCommentQueryRequest.getPageSize();
+		// 限制爬虫
+		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+		// 游标分页固定按 (createTime, id) 倒序，忽略自定义排序字段
+		postCommentQueryRequest.setSortField(null);
+		QueryWrapper<PostComment> queryWrapper = postCommentService.getQueryWrapper(postCommentQueryRequest);
+		CursorUtils.applyCursor(queryWrapper, postCommentQueryRequest.getCursor());
+		// 查询数据库
+		Page<PostComment> postCommentPage = postCommentService.page(CursorUtils.buildPage(size), queryWrapper);
+		// 获取封装类
+		CursorPage<PostCommentVO> cursorPage = CursorUtils.toCursorPage(postCommentPage, size, PostComment::getCreateTime, PostComment::getId,
+				page -> postCommentService.getPostCommentVOPage(page, request).getRecords());
+		// 第一页合并当前用户尚未落库的评论
+		if (StringUtils.isBlank(postCommentQueryRequest.getCursor())) {
+			List<PostCommentVO> postCommentVOList = new ArrayList<>(cursorPage.getRecords());
+			List<PostComment> mergeList = postCommentService.mergePendingComments(postCommentVOList, postCommentQueryRequest, size, request);
+			cursorPage.setRecords(postCommentVOList);
+			// 合并后去掉了末尾的评论时，下一页从本页保留的最后一条评论之后开始
+			List<PostComment> recordList = postCommentPage.getRecords();
+			int keepCount = postCommentVOList.size() - mergeList.size();
+			if (!mergeList.isEmpty() && keepCount < recordList.size()) {
+				PostComment last = keepCount > 0 ? recordList.get(keepCount - 1) : mergeList.get(mergeList.size() - 1);
+				cursorPage.setNextCursor(CursorUtils.encode(last.getCreateTime(), last.getId()));
+				cursorPage.setHasMore(true);
+			}
+		}
+		return ResultUtils.success(cursorPage);
+	}
+	
+	/**
+	 * 分页获取帖子评论楼层（根评论及其最早的若干条回复），按帖子缓存
+	 *
+	 * @param postCommentThreadQueryRequest postCommentThreadQueryRequest
+	 * @return {@link BaseResponse<Page<PostCommentThreadVO>>}
+	 */
+	@PostMapping("/thread/list/page/vo")
+	public BaseResponse<Page<PostCommentThreadVO>> listPostCommentThreadByPage(@RequestBody PostCommentThreadQueryRequest postCommentThreadQueryRequest,
+	                                                                           HttpServletRequest request) {
+		ThrowUtils.throwIf(postCommentThreadQueryRequest == null, ErrorCode.PARAMS_ERROR);
+		Long postId = postCommentThreadQueryRequest.getPostId();
+		ThrowUtils.throwIf(postId == null || postId <= 0, ErrorCode.PARAMS_ERROR, "帖子id不能为空");
+		long size = postCommentThreadQueryRequest.getPageSize();
+		Integer replySize = postCommentThreadQueryRequest.getReplySize();
+		// 限制爬虫
+		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+		ThrowUtils.throwIf(replySize == null || replySize < 0 || replySize > 10, ErrorCode.PARAMS_ERROR, "回复数量不合法");
+		// 1. 先查询帖子评论楼层缓存，未命中时回源查询数据库
+		Page<PostCommentThreadVO> threadPage = postCommentThreadCacheManager.getOrLoad(postCommentThreadQueryRequest,
+				() -> postCommentService.getPostCommentThreadPage(postCommentThreadQueryRequest));
+		// 2. 合并当前用户尚未落库的评论
+		postCommentService.mergePendingThreads(threadPage, postId, request);
+		return ResultUtils.success(threadPage);
 	}
 	
 	/**
@@ -190,7 +285,7 @@ public class PostCommentController {
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
 		// 查询数据库
-		Page<PostComment> postCommentPage = postCommentService.page(new Page<>(current, size),
+		Page<PostComment> postCommentPage = postCommentService.page(new Page<>(current, size, postCommentQueryRequest.isSearchCount()),
 				postCommentService.getQueryWrapper(postCommentQueryRequest));
 		// 获取封装类
 		return ResultUtils.success(postCommentService.getPostCommentVOPage(postCommentPage, request));
@@ -1,13 +1,13 @@
 package com.stephen.trajectory.controller;
 
 import cn.dev33.satoken.annotation.SaCheckRole;
-import cn.hutool.core.util.ObjUtil;
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.stephen.trajectory.common.*;
 import com.stephen.trajectory.common.exception.BusinessException;
 import com.stephen.trajectory.constants.UserConstant;
+import com.stephen.trajectory.manager.cache.PostListCacheManager;
 import com.stephen.trajectory.model.dto.post.PostAddRequest;
 import com.stephen.trajectory.model.dto.post.PostEditRequest;
 import com.stephen.trajectory.model.dto.post.PostQueryRequest;
@@ -17,17 +17,14 @@ import com.stephen.trajectory.model.entity.User;
 import com.stephen.trajectory.model.vo.PostVO;
 import com.stephen.trajectory.service.PostService;
 import com.stephen.trajectory.service.UserService;
-import com.stephen.trajectory.utils.caffeine.LocalCacheUtils;
-import com.stephen.trajectory.utils.redisson.cache.CacheUtils;
+import com.stephen.trajectory.utils.sql.CursorUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 帖子接口
@@ -45,6 +42,9 @@ public class PostController {
 	@Resource
 	private UserService userService;
 	
+	@Resource
+	private PostListCacheManager postListCacheManager;
+	
 	// region 增删改查
 	
 	/**
@@ -73,6 +73,8 @@ public class PostController {
 		boolean result = postService.save(post);
 		ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
 		long newPostId = post.getId();
+		// 失效帖子列表缓存
+		postListCacheManager.evict();
 		// 数据双写
 		return ResultUtils.success(newPostId);
 	}
@@ -99,6 +101,9 @@ public class PostController {
 			throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
 		}
 		boolean b = postService.removeById(id);
+		if (b) {
+			postListCacheManager.evict();
+		}
 		return ResultUtils.success(b);
 	}
 	
@@ -125,6 +130,9 @@ public class PostController {
 		Post oldPost = postService.getById(id);
 		ThrowUtils.throwIf(oldPost == null, ErrorCode.NOT_FOUND_ERROR);
 		boolean result = postService.updateById(post);
+		if (result) {
+			postListCacheManager.evict();
+		}
 		return ResultUtils.success(result);
 	}
 	
@@ -155,7 +163,7 @@ public class PostController {
 	public BaseResponse<Page<Post>> listPostByPage(@RequestBody PostQueryRequest postQueryRequest) {
 		long current = postQueryRequest.getCurrent();
 		long size = postQueryRequest.getPageSize();
-		Page<Post> postPage = postService.page(new Page<>(current, size), postService.getQueryWrapper(postQueryRequest));
+		Page<Post> postPage = postService.page(new Page<>(current, size, postQueryRequest.isSearchCount()), postService.getQueryWrapper(postQueryRequest));
 		return ResultUtils.success(postPage);
 	}
 	
@@ -173,46 +181,43 @@ public class PostController {
 		long size = postQueryRequest.getPageSize();
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-		// 构建缓存 key（基于查询条件的 MD5 哈希值）
-		String queryCondition = JSONUtil.toJsonStr(postQueryRequest);
-		String hashKey = DigestUtils.md5DigestAsHex(queryCondition.getBytes());
-		String cacheKey = "listPostVOByPage:" + hashKey;
-		// 1. 尝试从本地缓存中获取数据
-		String cachedValue = (String) LocalCacheUtils.get(cacheKey);
-		if (ObjUtil.isNotEmpty(cachedValue)) {
-			// 如果缓存命中，直接返回缓存中的分页结果
-			Page<PostVO> cachedPage = JSONUtil.toBean(cachedValue, Page.class);
-			return ResultUtils.success(cachedPage);
-		}
-		
-		// 2. 如果本地缓存未命中，尝试从 Redis 缓存中获取数据
-		cachedValue = CacheUtils.get(cacheKey);
-		if (ObjUtil.isNotEmpty(cachedValue)) {
-			// 如果 Redis 缓存命中，将其存入本地缓存并返回
-			LocalCacheUtils.put(cacheKey, cachedValue);
-			Page<PostVO> cachedPage = JSONUtil.toBean(cachedValue, Page.class);
-			return ResultUtils.success(cachedPage);
-		}
-		
-		// 3. 如果缓存都未命中，查询数据库
-		Page<Post> postPage = postService.page(new Page<>(current, size),
-				postService.getQueryWrapper(postQueryRequest));
-		// 4. 将数据库查询结果转换为 VO 页面对象
-		Page<PostVO> postVOPage = postService.getPostVOPage(postPage, request);
-		String cacheValue = JSONUtil.toJsonStr(postVOPage);
-		// 5. 更新本地缓存和 Redis 缓存
-		try {
-			// 更新本地缓存
-			LocalCacheUtils.put(cacheKey, cacheValue);
-			// 更新 Redis 缓存, 并设置随机过期时间为 2~5 分钟
-			CacheUtils.put(cacheKey, cacheValue, TimeUnit.MINUTES.toMinutes(RandomUtil.randomLong(2, 5)));
-		} catch (Exception e) {
-			// 如果 Redis 缓存更新失败，记录日志以便排查问题
-			log.error("更新缓存失败, cacheKey: {}", cacheKey, e);
-		}
+		// 构建缓存 key（缓存区域版本号 + 查询条件的 MD5 哈希值）
+		String cacheKey = postListCacheManager.buildCacheKey(postQueryRequest);
+		// 1. 从本地缓存、Redis 缓存中获取与用户无关的帖子骨架分页，都未命中时合并并发请求回源查询数据库
+		Page<PostVO> postVOPage = postListCacheManager.getOrLoad(cacheKey, () -> {
+			Page<Post> postPage = postService.page(new Page<>(current, size, postQueryRequest.isSearchCount()),
+					postService.getQueryWrapper(postQueryRequest));
+			return postService.getPostVOSkeletonPage(postPage, request);
+		});
+		// 2. 合并当前用户的点赞、收藏状态
+		postService.fillViewerState(postVOPage.getRecords(), request);
 		return ResultUtils.success(postVOPage);
 	}
 	
+	/**
+	 * 游标分页获取列表（封装类），按 (createTime, id) 倒序，不执行 count 查询
+	 *
+	 * @param postQueryRequest postQueryRequest
+	 * @param request          request
+	 * @return {@link BaseResponse<CursorPage<PostVO>>}
+	 */
+	@PostMapping("/list/cursor/vo")
+	public BaseResponse<CursorPage<PostVO>> listPostVOByCursor(@RequestBody PostQueryRequest postQueryRequest,
+	                                                           HttpServletRequest request) {
+		long size = postQueryRequest.getPageSize();
+		// 限制爬虫
+		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+		// 游标分页固定按 (createTime, id) 倒序，忽略自定义排序字段
+		postQueryRequest.setSortField(null);
+		QueryWrapper<Post> queryWrapper = postService.getQueryWrapper(postQueryRequest);
+		CursorUtils.applyCursor(queryWrapper, postQueryRequest.getCursor());
+		// 查询数据库
+		Page<Post> postPage = postService.page(CursorUtils.buildPage(size), queryWrapper);
+		// 获取封装类
+		return ResultUtils.success(CursorUtils.toCursorPage(postPage, size, Post::getCreateTime, Post::getId,
+				page -> postService.getPostVOPage(page, request).getRecords()));
+	}
+	
 	/**
 	 * 分页获取当前用户创建的资源列表
 	 *
@@ -230,7 +235,7 @@ public class PostController {
 		long size = postQueryRequest.getPageSize();
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-		Page<Post> postPage = postService.page(new Page<>(current, size), postService.getQueryWrapper(postQueryRequest));
+		Page<Post> postPage = postService.page(new Page<>(current, size, postQueryRequest.isSearchCount()), postService.getQueryWrapper(postQueryRequest));
 		return ResultUtils.success(postService.getPostVOPage(postPage, request));
 	}
 	
@@ -266,6 +271,9 @@ public class PostController {
 			throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
 		}
 		boolean result = postService.updateById(post);
+		if (result) {
+			postListCacheManager.evict();
+		}
 		return ResultUtils.success(result);
 	}
 }
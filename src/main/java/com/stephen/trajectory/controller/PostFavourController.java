@@ -1,16 +1,20 @@
 package com.stephen.trajectory.controller;
 
+import cn.hutool.core.collection.CollUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.stephen.trajectory.common.BaseResponse;
+import com.stephen.trajectory.common.CursorPage;
 import com.stephen.trajectory.common.ErrorCode;
 import com.stephen.trajectory.common.ResultUtils;
 import com.stephen.trajectory.common.ThrowUtils;
 import com.stephen.trajectory.common.exception.BusinessException;
 import com.stephen.trajectory.model.dto.post.PostQueryRequest;
 import com.stephen.trajectory.model.dto.postFavour.PostFavourAddRequest;
+import com.stephen.trajectory.model.dto.postFavour.PostFavourBatchRequest;
 import com.stephen.trajectory.model.dto.postFavour.PostFavourQueryRequest;
 import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.PostActionResultVO;
 import com.stephen.trajectory.model.vo.PostVO;
 import com.stephen.trajectory.service.PostFavourService;
 import com.stephen.trajectory.service.PostService;
@@ -23,6 +27,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子收藏接口
@@ -63,6 +70,34 @@ public class PostFavourController {
 		return ResultUtils.success(result);
 	}
 	
+	/**
+	 * 批量收藏 / 取消收藏（客户端离线操作补发）
+	 *
+	 * @param postFavourBatchRequest postFavourBatchRequest
+	 * @param request            request
+	 * @return BaseResponse<List<PostActionResultVO>> 每个帖子的处理结果
+	 */
+	@PostMapping("/batch")
+	public BaseResponse<List<PostActionResultVO>> doPostFavourBatch(@RequestBody PostFavourBatchRequest postFavourBatchRequest,
+	                                                                HttpServletRequest request) {
+		if (postFavourBatchRequest == null || CollUtil.isEmpty(postFavourBatchRequest.getActionList())) {
+			throw new BusinessException(ErrorCode.PARAMS_ERROR);
+		}
+		List<PostFavourBatchRequest.PostFavourAction> actionList = postFavourBatchRequest.getActionList();
+		ThrowUtils.throwIf(actionList.size() > 100, ErrorCode.PARAMS_ERROR, "单次最多提交 100 个操作");
+		// 同一帖子以最后一次操作为准
+		Map<Long, Boolean> actionMap = new LinkedHashMap<>();
+		actionList.forEach(action -> {
+			ThrowUtils.throwIf(action == null || action.getPostId() == null || action.getPostId() <= 0, ErrorCode.PARAMS_ERROR);
+			ThrowUtils.throwIf(action.getFavour() == null, ErrorCode.PARAMS_ERROR, "是否收藏不能为空");
+			actionMap.remove(action.getPostId());
+			actionMap.put(action.getPostId(), action.getFavour());
+		});
+		// 登录才能操作
+		final User loginUser = userService.getLoginUser(request);
+		return ResultUtils.success(postFavourService.doPostFavourBatch(actionMap, loginUser));
+	}
+	
 	/**
 	 * 获取我收藏的帖子列表
 	 *
@@ -81,11 +116,31 @@ public class PostFavourController {
 		long size = postQueryRequest.getPageSize();
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-		Page<Post> postPage = postFavourService.listFavourPostByPage(new Page<>(current, size),
+		Page<Post> postPage = postFavourService.listFavourPostByPage(new Page<>(current, size, postQueryRequest.isSearchCount()),
 				postService.getQueryWrapper(postQueryRequest), loginUser.getId());
 		return ResultUtils.success(postService.getPostVOPage(postPage, request));
 	}
 	
+	/**
+	 * 按收藏时间游标分页获取我收藏的帖子列表，不执行 count 查询
+	 *
+	 * @param postQueryRequest postQueryRequest（使用 cursor、pageSize）
+	 * @param request          request
+	 * @return {@link BaseResponse<CursorPage<PostVO>>}
+	 */
+	@PostMapping("/my/list/cursor")
+	public BaseResponse<CursorPage<PostVO>> listMyFavourPostByCursor(@RequestBody PostQueryRequest postQueryRequest,
+	                                                                 HttpServletRequest request) {
+		if (postQueryRequest == null) {
+			throw new BusinessException(ErrorCode.PARAMS_ERROR);
+		}
+		User loginUser = userService.getLoginUser(request);
+		long size = postQueryRequest.getPageSize();
+		// 限制爬虫
+		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+		return ResultUtils.success(postFavourService.listFavourPostVOByCursor(loginUser.getId(), postQueryRequest.getCursor(), size, request));
+	}
+	
 	/**
 	 * 获取用户收藏的帖子列表
 	 *
@@ -104,7 +159,7 @@ public class PostFavourController {
 		Long userId = postFavourQueryRequest.getUserId();
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20 || userId == null, ErrorCode.PARAMS_ERROR);
-		Page<Post> postPage = postFavourService.listFavourPostByPage(new Page<>(current, size), postService.getQueryWrapper(postFavourQueryRequest.getPostQueryRequest()), userId);
+		Page<Post> postPage = postFavourService.listFavourPostByPage(new Page<>(current, size, postFavourQueryRequest.isSearchCount()), postService.getQueryWrapper(postFavourQueryRequest.getPostQueryRequest()), userId);
 		return ResultUtils.success(postService.getPostVOPage(postPage, request));
 	}
 }
@@ -1,16 +1,20 @@
 package com.stephen.trajectory.controller;
 
+import cn.hutool.core.collection.CollUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.stephen.trajectory.common.BaseResponse;
+import com.stephen.trajectory.common.CursorPage;
 import com.stephen.trajectory.common.ErrorCode;
 import com.stephen.trajectory.common.ResultUtils;
 import com.stephen.trajectory.common.ThrowUtils;
 import com.stephen.trajectory.common.exception.BusinessException;
 import com.stephen.trajectory.model.dto.post.PostQueryRequest;
 import com.stephen.trajectory.model.dto.postThumb.PostThumbAddRequest;
+import com.stephen.trajectory.model.dto.postThumb.PostThumbBatchRequest;
 import com.stephen.trajectory.model.dto.postThumb.PostThumbQueryRequest;
 import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.PostActionResultVO;
 import com.stephen.trajectory.model.vo.PostVO;
 import com.stephen.trajectory.service.PostService;
 import com.stephen.trajectory.service.PostThumbService;
@@ -23,6 +27,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子点赞接口
@@ -63,6 +70,34 @@ public class PostThumbController {
 		return ResultUtils.success(result);
 	}
 	
+	/**
+	 * 批量点赞 / 取消点赞（客户端离线操作补发）
+	 *
+	 * @param postThumbBatchRequest postThumbBatchRequest
+	 * @param request            request
+	 * @return BaseResponse<List<PostActionResultVO>> 每个帖子的处理结果
+	 */
+	@PostMapping("/batch")
+	public BaseResponse<List<PostActionResultVO>> doPostThumbBatch(@RequestBody PostThumbBatchRequest postThumbBatchRequest,
+	                                                               HttpServletRequest request) {
+		if (postThumbBatchRequest == null || CollUtil.isEmpty(postThumbBatchRequest.getActionList())) {
+			throw new BusinessException(ErrorCode.PARAMS_ERROR);
+		}
+		List<PostThumbBatchRequest.PostThumbAction> actionList = postThumbBatchRequest.getActionList();
+		ThrowUtils.throwIf(actionList.size() > 100, ErrorCode.PARAMS_ERROR, "单次最多提交 100 个操作");
+		// 同一帖子以最后一次操作为准
+		Map<Long, Boolean> actionMap = new LinkedHashMap<>();
+		actionList.forEach(action -> {
+			ThrowUtils.throwIf(action == null || action.getPostId() == null || action.getPostId() <= 0, ErrorCode.PARAMS_ERROR);
+			ThrowUtils.throwIf(action.getThumb() == null, ErrorCode.PARAMS_ERROR, "是否点赞不能为空");
+			actionMap.remove(action.getPostId());
+			actionMap.put(action.getPostId(), action.getThumb());
+		});
+		// 登录才能操作
+		final User loginUser = userService.getLoginUser(request);
+		return ResultUtils.success(postThumbService.doPostThumbBatch(actionMap, loginUser));
+	}
+	
 	/**
 	 * 获取我点赞的帖子列表
 	 *
@@ -81,11 +116,31 @@ public class PostThumbController {
 		long size = postQueryRequest.getPageSize();
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-		Page<Post> postPage = postThumbService.listThumbPostByPage(new Page<>(current, size),
+		Page<Post> postPage = postThumbService.listThumbPostByPage(new Page<>(current, size, postQueryRequest.isSearchCount()),
 				postService.getQueryWrapper(postQueryRequest), loginUser.getId());
 		return ResultUtils.success(postService.getPostVOPage(postPage, request));
 	}
 	
+	/**
+	 * 按点赞时间游标分页获取我点赞的帖子列表，不执行 count 查询
+	 *
+	 * @param postQueryRequest postQueryRequest（使用 cursor、pageSize）
+	 * @param request          request
+	 * @return {@link BaseResponse<CursorPage<PostVO>>}
+	 */
+	@PostMapping("/my/list/cursor")
+	public BaseResponse<CursorPage<PostVO>> listMyThumbPostByCursor(@RequestBody PostQueryRequest postQueryRequest,
+	                                                                HttpServletRequest request) {
+		if (postQueryRequest == null) {
+			throw new BusinessException(ErrorCode.PARAMS_ERROR);
+		}
+		User loginUser = userService.getLoginUser(request);
+		long size = postQueryRequest.getPageSize();
+		// 限制爬虫
+		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+		return ResultUtils.success(postThumbService.listThumbPostVOByCursor(loginUser.getId(), postQueryRequest.getCursor(), size, request));
+	}
+	
 	/**
 	 * 获取用户点赞的帖子列表
 	 *
@@ -104,7 +159,7 @@ public class PostThumbController {
 		Long userId = postThumbQueryRequest.getUserId();
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20 || userId == null, ErrorCode.PARAMS_ERROR);
-		Page<Post> postPage = postThumbService.listThumbPostByPage(new Page<>(current, size),
+		Page<Post> postPage = postThumbService.listThumbPostByPage(new Page<>(current, size, postThumbQueryRequest.isSearchCount()),
 				postService.getQueryWrapper(postThumbQueryRequest.getPostQueryRequest()), userId);
 		return ResultUtils.success(postService.getPostVOPage(postPage, request));
 	}
@@ -1,28 +1,30 @@
 package com.stephen.trajectory.controller;
 
 import cn.dev33.satoken.annotation.SaCheckRole;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.stephen.trajectory.common.*;
 import com.stephen.trajectory.common.exception.BusinessException;
-import com.stephen.trajectory.constants.RedisConstant;
 import com.stephen.trajectory.constants.UserConstant;
+import com.stephen.trajectory.manager.tag.TagSuggestManager;
+import com.stephen.trajectory.manager.tag.TagTreeManager;
+import com.stephen.trajectory.manager.tag.model.TagTreeSnapshot;
 import com.stephen.trajectory.model.dto.tag.*;
 import com.stephen.trajectory.model.entity.Tag;
 import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.TagSuggestVO;
 import com.stephen.trajectory.model.vo.TagVO;
 import com.stephen.trajectory.service.TagService;
 import com.stephen.trajectory.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * 标签接口
@@ -41,7 +43,10 @@ public class TagController {
 	private UserService userService;
 	
 	@Resource
-	private RedisTemplate<String, Object> redisTemplate;
+	private TagTreeManager tagTreeManager;
+	
+	@Resource
+	private TagSuggestManager tagSuggestManager;
 	
 	// region 增删改查
 	
@@ -153,7 +158,7 @@ public class TagController {
 		long current = tagQueryRequest.getCurrent();
 		long size = tagQueryRequest.getPageSize();
 		// 查询数据库
-		Page<Tag> tagPage = tagService.page(new Page<>(current, size),
+		Page<Tag> tagPage = tagService.page(new Page<>(current, size, tagQueryRequest.isSearchCount()),
 				tagService.getQueryWrapper(tagQueryRequest));
 		return ResultUtils.success(tagPage);
 	}
@@ -173,7 +178,7 @@ public class TagController {
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
 		// 查询数据库
-		Page<Tag> tagPage = tagService.page(new Page<>(current, size),
+		Page<Tag> tagPage = tagService.page(new Page<>(current, size, tagQueryRequest.isSearchCount()),
 				tagService.getQueryWrapper(tagQueryRequest));
 		// 获取封装类
 		return ResultUtils.success(tagService.getTagVOPage(tagPage, request));
@@ -198,7 +203,7 @@ public class TagController {
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
 		// 查询数据库
-		Page<Tag> tagPage = tagService.page(new Page<>(current, size),
+		Page<Tag> tagPage = tagService.page(new Page<>(current, size, tagQueryRequest.isSearchCount()),
 				tagService.getQueryWrapper(tagQueryRequest));
 		// 获取封装类
 		return ResultUtils.success(tagService.getTagVOPage(tagPage, request));
@@ -240,29 +245,35 @@ public class TagController {
 	
 	/**
 	 * 获取标签的树组件
+	 * <p>
+	 * 直接输出内存快照中预先序列化好的响应体，并携带 ETag；
+	 * 客户端携带的 If-None-Match 与当前 ETag 一致时返回 304，不再传输响应体。
+	 * </p>
 	 *
-	 * @return {@link BaseResponse}<{@link List}<{@link TagDTO}>>
+	 * @return 序列化后的 {@link BaseResponse}，内容为标签树
 	 */
 	@GetMapping("/list/tree")
-	public BaseResponse<List<TagDTO>> listTagByTree() {
-		String filepath = RedisConstant.FILE_NAME + RedisConstant.TAG_TREE_KEY;
-		// 先从 Redis 中查询是否过期
-		if (Boolean.TRUE.equals(redisTemplate.hasKey(filepath))) {
-			return ResultUtils.success((List<TagDTO>) redisTemplate.opsForValue().get(filepath));
-		}
-		// 构建查询条件 查询出父标签
-		QueryWrapper<Tag> parentQueryWrapper = new QueryWrapper<>();
-		parentQueryWrapper.isNull("parentId");
-		// 标签根节点列表
-		List<Tag> parentTags = tagService.list(parentQueryWrapper);
-		
-		// 转换为 TagDTO，并递归填充子节点
-		List<TagDTO> tagDTOList = parentTags.stream()
-				.map(parentTag -> tagService.getTagDTO(parentTag))
-				.collect(Collectors.toList());
-		// 返回标签树形结构
-		// 将返回的标签属性组件存储进 Redis 中（大部分时间不会背修改）设置过期时间为1天
-		redisTemplate.opsForValue().set(filepath, tagDTOList, 1, TimeUnit.DAYS);
-		return ResultUtils.success(tagDTOList);
+	public ResponseEntity<byte[]> listTagByTree() {
+		TagTreeSnapshot snapshot = tagTreeManager.getSnapshot();
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.cacheControl(CacheControl.noCache())
+				.eTag(snapshot.getETag())
+				.body(snapshot.getResponseBody());
+	}
+	
+	/**
+	 * 标签联想（按名称前缀匹配，按使用次数排序，只查询内存索引）
+	 *
+	 * @param keyword 输入的关键词，为空时返回最常用的标签
+	 * @param size    返回数量
+	 * @return {@link BaseResponse}<{@link List}<{@link TagSuggestVO}>>
+	 */
+	@GetMapping("/suggest")
+	public BaseResponse<List<TagSuggestVO>> suggestTag(String keyword, Integer size) {
+		int suggestSize = size == null ? TagSuggestManager.DEFAULT_SIZE : size;
+		ThrowUtils.throwIf(suggestSize <= 0 || suggestSize > TagSuggestManager.MAX_SIZE, ErrorCode.PARAMS_ERROR);
+		ThrowUtils.throwIf(keyword != null && keyword.length() > 20, ErrorCode.PARAMS_ERROR, "关键词过长");
+		return ResultUtils.success(tagSuggestManager.suggest(keyword, suggestSize));
 	}
-}
+}
\ No newline at end of file
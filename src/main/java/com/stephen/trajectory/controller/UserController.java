@@ -257,7 +257,7 @@ public class UserController {
 		long current = userQueryRequest.getCurrent();
 		long size = userQueryRequest.getPageSize();
 		// todo 在此处将实体类和 DTO 进行转换
-		Page<User> userPage = userService.page(new Page<>(current, size),
+		Page<User> userPage = userService.page(new Page<>(current, size, userQueryRequest.isSearchCount()),
 				userService.getQueryWrapper(userQueryRequest));
 		return ResultUtils.success(userPage);
 	}
@@ -277,7 +277,7 @@ public class UserController {
 		long size = userQueryRequest.getPageSize();
 		// 限制爬虫
 		ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-		Page<User> userPage = userService.page(new Page<>(current, size),
+		Page<User> userPage = userService.page(new Page<>(current, size, userQueryRequest.isSearchCount()),
 				userService.getQueryWrapper(userQueryRequest));
 		return ResultUtils.success(userService.getUserVOPage(userPage, request));
 	}
@@ -64,6 +64,11 @@ public class PostEsDTO implements Serializable {
 	 */
 	private Integer favourNum;
 	
+	/**
+	 * 评论数
+	 */
+	private Integer commentNum;
+	
 	/**
 	 * 创建用户 id
 	 */
@@ -0,0 +1,85 @@
+package com.stephen.trajectory.job.cycle;
+
+import cn.hutool.core.collection.CollUtil;
+import com.stephen.trajectory.config.redisson.condition.RedissonCondition;
+import com.stephen.trajectory.manager.cache.EntityCacheManager;
+import com.stephen.trajectory.manager.cache.PostListCacheManager;
+import com.stephen.trajectory.manager.counter.HotPostManager;
+import com.stephen.trajectory.manager.redis.RedisLockManager;
+import com.stephen.trajectory.service.PostCounterShardService;
+import com.stephen.trajectory.utils.redisson.lock.function.SuccessFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * 合并热点帖子的分片计数到帖子表
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RedissonCondition.class)
+public class CompactPostCounterShard {
+	
+	/**
+	 * 合并任务锁，集群中同一时间只有一个节点合并
+	 */
+	private static final String COMPACT_LOCK_KEY = "COUNTER:COMPACT";
+	
+	/**
+	 * 每次最多合并的帖子数量
+	 */
+	private static final int COMPACT_BATCH_SIZE = 500;
+	
+	@Resource
+	private PostCounterShardService postCounterShardService;
+	
+	@Resource
+	private RedisLockManager redisLockManager;
+	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	@Resource
+	private PostListCacheManager postListCacheManager;
+	
+	@Resource
+	private HotPostManager hotPostManager;
+	
+	/**
+	 * 按配置的间隔执行，默认每 5 秒一次
+	 */
+	@Scheduled(fixedDelayString = "${counter.compactInterval:5000}")
+	public void run() {
+		// 未开启分片计数时不会产生分片，无需加锁和查询
+		if (!hotPostManager.isShardingActive()) {
+			return;
+		}
+		// 获取不到锁说明其他节点正在合并，直接跳过
+		redisLockManager.executeLock(COMPACT_LOCK_KEY, (SuccessFunction) () -> {
+			List<Long> postIdList = postCounterShardService.listShardedPostIds(COMPACT_BATCH_SIZE);
+			if (CollUtil.isEmpty(postIdList)) {
+				return;
+			}
+			int compacted = 0;
+			for (Long postId : postIdList) {
+				try {
+					postCounterShardService.compact(postId);
+					entityCacheManager.evict(EntityCacheManager.POST_REGION, postId);
+					compacted++;
+				} catch (Exception e) {
+					log.error("CompactPostCounterShard failed, postId: {}, retry next time", postId, e);
+				}
+			}
+			if (compacted > 0) {
+				postListCacheManager.evictDeferred();
+			}
+			log.info("CompactPostCounterShard end, post {}", compacted);
+		});
+	}
+}
@@ -0,0 +1,90 @@
+package com.stephen.trajectory.job.cycle;
+
+import com.stephen.trajectory.config.redisson.condition.RedissonCondition;
+import com.stephen.trajectory.manager.cache.EntityCacheManager;
+import com.stephen.trajectory.manager.cache.PostListCacheManager;
+import com.stephen.trajectory.manager.counter.PostCounterManager;
+import com.stephen.trajectory.manager.counter.model.CounterBatch;
+import com.stephen.trajectory.manager.counter.model.CounterType;
+import com.stephen.trajectory.manager.redis.RedisLockManager;
+import com.stephen.trajectory.service.PostFavourService;
+import com.stephen.trajectory.service.PostThumbService;
+import com.stephen.trajectory.utils.redisson.lock.function.SuccessFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.function.Consumer;
+
+/**
+ * 批量回写帖子点赞、收藏到数据库
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RedissonCondition.class)
+public class FlushPostCounterToDb {
+	
+	/**
+	 * 回写任务锁，集群中同一时间只有一个节点回写
+	 */
+	private static final String FLUSH_LOCK_KEY = "COUNTER:FLUSH";
+	
+	@Resource
+	private PostCounterManager postCounterManager;
+	
+	@Resource
+	private PostThumbService postThumbService;
+	
+	@Resource
+	private PostFavourService postFavourService;
+	
+	@Resource
+	private RedisLockManager redisLockManager;
+	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	@Resource
+	private PostListCacheManager postListCacheManager;
+	
+	/**
+	 * 按配置的间隔执行，默认每秒一次
+	 */
+	@Scheduled(fixedDelayString = "${counter.flushInterval:1000}")
+	public void run() {
+		// 获取不到锁说明其他节点正在回写，直接跳过
+		redisLockManager.executeLock(FLUSH_LOCK_KEY, (SuccessFunction) () -> {
+			flush(CounterType.THUMB, postThumbService::flushCounterBatch);
+			flush(CounterType.FAVOUR, postFavourService::flushCounterBatch);
+		});
+	}
+	
+	/**
+	 * 回写一个批次，失败时保留批次在下次重试
+	 *
+	 * @param type   计数类型
+	 * @param writer 批次写入数据库
+	 */
+	private void flush(CounterType type, Consumer<CounterBatch> writer) {
+		try {
+			CounterBatch counterBatch = postCounterManager.snapshot(type);
+			if (!counterBatch.isEmpty()) {
+				writer.accept(counterBatch);
+			}
+			postCounterManager.ack(type);
+			if (counterBatch.getDeltaMap().isEmpty()) {
+				return;
+			}
+			// 计数已变化，删除帖子实体缓存，合并后再失效帖子列表缓存
+			counterBatch.getDeltaMap().keySet().forEach(postId -> entityCacheManager.evict(EntityCacheManager.POST_REGION, postId));
+			postListCacheManager.evictDeferred();
+			log.info("FlushPostCounterToDb {} end, post {}", type.name(), counterBatch.getDeltaMap().size());
+		} catch (Exception e) {
+			log.error("FlushPostCounterToDb {} failed, retry next time", type.name(), e);
+		}
+	}
+}
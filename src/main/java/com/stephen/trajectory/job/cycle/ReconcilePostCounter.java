@@ -0,0 +1,179 @@
+package com.stephen.trajectory.job.cycle;
+
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.stephen.trajectory.config.counter.properties.CounterProperties;
+import com.stephen.trajectory.config.redisson.condition.RedissonCondition;
+import com.stephen.trajectory.manager.cache.PostListCacheManager;
+import com.stephen.trajectory.manager.redis.RedisLockManager;
+import com.stephen.trajectory.mapper.PostMapper;
+import com.stephen.trajectory.model.dto.post.PostEngagementCountDTO;
+import com.stephen.trajectory.model.entity.Post;
+import com.stephen.trajectory.service.PostService;
+import com.stephen.trajectory.utils.redisson.KeyPrefixConstants;
+import com.stephen.trajectory.utils.redisson.lock.function.SuccessFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 增量对账帖子点赞、收藏数
+ * <p>
+ * 按 id 顺序分批扫描帖子，用分组查询统计实际的点赞、收藏记录数，发现偏差后锁定帖子重新计算并批量修复。
+ * 扫描进度保存在 Redis 中，每次执行只扫描有限批次并在批次之间停顿，扫描到末尾后从头开始下一轮。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RedissonCondition.class)
+public class ReconcilePostCounter {
+	
+	/**
+	 * 对账任务锁，集群中同一时间只有一个节点对账
+	 */
+	private static final String RECONCILE_LOCK_KEY = "COUNTER:RECONCILE";
+	
+	/**
+	 * 对账进度（已扫描到的最大帖子 id）
+	 */
+	private static final String CHECKPOINT_KEY = KeyPrefixConstants.COUNTER_PREFIX + "RECONCILE:CHECKPOINT";
+	
+	@Resource
+	private PostMapper postMapper;
+	
+	@Resource
+	private PostService postService;
+	
+	@Resource
+	private CounterProperties counterProperties;
+	
+	@Resource
+	private RedissonClient redissonClient;
+	
+	@Resource
+	private RedisLockManager redisLockManager;
+	
+	@Resource
+	private PostListCacheManager postListCacheManager;
+	
+	private final LongAdder scannedCount = new LongAdder();
+	
+	private final LongAdder driftedCount = new LongAdder();
+	
+	private final LongAdder repairedCount = new LongAdder();
+	
+	private final LongAdder thumbDrift = new LongAdder();
+	
+	private final LongAdder favourDrift = new LongAdder();
+	
+	private final LongAdder passCount = new LongAdder();
+	
+	/**
+	 * 按配置的间隔执行，默认每分钟一次
+	 */
+	@Scheduled(fixedDelayString = "${counter.reconcileInterval:60000}")
+	public void run() {
+		// 获取不到锁说明其他节点正在对账，直接跳过
+		redisLockManager.executeLock(RECONCILE_LOCK_KEY, (SuccessFunction) () -> {
+			RBucket<String> checkpoint = redissonClient.getBucket(CHECKPOINT_KEY, StringCodec.INSTANCE);
+			String checkpointValue = checkpoint.get();
+			long lastId = StringUtils.isNumeric(checkpointValue) ? Long.parseLong(checkpointValue) : 0L;
+			int repaired = 0;
+			for (int batch = 0; batch < counterProperties.getReconcileMaxBatches(); batch++) {
+				QueryWrapper<Post> queryWrapper = new QueryWrapper<>();
+				queryWrapper.select("id", "thumbNum", "favourNum");
+				queryWrapper.gt("id", lastId);
+				queryWrapper.orderByAsc("id");
+				queryWrapper.last("limit " + counterProperties.getReconcileBatchSize());
+				List<Post> postList = postMapper.selectList(queryWrapper);
+				if (CollUtil.isEmpty(postList)) {
+					// 一轮扫描结束，从头开始下一轮
+					passCount.increment();
+					lastId = 0L;
+					log.info("ReconcilePostCounter pass end, metrics {}", getReconcileMetrics());
+					break;
+				}
+				repaired += reconcile(postList);
+				lastId = postList.get(postList.size() - 1).getId();
+				if (!pause()) {
+					break;
+				}
+			}
+			// 保存扫描进度，下次从断点继续
+			checkpoint.set(String.valueOf(lastId));
+			if (repaired > 0) {
+				postListCacheManager.evictDeferred();
+			}
+			log.info("ReconcilePostCounter end, checkpoint {}, repaired {}", lastId, repaired);
+		});
+	}
+	
+	/**
+	 * 对账一批帖子，只有存在偏差的帖子才会加锁修复
+	 *
+	 * @param postList 帖子列表
+	 * @return 修复的帖子数量
+	 */
+	private int reconcile(List<Post> postList) {
+		scannedCount.add(postList.size());
+		Map<Long, PostEngagementCountDTO> driftMap = postService.getCountDriftMap(postList);
+		if (driftMap.isEmpty()) {
+			return 0;
+		}
+		driftedCount.add(driftMap.size());
+		// 筛选时未加锁，偏差可能来自进行中的点赞、收藏，加锁后重新计算
+		Map<Long, PostEngagementCountDTO> repairedMap = postService.repairCountDrift(driftMap.keySet());
+		repairedMap.values().forEach(drift -> {
+			repairedCount.increment();
+			thumbDrift.add(Math.abs(drift.getThumbNum()));
+			favourDrift.add(Math.abs(drift.getFavourNum()));
+			log.warn("帖子计数存在偏差，已修复, postId: {}, thumbDrift: {}, favourDrift: {}",
+					drift.getPostId(), drift.getThumbNum(), drift.getFavourNum());
+		});
+		return repairedMap.size();
+	}
+	
+	/**
+	 * 批次之间停顿，限制对账对数据库的压力
+	 *
+	 * @return 是否继续执行
+	 */
+	private boolean pause() {
+		try {
+			Thread.sleep(counterProperties.getReconcilePause());
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
+	/**
+	 * 获取对账统计
+	 *
+	 * @return 统计项 => 累计值
+	 */
+	public Map<String, Long> getReconcileMetrics() {
+		Map<String, Long> metrics = new LinkedHashMap<>();
+		metrics.put("passes", passCount.sum());
+		metrics.put("scanned", scannedCount.sum());
+		metrics.put("drifted", driftedCount.sum());
+		metrics.put("repaired", repairedCount.sum());
+		metrics.put("thumbDrift", thumbDrift.sum());
+		metrics.put("favourDrift", favourDrift.sum());
+		return metrics;
+	}
+}
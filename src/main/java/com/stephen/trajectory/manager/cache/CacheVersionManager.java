@@ -0,0 +1,193 @@
+package com.stephen.trajectory.manager.cache;
+
+import cn.hutool.core.collection.ListUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stephen.trajectory.config.redisson.condition.RedissonCondition;
+import com.stephen.trajectory.utils.caffeine.LocalCacheUtils;
+import com.stephen.trajectory.utils.redisson.KeyPrefixConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存版本号管理器
+ * <p>
+ * 每个缓存区域（region）在 Redis 中维护一个递增的版本号，缓存键中携带版本号，
+ * 数据变更时递增版本号即可让该区域下的所有旧缓存失效；
+ * 版本变更通过 Redis 发布订阅广播到所有节点，各节点据此清理本地 Caffeine 缓存。
+ * 区域可以按实体细分（如每个帖子一个区域），本地版本号长时间未读取时淘汰，下次读取时从 Redis 重新获取。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RedissonCondition.class)
+public class CacheVersionManager {
+	
+	/**
+	 * 版本变更广播 Topic
+	 */
+	private static final String VERSION_TOPIC = KeyPrefixConstants.CACHE_TOPIC_PREFIX + "VERSION";
+	
+	/**
+	 * 广播消息中区域与版本号的分隔符
+	 */
+	private static final String MESSAGE_SEPARATOR = "@";
+	
+	/**
+	 * 本地版本号未被读取后的保留时间，单位：分钟
+	 */
+	private static final long LOCAL_VERSION_EXPIRED = 10L;
+	
+	/**
+	 * 本地最多保留的区域版本号数量
+	 */
+	private static final long LOCAL_VERSION_MAX_SIZE = 100_000L;
+	
+	/**
+	 * 定时校准时每次批量读取的区域数量
+	 */
+	private static final int SYNC_BATCH_SIZE = 500;
+	
+	@Resource
+	private RedissonClient redissonClient;
+	
+	/**
+	 * 本节点已知的各区域版本号
+	 */
+	private final Cache<String, AtomicLong> localVersionCache = Caffeine.newBuilder()
+			.expireAfterAccess(LOCAL_VERSION_EXPIRED, TimeUnit.MINUTES)
+			.maximumSize(LOCAL_VERSION_MAX_SIZE)
+			.build();
+	
+	private RTopic versionTopic;
+	
+	/**
+	 * 订阅版本变更广播
+	 */
+	@PostConstruct
+	public void init() {
+		versionTopic = redissonClient.getTopic(VERSION_TOPIC, StringCodec.INSTANCE);
+		versionTopic.addListener(String.class, (channel, message) -> {
+			String region = StringUtils.substringBeforeLast(message, MESSAGE_SEPARATOR);
+			String version = StringUtils.substringAfterLast(message, MESSAGE_SEPARATOR);
+			if (StringUtils.isAnyBlank(region, version)) {
+				log.warn("无效的缓存版本广播消息: {}", message);
+				return;
+			}
+			applyVersion(region, Long.parseLong(version));
+		});
+	}
+	
+	/**
+	 * 获取缓存区域当前版本号（优先读取本地版本号）
+	 *
+	 * @param region 缓存区域
+	 * @return 当前版本号
+	 */
+	public long getVersion(String region) {
+		AtomicLong localVersion = localVersionCache.getIfPresent(region);
+		if (localVersion != null) {
+			return localVersion.get();
+		}
+		long remoteVersion = redissonClient.getAtomicLong(versionKey(region)).get();
+		return applyVersion(region, remoteVersion);
+	}
+	
+	/**
+	 * 递增缓存区域版本号，使该区域下的所有缓存失效，并广播到其他节点
+	 *
+	 * @param region 缓存区域
+	 * @return 新版本号
+	 */
+	public long bumpVersion(String region) {
+		long newVersion = redissonClient.getAtomicLong(versionKey(region)).incrementAndGet();
+		applyVersion(region, newVersion);
+		try {
+			versionTopic.publish(region + MESSAGE_SEPARATOR + newVersion);
+		} catch (Exception e) {
+			// 广播失败时其他节点会在下一次定时校准中追上版本号
+			log.error("缓存版本广播失败, region: {}, version: {}", region, newVersion, e);
+		}
+		return newVersion;
+	}
+	
+	/**
+	 * 定时与 Redis 校准本地版本号，避免广播消息丢失导致本地缓存长期不失效；
+	 * 按批次一次读取多个区域的版本号，校准不刷新本地版本号的访问时间
+	 */
+	@Scheduled(fixedRate = 10 * 1000)
+	public void syncVersions() {
+		Map<String, AtomicLong> localVersionMap = localVersionCache.asMap();
+		List<String> regionList = new ArrayList<>(localVersionMap.keySet());
+		for (List<String> batchRegionList : ListUtil.partition(regionList, SYNC_BATCH_SIZE)) {
+			try {
+				Map<String, String> remoteVersionMap = redissonClient.getBuckets(StringCodec.INSTANCE)
+						.get(batchRegionList.stream().map(this::versionKey).toArray(String[]::new));
+				batchRegionList.forEach(region -> {
+					String remoteVersion = remoteVersionMap.get(versionKey(region));
+					AtomicLong localVersion = localVersionMap.get(region);
+					if (remoteVersion != null && localVersion != null) {
+						advanceVersion(region, localVersion, Long.parseLong(remoteVersion));
+					}
+				});
+			} catch (Exception e) {
+				log.warn("缓存版本校准失败, regions: {}", batchRegionList.size(), e);
+			}
+		}
+	}
+	
+	/**
+	 * 应用新的版本号，版本号前进时清理本地缓存中该区域的旧数据
+	 *
+	 * @param region  缓存区域
+	 * @param version 版本号
+	 * @return 应用后的本地版本号
+	 */
+	private long applyVersion(String region, long version) {
+		AtomicLong localVersion = localVersionCache.get(region, key -> new AtomicLong(version));
+		return advanceVersion(region, localVersion, version);
+	}
+	
+	/**
+	 * 推进本地版本号，版本号前进时清理本地缓存中该区域的旧数据
+	 *
+	 * @param region       缓存区域
+	 * @param localVersion 本地版本号
+	 * @param version      版本号
+	 * @return 推进后的本地版本号
+	 */
+	private long advanceVersion(String region, AtomicLong localVersion, long version) {
+		long oldVersion = localVersion.getAndAccumulate(version, Math::max);
+		if (oldVersion < version) {
+			LocalCacheUtils.deleteByPrefix(region + ":");
+			log.debug("缓存区域版本变更, region: {}, version: {} -> {}", region, oldVersion, version);
+		}
+		return localVersion.get();
+	}
+	
+	/**
+	 * 构建版本号在 Redis 中的键
+	 *
+	 * @param region 缓存区域
+	 * @return Redis 键
+	 */
+	private String versionKey(String region) {
+		return KeyPrefixConstants.CACHE_VERSION_PREFIX + region;
+	}
+}
@@ -0,0 +1,382 @@
+package com.stephen.trajectory.manager.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.json.JSONUtil;
+import com.stephen.trajectory.config.redisson.condition.RedissonCondition;
+import com.stephen.trajectory.utils.caffeine.LocalCacheUtils;
+import com.stephen.trajectory.utils.redisson.KeyPrefixConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RBatch;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 实体读穿缓存管理器（Caffeine + Redis）
+ * <p>
+ * 按 id 查询实体时依次查询本地缓存、Redis、数据库，并逐级回填；批量查询只对未命中的 id 回源一次。
+ * 实体更新、删除时删除本节点和 Redis 中的缓存，事务提交后再删除一次，
+ * 并通过 Redis 发布订阅通知其他节点删除本地缓存。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RedissonCondition.class)
+public class EntityCacheManager {
+	
+	/**
+	 * 帖子缓存区域
+	 */
+	public static final String POST_REGION = "post";
+	
+	/**
+	 * 用户缓存区域
+	 */
+	public static final String USER_REGION = "user";
+	
+	/**
+	 * 用户视图缓存区域
+	 */
+	public static final String USER_VO_REGION = "userVO";
+	
+	/**
+	 * 图表缓存区域
+	 */
+	public static final String CHART_REGION = "chart";
+	
+	/**
+	 * 帖子评论缓存区域
+	 */
+	public static final String POST_COMMENT_REGION = "postComment";
+	
+	/**
+	 * 实体删除广播 Topic
+	 */
+	private static final String EVICT_TOPIC = KeyPrefixConstants.CACHE_TOPIC_PREFIX + "ENTITY";
+	
+	/**
+	 * 实体不存在时缓存的空值，防止缓存穿透（只缓存在 Redis 中）
+	 */
+	private static final String NULL_VALUE = "";
+	
+	/**
+	 * 空值缓存过期时间，单位：秒
+	 */
+	private static final long NULL_EXPIRED = 60L;
+	
+	/**
+	 * Redis 缓存最短过期时间，单位：秒
+	 */
+	private static final long REDIS_MIN_EXPIRED = 30 * 60L;
+	
+	/**
+	 * Redis 缓存最长过期时间，单位：秒
+	 */
+	private static final long REDIS_MAX_EXPIRED = 60 * 60L;
+	
+	@Resource
+	private RedissonClient redissonClient;
+	
+	private RTopic evictTopic;
+	
+	/**
+	 * 订阅实体删除广播，删除本节点的本地缓存
+	 */
+	@PostConstruct
+	public void init() {
+		evictTopic = redissonClient.getTopic(EVICT_TOPIC, StringCodec.INSTANCE);
+		evictTopic.addListener(String.class, (channel, cacheKey) -> LocalCacheUtils.delete(cacheKey));
+	}
+	
+	/**
+	 * 按 id 读取实体
+	 *
+	 * @param region 缓存区域
+	 * @param id     实体 id
+	 * @param clazz  实体类型
+	 * @param loader 回源查询单个实体
+	 * @return 实体，不存在时返回 null
+	 */
+	public <T> T getById(String region, Serializable id, Class<T> clazz, Function<Long, T> loader) {
+		if (id == null) {
+			return null;
+		}
+		Long entityId = Long.valueOf(id.toString());
+		String cacheKey = buildCacheKey(region, entityId);
+		// 1. 尝试从本地缓存中获取数据
+		String cachedValue = (String) LocalCacheUtils.get(cacheKey);
+		if (cachedValue == null) {
+			// 2. 如果本地缓存未命中，尝试从 Redis 缓存中获取数据
+			cachedValue = getRemote(cacheKey);
+			if (cachedValue != null) {
+				putLocal(cacheKey, cachedValue);
+			}
+		}
+		if (cachedValue != null) {
+			return NULL_VALUE.equals(cachedValue) ? null : JSONUtil.toBean(cachedValue, clazz);
+		}
+		// 3. 如果缓存都未命中，查询数据库并回填缓存
+		T entity = loader.apply(entityId);
+		putAll(Collections.singletonMap(cacheKey, entity == null ? NULL_VALUE : JSONUtil.toJsonStr(entity)));
+		return entity;
+	}
+	
+	/**
+	 * 按 id 批量读取实体，未命中的 id 一次性回源查询
+	 *
+	 * @param region   缓存区域
+	 * @param idList   实体 id 列表
+	 * @param clazz    实体类型
+	 * @param loader   回源批量查询实体
+	 * @param idGetter 获取实体 id
+	 * @return 实体列表（不包含不存在的实体）
+	 */
+	public <T> List<T> listByIds(String region, Collection<? extends Serializable> idList, Class<T> clazz,
+	                             Function<Collection<Long>, List<T>> loader, Function<T, Long> idGetter) {
+		if (CollUtil.isEmpty(idList)) {
+			return new ArrayList<>();
+		}
+		Map<Long, String> idKeyMap = idList.stream()
+				.filter(Objects::nonNull)
+				.map(id -> Long.valueOf(id.toString()))
+				.distinct()
+				.collect(Collectors.toMap(id -> id, id -> buildCacheKey(region, id), (a, b) -> a, LinkedHashMap::new));
+		List<T> entityList = new ArrayList<>();
+		// 1. 批量查询本地缓存
+		Map<String, Object> localValueMap = LocalCacheUtils.getAll(idKeyMap.values());
+		List<String> remoteKeyList = idKeyMap.values().stream()
+				.filter(cacheKey -> !localValueMap.containsKey(cacheKey))
+				.collect(Collectors.toList());
+		localValueMap.values().forEach(value -> addIfPresent(entityList, (String) value, clazz));
+		// 2. 批量查询 Redis 并回填本地缓存
+		Map<String, String> remoteValueMap = getRemoteAll(remoteKeyList);
+		remoteValueMap.forEach((cacheKey, value) -> {
+			putLocal(cacheKey, value);
+			addIfPresent(entityList, value, clazz);
+		});
+		// 3. 剩余未命中的 id 一次性查询数据库并回填缓存
+		List<Long> missIdList = idKeyMap.entrySet().stream()
+				.filter(entry -> !localValueMap.containsKey(entry.getValue()) && !remoteValueMap.containsKey(entry.getValue()))
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList());
+		if (CollUtil.isNotEmpty(missIdList)) {
+			Map<String, String> loadedValueMap = new HashMap<>();
+			missIdList.forEach(id -> loadedValueMap.put(idKeyMap.get(id), NULL_VALUE));
+			loader.apply(missIdList).forEach(entity -> {
+				loadedValueMap.put(idKeyMap.get(idGetter.apply(entity)), JSONUtil.toJsonStr(entity));
+				entityList.add(entity);
+			});
+			putAll(loadedValueMap);
+		}
+		return entityList;
+	}
+	
+	/**
+	 * 预读多个缓存区域的实体缓存到本地缓存：本地缓存未命中的 key 合并为一次 Redis 批量读取，
+	 * 之后按区域调用 getById / listByIds 时直接命中本地缓存，只有 Redis 中也不存在的实体才回源数据库
+	 *
+	 * @param regionIdMap 缓存区域 => 实体 id 列表
+	 */
+	public void prefetch(Map<String, ? extends Collection<? extends Serializable>> regionIdMap) {
+		List<String> cacheKeyList = new ArrayList<>();
+		regionIdMap.forEach((region, idList) -> idList.stream()
+				.filter(Objects::nonNull)
+				.map(id -> buildCacheKey(region, Long.valueOf(id.toString())))
+				.forEach(cacheKeyList::add));
+		if (cacheKeyList.isEmpty()) {
+			return;
+		}
+		Map<String, Object> localValueMap = LocalCacheUtils.getAll(cacheKeyList);
+		List<String> remoteKeyList = cacheKeyList.stream()
+				.filter(cacheKey -> !localValueMap.containsKey(cacheKey))
+				.distinct()
+				.collect(Collectors.toList());
+		getRemoteAll(remoteKeyList).forEach(this::putLocal);
+	}
+	
+	/**
+	 * 删除实体缓存，处于事务中时在事务提交后再删除一次，避免并发读回填旧数据
+	 *
+	 * @param region 缓存区域
+	 * @param id     实体 id
+	 */
+	public void evict(String region, Serializable id) {
+		if (id == null) {
+			return;
+		}
+		String cacheKey = buildCacheKey(region, Long.valueOf(id.toString()));
+		doEvict(cacheKey);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					doEvict(cacheKey);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * 批量删除实体缓存（一次网络往返），处于事务中时在事务提交后再删除一次
+	 *
+	 * @param region 缓存区域
+	 * @param idList 实体 id 列表
+	 */
+	public void evictAll(String region, Collection<? extends Serializable> idList) {
+		if (CollUtil.isEmpty(idList)) {
+			return;
+		}
+		List<String> cacheKeyList = idList.stream()
+				.filter(Objects::nonNull)
+				.map(id -> buildCacheKey(region, Long.valueOf(id.toString())))
+				.collect(Collectors.toList());
+		doEvictAll(cacheKeyList);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					doEvictAll(cacheKeyList);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * 删除本地缓存和 Redis 缓存，并通知其他节点
+	 *
+	 * @param cacheKey 缓存 key
+	 */
+	private void doEvict(String cacheKey) {
+		LocalCacheUtils.delete(cacheKey);
+		try {
+			redissonClient.getBucket(cacheKey, StringCodec.INSTANCE).delete();
+			evictTopic.publish(cacheKey);
+		} catch (Exception e) {
+			log.error("删除实体缓存失败, cacheKey: {}", cacheKey, e);
+		}
+	}
+	
+	/**
+	 * 批量删除本地缓存和 Redis 缓存，并通知其他节点
+	 *
+	 * @param cacheKeyList 缓存 key 列表
+	 */
+	private void doEvictAll(List<String> cacheKeyList) {
+		LocalCacheUtils.delete(cacheKeyList);
+		try {
+			RBatch batch = redissonClient.createBatch();
+			cacheKeyList.forEach(cacheKey -> {
+				batch.getBucket(cacheKey, StringCodec.INSTANCE).deleteAsync();
+				batch.getTopic(EVICT_TOPIC, StringCodec.INSTANCE).publishAsync(cacheKey);
+			});
+			batch.execute();
+		} catch (Exception e) {
+			log.error("批量删除实体缓存失败, size: {}", cacheKeyList.size(), e);
+		}
+	}
+	
+	/**
+	 * 读取 Redis 缓存，Redis 异常时按未命中处理
+	 *
+	 * @param cacheKey 缓存 key
+	 * @return 缓存值
+	 */
+	private String getRemote(String cacheKey) {
+		try {
+			return (String) redissonClient.getBucket(cacheKey, StringCodec.INSTANCE).get();
+		} catch (Exception e) {
+			log.error("读取实体缓存失败, cacheKey: {}", cacheKey, e);
+			return null;
+		}
+	}
+	
+	/**
+	 * 批量读取 Redis 缓存，Redis 异常时按未命中处理
+	 *
+	 * @param cacheKeyList 缓存 key 列表
+	 * @return 命中的缓存
+	 */
+	private Map<String, String> getRemoteAll(List<String> cacheKeyList) {
+		if (CollUtil.isEmpty(cacheKeyList)) {
+			return new HashMap<>();
+		}
+		try {
+			return redissonClient.getBuckets(StringCodec.INSTANCE).get(cacheKeyList.toArray(new String[0]));
+		} catch (Exception e) {
+			log.error("批量读取实体缓存失败, size: {}", cacheKeyList.size(), e);
+			return new HashMap<>();
+		}
+	}
+	
+	/**
+	 * 批量写入本地缓存和 Redis 缓存（一次网络往返）
+	 *
+	 * @param valueMap 缓存 key => 缓存值
+	 */
+	private void putAll(Map<String, String> valueMap) {
+		try {
+			RBatch batch = redissonClient.createBatch();
+			valueMap.forEach((cacheKey, value) -> {
+				putLocal(cacheKey, value);
+				long expired = NULL_VALUE.equals(value) ? NULL_EXPIRED : RandomUtil.randomLong(REDIS_MIN_EXPIRED, REDIS_MAX_EXPIRED);
+				batch.getBucket(cacheKey, StringCodec.INSTANCE).setAsync(value, expired, TimeUnit.SECONDS);
+			});
+			batch.execute();
+		} catch (Exception e) {
+			log.error("更新实体缓存失败, size: {}", valueMap.size(), e);
+		}
+	}
+	
+	/**
+	 * 写入本地缓存，空值只缓存在 Redis 中（NULL_EXPIRED），避免本地缓存按自身较长的过期时间保留空值，
+	 * 导致实体写入后本节点仍长时间认为其不存在
+	 *
+	 * @param cacheKey 缓存 key
+	 * @param value    缓存值
+	 */
+	private void putLocal(String cacheKey, String value) {
+		if (!NULL_VALUE.equals(value)) {
+			LocalCacheUtils.put(cacheKey, value);
+		}
+	}
+	
+	/**
+	 * 反序列化非空缓存值并加入结果列表
+	 *
+	 * @param entityList 结果列表
+	 * @param value      缓存值
+	 * @param clazz      实体类型
+	 */
+	private <T> void addIfPresent(List<T> entityList, String value, Class<T> clazz) {
+		if (StringUtils.isNotEmpty(value)) {
+			entityList.add(JSONUtil.toBean(value, clazz));
+		}
+	}
+	
+	/**
+	 * 构建实体缓存 key
+	 *
+	 * @param region 缓存区域
+	 * @param id     实体 id
+	 * @return 缓存 key
+	 */
+	private String buildCacheKey(String region, Long id) {
+		return KeyPrefixConstants.CACHE_ENTITY_PREFIX + region + ":" + id;
+	}
+}
@@ -0,0 +1,149 @@
+package com.stephen.trajectory.manager.cache;
+
+import cn.hutool.core.lang.TypeReference;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.stephen.trajectory.config.redisson.condition.RedissonCondition;
+import com.stephen.trajectory.model.dto.postComment.PostCommentThreadQueryRequest;
+import com.stephen.trajectory.model.vo.PostCommentThreadVO;
+import com.stephen.trajectory.utils.redisson.KeyPrefixConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 帖子评论楼层缓存管理器
+ * <p>
+ * 每个帖子的评论楼层分页缓存在同一个 Redis Hash 中，字段为分页参数，缓存键中携带该帖子的缓存版本号；
+ * 帖子下的评论新增、编辑、删除提交后递增版本号，一次失效该帖子的所有楼层分页，
+ * 并发读取在版本递增前加载的旧数据只会写入旧版本的缓存键，不会被后续读取命中。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RedissonCondition.class)
+public class PostCommentThreadCacheManager {
+	
+	/**
+	 * Redis 缓存最短过期时间，单位：秒
+	 */
+	private static final long REDIS_MIN_EXPIRED = 10 * 60L;
+	
+	/**
+	 * Redis 缓存最长过期时间，单位：秒
+	 */
+	private static final long REDIS_MAX_EXPIRED = 20 * 60L;
+	
+	/**
+	 * 缓存版本区域前缀，每个帖子一个区域
+	 */
+	public static final String REGION_PREFIX = "postCommentThread:";
+	
+	private static final TypeReference<Page<PostCommentThreadVO>> PAGE_TYPE = new TypeReference<Page<PostCommentThreadVO>>() {
+	};
+	
+	@Resource
+	private RedissonClient redissonClient;
+	
+	@Resource
+	private CacheVersionManager cacheVersionManager;
+	
+	/**
+	 * 读取帖子评论楼层分页缓存，未命中时回源加载并写入缓存
+	 *
+	 * @param request 查询条件
+	 * @param loader  回源加载评论楼层分页
+	 * @return {@link Page<PostCommentThreadVO>}
+	 */
+	public Page<PostCommentThreadVO> getOrLoad(PostCommentThreadQueryRequest request, Supplier<Page<PostCommentThreadVO>> loader) {
+		String field = request.getCurrent() + ":" + request.getPageSize() + ":" + request.getReplySize() + ":" + request.isSearchCount();
+		long version;
+		try {
+			version = cacheVersionManager.getVersion(REGION_PREFIX + request.getPostId());
+		} catch (Exception e) {
+			log.error("读取评论楼层缓存版本失败, postId: {}", request.getPostId(), e);
+			return loader.get();
+		}
+		RMap<String, String> threadMap = redissonClient.getMap(buildCacheKey(request.getPostId(), version), StringCodec.INSTANCE);
+		try {
+			String cachedValue = threadMap.get(field);
+			if (cachedValue != null) {
+				return JSONUtil.toBean(cachedValue, PAGE_TYPE, true);
+			}
+		} catch (Exception e) {
+			log.error("读取评论楼层缓存失败, postId: {}", request.getPostId(), e);
+		}
+		Page<PostCommentThreadVO> threadPage = loader.get();
+		try {
+			threadMap.fastPut(field, JSONUtil.toJsonStr(threadPage));
+			threadMap.expire(RandomUtil.randomLong(REDIS_MIN_EXPIRED, REDIS_MAX_EXPIRED), TimeUnit.SECONDS);
+		} catch (Exception e) {
+			log.error("更新评论楼层缓存失败, postId: {}", request.getPostId(), e);
+		}
+		return threadPage;
+	}
+	
+	/**
+	 * 失效帖子的评论楼层缓存，处于事务中时在事务提交后递增版本号，避免并发读回填旧数据
+	 *
+	 * @param postId 帖子 id
+	 */
+	public void evict(Long postId) {
+		if (postId == null) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					doEvict(postId);
+				}
+			});
+			return;
+		}
+		doEvict(postId);
+	}
+	
+	/**
+	 * 递增帖子的缓存版本号，并删除上一版本的 Redis 缓存；版本号递增失败时删除当前版本的缓存
+	 *
+	 * @param postId 帖子 id
+	 */
+	private void doEvict(Long postId) {
+		String region = REGION_PREFIX + postId;
+		try {
+			long version = cacheVersionManager.bumpVersion(region);
+			redissonClient.getMap(buildCacheKey(postId, version - 1), StringCodec.INSTANCE).delete();
+		} catch (Exception e) {
+			log.error("评论楼层缓存失效失败, postId: {}", postId, e);
+			try {
+				redissonClient.getMap(buildCacheKey(postId, cacheVersionManager.getVersion(region)), StringCodec.INSTANCE).delete();
+			} catch (Exception ex) {
+				log.error("删除评论楼层缓存失败, postId: {}", postId, ex);
+			}
+		}
+	}
+	
+	/**
+	 * 构建评论楼层缓存 key
+	 *
+	 * @param postId  帖子 id
+	 * @param version 缓存版本号
+	 * @return 缓存 key
+	 */
+	private String buildCacheKey(Long postId, long version) {
+		return KeyPrefixConstants.CACHE_MAP_PREFIX + REGION_PREFIX + postId + ":" + version;
+	}
+}
@@ -0,0 +1,311 @@
+package com.stephen.trajectory.manager.cache;
+
+import cn.hutool.core.lang.TypeReference;
+import cn.hutool.core.util.ObjUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.stephen.trajectory.common.ErrorCode;
+import com.stephen.trajectory.common.exception.BusinessException;
+import com.stephen.trajectory.config.cache.properties.CacheProperties;
+import com.stephen.trajectory.manager.cache.model.CacheEntry;
+import com.stephen.trajectory.manager.redis.RedisLockManager;
+import com.stephen.trajectory.model.dto.post.PostQueryRequest;
+import com.stephen.trajectory.model.vo.PostVO;
+import com.stephen.trajectory.utils.caffeine.LocalCacheUtils;
+import com.stephen.trajectory.utils.redisson.cache.CacheUtils;
+import com.stephen.trajectory.utils.redisson.lock.model.TimeModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 帖子分页列表二级缓存管理器（Caffeine + Redis）
+ * <p>
+ * 只缓存与用户无关的帖子骨架分页，当前用户的点赞、收藏状态在响应时再合并；
+ * 缓存键携带缓存区域版本号，帖子新增、编辑、删除时立即递增版本号；
+ * 点赞、收藏只改变计数，合并为定时递增一次版本号，避免热门帖子频繁打穿缓存。
+ * </p>
+ * <p>
+ * 缓存未命中时同一个 key 在本节点只有一个线程回源加载，其余线程等待其结果；
+ * 开启分布式锁后集群内也只有一个节点回源；热点 key 会在过期前按概率提前异步刷新。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+public class PostListCacheManager {
+	
+	/**
+	 * 缓存区域
+	 */
+	public static final String REGION = "listPostVOByPage";
+	
+	/**
+	 * Redis 缓存最短过期时间，单位：秒
+	 */
+	private static final long REDIS_MIN_EXPIRED = 20 * 60L;
+	
+	/**
+	 * Redis 缓存最长过期时间，单位：秒
+	 */
+	private static final long REDIS_MAX_EXPIRED = 30 * 60L;
+	
+	/**
+	 * 缓存值反序列化类型，保证记录反序列化为 PostVO 以便合并当前用户状态
+	 */
+	private static final TypeReference<Page<PostVO>> PAGE_TYPE = new TypeReference<Page<PostVO>>() {
+	};
+	
+	@Resource
+	private CacheVersionManager cacheVersionManager;
+	
+	@Resource
+	private RedisLockManager redisLockManager;
+	
+	@Resource
+	private CacheProperties cacheProperties;
+	
+	@Resource
+	private ThreadPoolExecutor threadPoolExecutor;
+	
+	/**
+	 * 是否存在待合并的延迟失效请求
+	 */
+	private final AtomicBoolean pendingEvict = new AtomicBoolean(false);
+	
+	/**
+	 * 正在回源加载的缓存 key
+	 */
+	private final Map<String, CompletableFuture<Page<PostVO>>> loadingMap = new ConcurrentHashMap<>();
+	
+	/**
+	 * 构建缓存 key（缓存区域 + 版本号 + 查询条件的 MD5 哈希值）
+	 *
+	 * @param postQueryRequest postQueryRequest
+	 * @return 缓存 key
+	 */
+	public String buildCacheKey(PostQueryRequest postQueryRequest) {
+		String queryCondition = JSONUtil.toJsonStr(postQueryRequest);
+		String hashKey = DigestUtils.md5DigestAsHex(queryCondition.getBytes());
+		return REGION + ":" + cacheVersionManager.getVersion(REGION) + ":" + hashKey;
+	}
+	
+	/**
+	 * 读取缓存，未命中时合并并发请求回源加载
+	 *
+	 * @param cacheKey 缓存 key
+	 * @param loader   回源加载帖子骨架分页
+	 * @return {@link Page<PostVO>}
+	 */
+	public Page<PostVO> getOrLoad(String cacheKey, Supplier<Page<PostVO>> loader) {
+		CacheEntry cacheEntry = getEntry(cacheKey);
+		if (cacheEntry != null) {
+			// 临近过期时按概率提前异步刷新，当前请求仍返回旧值
+			if (shouldRefreshEarly(cacheEntry)) {
+				refreshAsync(cacheKey, loader, cacheEntry);
+			}
+			return JSONUtil.toBean(cacheEntry.getValue(), PAGE_TYPE, true);
+		}
+		return loadSingleFlight(cacheKey, loader, null);
+	}
+	
+	/**
+	 * 立即失效所有节点上的帖子列表缓存（帖子新增、编辑、删除时调用）
+	 */
+	public void evict() {
+		try {
+			cacheVersionManager.bumpVersion(REGION);
+		} catch (Exception e) {
+			log.error("帖子列表缓存失效失败, region: {}", REGION, e);
+		}
+	}
+	
+	/**
+	 * 延迟失效帖子列表缓存（点赞、收藏时调用），由定时任务合并后统一失效
+	 */
+	public void evictDeferred() {
+		pendingEvict.set(true);
+	}
+	
+	/**
+	 * 每 5 秒合并处理一次延迟失效请求
+	 */
+	@Scheduled(fixedRate = 5 * 1000)
+	public void flushDeferredEvict() {
+		if (pendingEvict.compareAndSet(true, false)) {
+			evict();
+		}
+	}
+	
+	/**
+	 * 读取缓存条目，先查本地缓存，未命中再查 Redis 并回填本地缓存
+	 *
+	 * @param cacheKey 缓存 key
+	 * @return {@link CacheEntry} 未命中时返回 null
+	 */
+	private CacheEntry getEntry(String cacheKey) {
+		// 1. 尝试从本地缓存中获取数据
+		String cachedValue = (String) LocalCacheUtils.get(cacheKey);
+		if (ObjUtil.isNotEmpty(cachedValue)) {
+			return JSONUtil.toBean(cachedValue, CacheEntry.class);
+		}
+		// 2. 如果本地缓存未命中，尝试从 Redis 缓存中获取数据
+		cachedValue = CacheUtils.get(cacheKey);
+		if (ObjUtil.isNotEmpty(cachedValue)) {
+			// 如果 Redis 缓存命中，将其存入本地缓存
+			LocalCacheUtils.put(cacheKey, cachedValue);
+			return JSONUtil.toBean(cachedValue, CacheEntry.class);
+		}
+		return null;
+	}
+	
+	/**
+	 * 同一个 key 在本节点只允许一个线程回源，其余线程等待其加载结果
+	 *
+	 * @param cacheKey   缓存 key
+	 * @param loader     回源加载帖子骨架分页
+	 * @param staleEntry 提前刷新时的旧缓存条目，缓存未命中时为 null
+	 * @return {@link Page<PostVO>}
+	 */
+	private Page<PostVO> loadSingleFlight(String cacheKey, Supplier<Page<PostVO>> loader, CacheEntry staleEntry) {
+		CompletableFuture<Page<PostVO>> future = new CompletableFuture<>();
+		CompletableFuture<Page<PostVO>> loadingFuture = loadingMap.putIfAbsent(cacheKey, future);
+		if (loadingFuture != null) {
+			return awaitLoading(loadingFuture, loader);
+		}
+		try {
+			Page<PostVO> postVOPage = loadWithLock(cacheKey, loader, staleEntry);
+			future.complete(postVOPage);
+			return postVOPage;
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			loadingMap.remove(cacheKey, future);
+		}
+	}
+	
+	/**
+	 * 等待其他线程的加载结果，超时则直接回源，不再等待
+	 *
+	 * @param loadingFuture 正在进行的加载
+	 * @param loader        回源加载帖子骨架分页
+	 * @return {@link Page<PostVO>}
+	 */
+	private Page<PostVO> awaitLoading(CompletableFuture<Page<PostVO>> loadingFuture, Supplier<Page<PostVO>> loader) {
+		try {
+			return loadingFuture.get(cacheProperties.getLoadTimeout(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			log.warn("等待帖子列表缓存加载超时，直接回源");
+			return loader.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof BusinessException) {
+				throw (BusinessException) e.getCause();
+			}
+			throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取帖子列表失败");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取帖子列表失败");
+		}
+	}
+	
+	/**
+	 * 回源加载并写入缓存，开启分布式锁时集群内同一个 key 只由一个节点加载
+	 *
+	 * @param cacheKey   缓存 key
+	 * @param loader     回源加载帖子骨架分页
+	 * @param staleEntry 提前刷新时的旧缓存条目，缓存未命中时为 null
+	 * @return {@link Page<PostVO>}
+	 */
+	private Page<PostVO> loadWithLock(String cacheKey, Supplier<Page<PostVO>> loader, CacheEntry staleEntry) {
+		if (!Boolean.TRUE.equals(cacheProperties.getDistributedLock())) {
+			return loadAndPut(cacheKey, loader);
+		}
+		// 拿到锁或等待超时后都先复查 Redis，其他节点可能已经完成加载或刷新
+		Supplier<Page<PostVO>> recheckAndLoad = () -> {
+			String cachedValue = CacheUtils.get(cacheKey);
+			if (ObjUtil.isNotEmpty(cachedValue)) {
+				CacheEntry cacheEntry = JSONUtil.toBean(cachedValue, CacheEntry.class);
+				if (staleEntry == null || !ObjUtil.equals(staleEntry.getExpireAt(), cacheEntry.getExpireAt())) {
+					LocalCacheUtils.put(cacheKey, cachedValue);
+					return JSONUtil.toBean(cacheEntry.getValue(), PAGE_TYPE, true);
+				}
+			}
+			return loadAndPut(cacheKey, loader);
+		};
+		return redisLockManager.executeLock(cacheKey,
+				new TimeModel(cacheProperties.getLockWaitTime(), TimeUnit.MILLISECONDS),
+				recheckAndLoad, recheckAndLoad);
+	}
+	
+	/**
+	 * 回源加载并写入本地缓存和 Redis 缓存，同时记录加载耗时
+	 *
+	 * @param cacheKey 缓存 key
+	 * @param loader   回源加载帖子骨架分页
+	 * @return {@link Page<PostVO>}
+	 */
+	private Page<PostVO> loadAndPut(String cacheKey, Supplier<Page<PostVO>> loader) {
+		long start = System.currentTimeMillis();
+		Page<PostVO> postVOPage = loader.get();
+		long loadCost = System.currentTimeMillis() - start;
+		try {
+			// 版本号失效后可放心使用较长的随机过期时间
+			long expired = RandomUtil.randomLong(REDIS_MIN_EXPIRED, REDIS_MAX_EXPIRED);
+			CacheEntry cacheEntry = new CacheEntry(JSONUtil.toJsonStr(postVOPage),
+					System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expired), loadCost);
+			String cacheValue = JSONUtil.toJsonStr(cacheEntry);
+			// 更新本地缓存
+			LocalCacheUtils.put(cacheKey, cacheValue);
+			// 更新 Redis 缓存
+			CacheUtils.put(cacheKey, cacheValue, expired);
+		} catch (Exception e) {
+			// 如果 Redis 缓存更新失败，记录日志以便排查问题
+			log.error("更新缓存失败, cacheKey: {}", cacheKey, e);
+		}
+		return postVOPage;
+	}
+	
+	/**
+	 * 按加载耗时和剩余有效期判断是否提前刷新，越临近过期、加载越慢，提前刷新的概率越大
+	 *
+	 * @param cacheEntry 缓存条目
+	 * @return 是否提前刷新
+	 */
+	private boolean shouldRefreshEarly(CacheEntry cacheEntry) {
+		Double beta = cacheProperties.getEarlyRefreshBeta();
+		if (beta == null || beta <= 0 || cacheEntry.getExpireAt() == null || cacheEntry.getLoadCost() == null) {
+			return false;
+		}
+		double random = ThreadLocalRandom.current().nextDouble(Double.MIN_VALUE, 1.0);
+		double gap = -cacheEntry.getLoadCost() * beta * Math.log(random);
+		return System.currentTimeMillis() + gap >= cacheEntry.getExpireAt();
+	}
+	
+	/**
+	 * 异步刷新缓存，已有线程在加载时直接跳过
+	 *
+	 * @param cacheKey   缓存 key
+	 * @param loader     回源加载帖子骨架分页
+	 * @param staleEntry 旧缓存条目
+	 */
+	private void refreshAsync(String cacheKey, Supplier<Page<PostVO>> loader, CacheEntry staleEntry) {
+		if (loadingMap.containsKey(cacheKey)) {
+			return;
+		}
+		CompletableFuture.runAsync(() -> loadSingleFlight(cacheKey, loader, staleEntry), threadPoolExecutor)
+				.exceptionally(e -> {
+					log.error("提前刷新帖子列表缓存失败, cacheKey: {}", cacheKey, e);
+					return null;
+				});
+	}
+}
@@ -0,0 +1,86 @@
+package com.stephen.trajectory.manager.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.stephen.trajectory.mapper.UserMapper;
+import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.UserVO;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 用户视图解析器
+ * <p>
+ * 各类视图分页填充作者信息时统一使用，按用户 id 批量读取缓存的 UserVO 投影，
+ * 未命中的用户只查询 UserVO 需要的列（不包含密码等敏感字段），用户更新、删除时随用户实体缓存一起失效。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+public class UserVOResolver {
+	
+	/**
+	 * UserVO 需要的用户列
+	 */
+	private static final String[] USER_VO_COLUMNS = {"id", "userName", "userAvatar", "userRole", "userEmail",
+			"userPhone", "tags", "createTime", "updateTime"};
+	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	@Resource
+	private UserMapper userMapper;
+	
+	/**
+	 * 获取单个用户视图
+	 *
+	 * @param userId userId
+	 * @return {@link UserVO} 用户不存在时返回 null
+	 */
+	public UserVO resolve(Long userId) {
+		if (userId == null || userId <= 0) {
+			return null;
+		}
+		return resolve(Collections.singletonList(userId)).get(userId);
+	}
+	
+	/**
+	 * 批量获取用户视图
+	 *
+	 * @param userIds 用户 id 集合
+	 * @return 用户 id => 用户视图
+	 */
+	public Map<Long, UserVO> resolve(Collection<Long> userIds) {
+		if (CollUtil.isEmpty(userIds)) {
+			return new HashMap<>();
+		}
+		List<Long> userIdList = userIds.stream()
+				.filter(userId -> userId != null && userId > 0)
+				.distinct()
+				.collect(Collectors.toList());
+		return entityCacheManager.listByIds(EntityCacheManager.USER_VO_REGION, userIdList, UserVO.class,
+						this::loadUserVOList, UserVO::getId)
+				.stream()
+				.collect(Collectors.toMap(UserVO::getId, Function.identity(), (a, b) -> a));
+	}
+	
+	/**
+	 * 从数据库批量查询用户视图
+	 *
+	 * @param userIds 用户 id 集合
+	 * @return {@link List<UserVO>}
+	 */
+	private List<UserVO> loadUserVOList(Collection<Long> userIds) {
+		QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+		queryWrapper.select(USER_VO_COLUMNS);
+		queryWrapper.in("id", userIds);
+		return userMapper.selectList(queryWrapper).stream()
+				.map(UserVO::objToVo)
+				.collect(Collectors.toList());
+	}
+}
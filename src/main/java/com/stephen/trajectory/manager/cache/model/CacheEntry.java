@@ -0,0 +1,36 @@
+package com.stephen.trajectory.manager.cache.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 缓存条目，记录缓存值及其过期时间、加载耗时，用于过期前的概率提前刷新
+ *
+ * @author stephen qiu
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEntry implements Serializable {
+	
+	private static final long serialVersionUID = 2749135829513208718L;
+	
+	/**
+	 * 缓存值（JSON）
+	 */
+	private String value;
+	
+	/**
+	 * 过期时间戳，单位：毫秒
+	 */
+	private Long expireAt;
+	
+	/**
+	 * 回源加载耗时，单位：毫秒
+	 */
+	private Long loadCost;
+	
+}
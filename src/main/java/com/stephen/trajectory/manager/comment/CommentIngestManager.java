@@ -0,0 +1,162 @@
+package com.stephen.trajectory.manager.comment;
+
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.stephen.trajectory.common.ErrorCode;
+import com.stephen.trajectory.common.exception.BusinessException;
+import com.stephen.trajectory.config.comment.properties.CommentIngestProperties;
+import com.stephen.trajectory.config.rabbitmq.properties.RabbitMqProperties;
+import com.stephen.trajectory.config.redisson.condition.RedissonCondition;
+import com.stephen.trajectory.model.entity.PostComment;
+import com.stephen.trajectory.rabbitmq.customizeMq.PostCommentIngestRabbitMq;
+import com.stephen.trajectory.utils.rabbitmq.RabbitMqUtils;
+import com.stephen.trajectory.utils.redisson.KeyPrefixConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 评论缓冲写入管理器
+ * <p>
+ * 评论校验通过后分配 id 并投递到消息队列，由消费者批量写入数据库；
+ * 同一用户的同一客户端消息 id 只会分配一次评论 id，客户端重试时返回相同的 id，消费者按 id 去重写入；
+ * 评论落库前作者的评论保存在 Redis 中，作者查询评论列表时合并展示，保证作者能立即看到自己的评论。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RedissonCondition.class)
+public class CommentIngestManager {
+	
+	@Resource
+	private RedissonClient redissonClient;
+	
+	@Resource
+	private CommentIngestProperties commentIngestProperties;
+	
+	@Resource
+	private RabbitMqProperties rabbitMqProperties;
+	
+	/**
+	 * 是否开启缓冲写入（同时需要开启 RabbitMQ）
+	 *
+	 * @return 是否开启
+	 */
+	public boolean isEnabled() {
+		return Boolean.TRUE.equals(commentIngestProperties.getEnabled()) && Boolean.TRUE.equals(rabbitMqProperties.getEnable());
+	}
+	
+	/**
+	 * 分配评论 id 并投递到消息队列
+	 *
+	 * @param postComment 已校验的评论（需要包含 userId）
+	 * @param clientMsgId 客户端消息 id，可为空
+	 * @return 评论 id
+	 */
+	public Long submit(PostComment postComment, String clientMsgId) {
+		Long commentId = IdWorker.getId();
+		RBucket<String> dedupBucket = null;
+		if (StringUtils.isNotBlank(clientMsgId)) {
+			// 客户端重试时返回首次分配的评论 id
+			dedupBucket = redissonClient.getBucket(buildDedupKey(postComment.getUserId(), clientMsgId), StringCodec.INSTANCE);
+			if (!dedupBucket.trySet(String.valueOf(commentId), commentIngestProperties.getDedupExpired(), TimeUnit.SECONDS)) {
+				String existCommentId = dedupBucket.get();
+				if (StringUtils.isNumeric(existCommentId)) {
+					return Long.valueOf(existCommentId);
+				}
+			}
+		}
+		postComment.setId(commentId);
+		postComment.setThumbCount(0);
+		postComment.setCreateTime(new Date());
+		// 先写入作者可见的未落库评论，再投递消息
+		RMap<String, String> overlayMap = redissonClient.getMap(buildOverlayKey(postComment.getPostId(), postComment.getUserId()), StringCodec.INSTANCE);
+		try {
+			overlayMap.fastPut(String.valueOf(commentId), JSONUtil.toJsonStr(postComment));
+			overlayMap.expire(commentIngestProperties.getOverlayExpired(), TimeUnit.SECONDS);
+			RabbitMqUtils.sendMsg(postComment, PostCommentIngestRabbitMq.class);
+		} catch (Exception e) {
+			log.error("评论投递失败, postId: {}, userId: {}", postComment.getPostId(), postComment.getUserId(), e);
+			overlayMap.fastRemove(String.valueOf(commentId));
+			if (dedupBucket != null) {
+				dedupBucket.delete();
+			}
+			throw new BusinessException(ErrorCode.OPERATION_ERROR, "评论提交失败，请稍后重试");
+		}
+		return commentId;
+	}
+	
+	/**
+	 * 获取作者在帖子下尚未落库的评论
+	 *
+	 * @param postId 帖子 id
+	 * @param userId 作者 id
+	 * @return 未落库的评论，按 (createTime, id) 倒序
+	 */
+	public List<PostComment> listPending(Long postId, Long userId) {
+		if (postId == null || userId == null) {
+			return new ArrayList<>();
+		}
+		try {
+			return redissonClient.<String, String>getMap(buildOverlayKey(postId, userId), StringCodec.INSTANCE).readAllValues().stream()
+					.map(value -> JSONUtil.toBean(value, PostComment.class))
+					.sorted(Comparator.comparing(PostComment::getCreateTime).thenComparing(PostComment::getId).reversed())
+					.collect(Collectors.toList());
+		} catch (Exception e) {
+			log.error("读取未落库评论失败, postId: {}, userId: {}", postId, userId, e);
+			return new ArrayList<>();
+		}
+	}
+	
+	/**
+	 * 评论落库后删除作者可见的未落库评论（一次网络往返）
+	 *
+	 * @param postCommentList 已落库的评论
+	 */
+	public void clearPending(Collection<PostComment> postCommentList) {
+		try {
+			RBatch batch = redissonClient.createBatch();
+			postCommentList.forEach(postComment -> batch.getMap(buildOverlayKey(postComment.getPostId(), postComment.getUserId()), StringCodec.INSTANCE)
+					.fastRemoveAsync(String.valueOf(postComment.getId())));
+			batch.execute();
+		} catch (Exception e) {
+			// 未落库评论会在过期后自动删除
+			log.error("删除未落库评论失败, size: {}", postCommentList.size(), e);
+		}
+	}
+	
+	/**
+	 * 构建客户端消息 id 去重 key
+	 *
+	 * @param userId      用户 id
+	 * @param clientMsgId 客户端消息 id
+	 * @return 去重 key
+	 */
+	private String buildDedupKey(Long userId, String clientMsgId) {
+		return KeyPrefixConstants.IDEMPOTENT_PREFIX + "COMMENT:" + userId + ":" + clientMsgId;
+	}
+	
+	/**
+	 * 构建作者未落库评论 key
+	 *
+	 * @param postId 帖子 id
+	 * @param userId 作者 id
+	 * @return 未落库评论 key
+	 */
+	private String buildOverlayKey(Long postId, Long userId) {
+		return KeyPrefixConstants.CACHE_MAP_PREFIX + "postCommentOverlay:" + postId + ":" + userId;
+	}
+}
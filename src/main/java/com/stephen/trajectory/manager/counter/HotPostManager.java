@@ -0,0 +1,111 @@
+package com.stephen.trajectory.manager.counter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stephen.trajectory.config.counter.properties.CounterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热点帖子识别
+ * <p>
+ * 按帖子统计每秒的计数写入次数，超过阈值的帖子在一段时间内视为热点，计数改为分片写入。
+ * 同时记录最近写过分片的帖子，读取帖子时只对这些帖子累加尚未合并的分片计数；
+ * 分片写入只发生在同步写数据库模式（counter.writeBehind = false）下。
+ * 其他节点写入的分片不在本节点记录中，最多延迟一个合并周期后体现在帖子表的计数上。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+public class HotPostManager {
+	
+	@Resource
+	private CounterProperties counterProperties;
+	
+	/**
+	 * 帖子 id => 当前一秒窗口内的写入次数
+	 */
+	private Cache<Long, AtomicInteger> writeCountCache;
+	
+	/**
+	 * 热点帖子 id
+	 */
+	private Cache<Long, Boolean> hotPostCache;
+	
+	/**
+	 * 最近写过分片的帖子 id（保留两个合并周期，期间分片中可能还有未合并的计数）
+	 */
+	private Cache<Long, Boolean> shardedPostCache;
+	
+	@PostConstruct
+	public void init() {
+		writeCountCache = Caffeine.newBuilder()
+				.expireAfterWrite(1, TimeUnit.SECONDS)
+				.maximumSize(100000)
+				.build();
+		hotPostCache = Caffeine.newBuilder()
+				.expireAfterWrite(counterProperties.getHotExpired(), TimeUnit.SECONDS)
+				.maximumSize(10000)
+				.build();
+		shardedPostCache = Caffeine.newBuilder()
+				.expireAfterWrite(counterProperties.getCompactInterval() * 2, TimeUnit.MILLISECONDS)
+				.maximumSize(10000)
+				.build();
+	}
+	
+	/**
+	 * 记录一次计数写入并判断帖子是否为热点
+	 *
+	 * @param postId postId
+	 * @return 是否为热点帖子
+	 */
+	public boolean recordWrite(long postId) {
+		if (counterProperties.getHotThreshold() <= 0) {
+			return false;
+		}
+		if (hotPostCache.getIfPresent(postId) != null) {
+			shardedPostCache.put(postId, true);
+			return true;
+		}
+		AtomicInteger writeCount = writeCountCache.get(postId, key -> new AtomicInteger());
+		if (writeCount != null && writeCount.incrementAndGet() >= counterProperties.getHotThreshold()) {
+			hotPostCache.put(postId, true);
+			shardedPostCache.put(postId, true);
+			log.info("帖子计数写入过于频繁，开启分片计数, postId: {}", postId);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * 是否可能存在分片计数（同步写数据库模式且开启了热点识别）
+	 *
+	 * @return 是否可能存在分片计数
+	 */
+	public boolean isShardingActive() {
+		return !Boolean.TRUE.equals(counterProperties.getWriteBehind()) && counterProperties.getHotThreshold() > 0;
+	}
+	
+	/**
+	 * 筛选出最近写过分片、可能有未合并分片计数的帖子
+	 *
+	 * @param postIds 帖子 id 集合
+	 * @return 可能有未合并分片计数的帖子 id，未开启分片时返回空集合
+	 */
+	public Set<Long> filterSharded(Collection<Long> postIds) {
+		if (!isShardingActive() || postIds == null || postIds.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return shardedPostCache.getAllPresent(postIds).keySet();
+	}
+}
@@ -0,0 +1,383 @@
+package com.stephen.trajectory.manager.counter;
+
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.stephen.trajectory.common.ErrorCode;
+import com.stephen.trajectory.common.exception.BusinessException;
+import com.stephen.trajectory.config.counter.properties.CounterProperties;
+import com.stephen.trajectory.config.redisson.condition.RedissonCondition;
+import com.stephen.trajectory.manager.counter.model.CounterBatch;
+import com.stephen.trajectory.manager.counter.model.CounterType;
+import com.stephen.trajectory.mapper.PostFavourMapper;
+import com.stephen.trajectory.mapper.PostThumbMapper;
+import com.stephen.trajectory.model.dto.post.PostViewerStateDTO;
+import com.stephen.trajectory.model.entity.PostFavour;
+import com.stephen.trajectory.model.entity.PostThumb;
+import com.stephen.trajectory.utils.redisson.KeyPrefixConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 帖子点赞、收藏计数管理器
+ * <p>
+ * 用户的点赞、收藏关系和帖子计数增量保存在 Redis 中，通过 Lua 脚本原子切换；
+ * 变更先记录到待回写队列，再由定时任务按批次回写数据库，每个帖子每个批次只更新一次计数。
+ * 用户的关系集合同时作为点赞、收藏状态索引，帖子详情和列表直接从 Redis 判断是否已点赞、收藏，
+ * 集合不存在（冷启动或过期）时从数据库重建。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RedissonCondition.class)
+public class PostCounterManager {
+	
+	/**
+	 * 用户关系集合中的占位成员，保证集合加载后即使为空也存在
+	 */
+	private static final String MEMBER_PLACEHOLDER = "0";
+	
+	/**
+	 * 关系集合加载期间版本号变化时的最大重试次数
+	 */
+	private static final int LOAD_RETRY_TIMES = 3;
+	
+	/**
+	 * 切换关系：KEYS[1] 用户关系集合，KEYS[2] 待回写关系，KEYS[3] 计数增量；
+	 * ARGV[1] 帖子 id，ARGV[2] 待回写关系字段，ARGV[3] 关系集合过期时间。
+	 * 关系集合未加载时返回 0，否则返回 1（新增）或 -1（取消）
+	 */
+	private static final String TOGGLE_SCRIPT =
+			"if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+					"local op = 1 " +
+					"if redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1 then " +
+					"redis.call('SREM', KEYS[1], ARGV[1]) op = -1 " +
+					"else redis.call('SADD', KEYS[1], ARGV[1]) end " +
+					"redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+					"if redis.call('HEXISTS', KEYS[2], ARGV[2]) == 1 then redis.call('HDEL', KEYS[2], ARGV[2]) " +
+					"else redis.call('HSET', KEYS[2], ARGV[2], op) end " +
+					"redis.call('HINCRBY', KEYS[3], ARGV[1], op) " +
+					"return op";
+	
+	/**
+	 * 批量设置关系：KEYS 同切换脚本；ARGV[1] 用户 id，ARGV[2] 关系集合过期时间，之后每两个参数为帖子 id 和目标状态（1 / 0）。
+	 * 关系集合未加载时返回 {-1}，否则按顺序返回每个帖子的变化数
+	 */
+	private static final String BATCH_SCRIPT =
+			"if redis.call('EXISTS', KEYS[1]) == 0 then return {-1} end " +
+					"local result = {} " +
+					"for i = 3, #ARGV, 2 do " +
+					"local postId = ARGV[i] " +
+					"local has = redis.call('SISMEMBER', KEYS[1], postId) " +
+					"local op = 0 " +
+					"if ARGV[i + 1] == '1' and has == 0 then redis.call('SADD', KEYS[1], postId) op = 1 " +
+					"elseif ARGV[i + 1] == '0' and has == 1 then redis.call('SREM', KEYS[1], postId) op = -1 end " +
+					"if op ~= 0 then " +
+					"local field = postId .. ':' .. ARGV[1] " +
+					"if redis.call('HEXISTS', KEYS[2], field) == 1 then redis.call('HDEL', KEYS[2], field) " +
+					"else redis.call('HSET', KEYS[2], field, op) end " +
+					"redis.call('HINCRBY', KEYS[3], postId, op) end " +
+					"result[#result + 1] = op end " +
+					"redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+					"return result";
+	
+	/**
+	 * 加载关系集合：KEYS[1] 用户关系集合，KEYS[2] 关系集合版本号；ARGV[1] 过期时间，ARGV[2] 查询数据库前读取的版本号，其余参数为集合成员。
+	 * 集合已存在时不覆盖，避免并发切换的结果被数据库中的旧数据覆盖；
+	 * 版本号已变化说明查询期间有同步切换，数据库结果可能过期，放弃本次加载并返回 -1
+	 */
+	private static final String LOAD_SCRIPT =
+			"if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+					"if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[2] then return -1 end " +
+					"for i = 3, #ARGV, 5000 do " +
+					"redis.call('SADD', KEYS[1], unpack(ARGV, i, math.min(i + 4999, #ARGV))) end " +
+					"redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+					"return 1";
+	
+	/**
+	 * 取出待回写批次：KEYS[1] 待回写关系，KEYS[2] 计数增量，KEYS[3]、KEYS[4] 为对应的回写中数据。
+	 * 上一批次未确认时不取新批次，保证批次按顺序回写
+	 */
+	private static final String SNAPSHOT_SCRIPT =
+			"if redis.call('EXISTS', KEYS[3]) == 1 or redis.call('EXISTS', KEYS[4]) == 1 then return 1 end " +
+					"if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('RENAME', KEYS[1], KEYS[3]) end " +
+					"if redis.call('EXISTS', KEYS[2]) == 1 then redis.call('RENAME', KEYS[2], KEYS[4]) end " +
+					"return 1";
+	
+	/**
+	 * 批量判断点赞、收藏状态：KEYS[1] 点赞关系集合，KEYS[2] 收藏关系集合；ARGV 为帖子 id。
+	 * 集合未加载时返回 {-1, 点赞集合是否存在, 收藏集合是否存在}，否则按顺序返回每个帖子的状态（1 点赞，2 收藏，按位或）
+	 */
+	private static final String VIEWER_STATE_SCRIPT =
+			"local t = redis.call('EXISTS', KEYS[1]) " +
+					"local f = redis.call('EXISTS', KEYS[2]) " +
+					"if t == 0 or f == 0 then return {-1, t, f} end " +
+					"local result = {} " +
+					"for i = 1, #ARGV do " +
+					"local state = 0 " +
+					"if redis.call('SISMEMBER', KEYS[1], ARGV[i]) == 1 then state = state + 1 end " +
+					"if redis.call('SISMEMBER', KEYS[2], ARGV[i]) == 1 then state = state + 2 end " +
+					"result[i] = state end " +
+					"return result";
+	
+	/**
+	 * 同步更新已加载的关系集合：KEYS[1] 用户关系集合，KEYS[2] 关系集合版本号；ARGV[1] 帖子 id，ARGV[2] 1 新增 / -1 取消，ARGV[3] 过期时间。
+	 * 无论集合是否已加载都递增版本号，使正在进行的加载失效
+	 */
+	private static final String APPLY_SCRIPT =
+			"redis.call('INCR', KEYS[2]) " +
+					"redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+					"if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+					"if tonumber(ARGV[2]) > 0 then redis.call('SADD', KEYS[1], ARGV[1]) " +
+					"else redis.call('SREM', KEYS[1], ARGV[1]) end " +
+					"return 1";
+	
+	@Resource
+	private RedissonClient redissonClient;
+	
+	@Resource
+	private CounterProperties counterProperties;
+	
+	@Resource
+	private PostThumbMapper postThumbMapper;
+	
+	@Resource
+	private PostFavourMapper postFavourMapper;
+	
+	/**
+	 * 切换用户对帖子的点赞、收藏关系
+	 *
+	 * @param type   计数类型
+	 * @param postId postId
+	 * @param userId userId
+	 * @return 1 表示新增，-1 表示取消
+	 */
+	public int toggle(CounterType type, long postId, long userId) {
+		List<Object> keys = Arrays.asList(buildMemberKey(type, userId), buildPendingKey(type), buildDeltaKey(type));
+		String memberExpired = String.valueOf(counterProperties.getMemberExpired());
+		RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+		for (int i = 0; i < 2; i++) {
+			Long result = script.eval(RScript.Mode.READ_WRITE, TOGGLE_SCRIPT, RScript.ReturnType.INTEGER, keys,
+					String.valueOf(postId), postId + ":" + userId, memberExpired);
+			if (result != null && result != 0) {
+				return result.intValue();
+			}
+			// 关系集合未加载，从数据库加载后重试
+			loadMembers(type, userId);
+		}
+		throw new BusinessException(ErrorCode.SYSTEM_ERROR, type.getText() + "失败");
+	}
+	
+	/**
+	 * 批量设置用户对帖子的点赞、收藏关系（一次 Redis 往返）
+	 *
+	 * @param type      计数类型
+	 * @param userId    userId
+	 * @param actionMap 帖子 id => 目标状态
+	 * @return 帖子 id => 本次变化数（1 新增，-1 取消，0 未变化）
+	 */
+	public Map<Long, Integer> applyBatch(CounterType type, long userId, Map<Long, Boolean> actionMap) {
+		Map<Long, Integer> resultMap = new HashMap<>();
+		if (CollUtil.isEmpty(actionMap)) {
+			return resultMap;
+		}
+		List<Long> postIdList = new ArrayList<>(actionMap.keySet());
+		List<Object> keys = Arrays.asList(buildMemberKey(type, userId), buildPendingKey(type), buildDeltaKey(type));
+		List<Object> args = new ArrayList<>();
+		args.add(String.valueOf(userId));
+		args.add(String.valueOf(counterProperties.getMemberExpired()));
+		postIdList.forEach(postId -> {
+			args.add(String.valueOf(postId));
+			args.add(Boolean.TRUE.equals(actionMap.get(postId)) ? "1" : "0");
+		});
+		RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+		for (int i = 0; i < 2; i++) {
+			List<Long> opList = script.eval(RScript.Mode.READ_WRITE, BATCH_SCRIPT, RScript.ReturnType.MULTI, keys, args.toArray());
+			if (opList.isEmpty() || opList.get(0) >= 0) {
+				for (int j = 0; j < opList.size(); j++) {
+					resultMap.put(postIdList.get(j), opList.get(j).intValue());
+				}
+				return resultMap;
+			}
+			// 关系集合未加载，从数据库加载后重试
+			loadMembers(type, userId);
+		}
+		throw new BusinessException(ErrorCode.SYSTEM_ERROR, "批量" + type.getText() + "失败");
+	}
+	
+	/**
+	 * 数据库已切换关系后同步更新关系集合，集合未加载时不处理（下次读取时重建）；
+	 * 在事务提交后调用，更新失败时删除关系集合，下次读取时从数据库重建
+	 *
+	 * @param type   计数类型
+	 * @param postId postId
+	 * @param userId userId
+	 * @param result 1 表示新增，-1 表示取消
+	 */
+	public void applyToggle(CounterType type, long postId, long userId, int result) {
+		if (result == 0) {
+			return;
+		}
+		String memberKey = buildMemberKey(type, userId);
+		try {
+			redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, APPLY_SCRIPT, RScript.ReturnType.INTEGER,
+					Arrays.asList(memberKey, buildVersionKey(type, userId)), String.valueOf(postId), String.valueOf(result),
+					String.valueOf(counterProperties.getMemberExpired()));
+		} catch (Exception e) {
+			log.error("同步更新关系集合失败，type: {}, postId: {}, userId: {}", type, postId, userId, e);
+			try {
+				redissonClient.getKeys().delete(memberKey);
+			} catch (Exception ex) {
+				log.error("删除关系集合失败，key: {}", memberKey, ex);
+			}
+		}
+	}
+	
+	/**
+	 * 批量获取用户对帖子的点赞、收藏状态（一次 Redis 往返，关系集合不存在时先从数据库重建）
+	 *
+	 * @param postIds 帖子 id 集合
+	 * @param userId  用户 id
+	 * @return 帖子 id => 点赞、收藏状态，未点赞且未收藏的帖子不在结果中
+	 */
+	public Map<Long, PostViewerStateDTO> getViewerStateMap(Collection<Long> postIds, long userId) {
+		Map<Long, PostViewerStateDTO> viewerStateMap = new HashMap<>();
+		if (CollUtil.isEmpty(postIds)) {
+			return viewerStateMap;
+		}
+		List<Long> postIdList = new ArrayList<>(postIds);
+		List<Object> keys = Arrays.asList(buildMemberKey(CounterType.THUMB, userId), buildMemberKey(CounterType.FAVOUR, userId));
+		Object[] args = postIdList.stream().map(String::valueOf).toArray();
+		RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+		for (int i = 0; i < 2; i++) {
+			List<Long> stateList = script.eval(RScript.Mode.READ_ONLY, VIEWER_STATE_SCRIPT, RScript.ReturnType.MULTI, keys, args);
+			if (stateList.isEmpty() || stateList.get(0) >= 0) {
+				for (int j = 0; j < stateList.size(); j++) {
+					long state = stateList.get(j);
+					if (state == 0) {
+						continue;
+					}
+					PostViewerStateDTO viewerState = new PostViewerStateDTO();
+					viewerState.setPostId(postIdList.get(j));
+					viewerState.setHasThumb((state & 1) != 0);
+					viewerState.setHasFavour((state & 2) != 0);
+					viewerStateMap.put(viewerState.getPostId(), viewerState);
+				}
+				return viewerStateMap;
+			}
+			// 关系集合未加载，从数据库重建后重试
+			if (stateList.get(1) == 0) {
+				loadMembers(CounterType.THUMB, userId);
+			}
+			if (stateList.get(2) == 0) {
+				loadMembers(CounterType.FAVOUR, userId);
+			}
+		}
+		throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取点赞、收藏状态失败");
+	}
+	
+	/**
+	 * 取出待回写数据库的批次，上一批次未确认时返回上一批次
+	 *
+	 * @param type 计数类型
+	 * @return {@link CounterBatch}
+	 */
+	public CounterBatch snapshot(CounterType type) {
+		String flushingPendingKey = buildPendingKey(type) + ":FLUSHING";
+		String flushingDeltaKey = buildDeltaKey(type) + ":FLUSHING";
+		redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, SNAPSHOT_SCRIPT, RScript.ReturnType.INTEGER,
+				Arrays.asList(buildPendingKey(type), buildDeltaKey(type), flushingPendingKey, flushingDeltaKey));
+		CounterBatch counterBatch = new CounterBatch();
+		RMap<String, String> pendingMap = redissonClient.getMap(flushingPendingKey, StringCodec.INSTANCE);
+		pendingMap.readAllMap().forEach((field, op) -> {
+			String[] ids = field.split(":");
+			counterBatch.addChange(Long.valueOf(ids[0]), Long.valueOf(ids[1]), Integer.parseInt(op) > 0);
+		});
+		RMap<String, String> deltaMap = redissonClient.getMap(flushingDeltaKey, StringCodec.INSTANCE);
+		deltaMap.readAllMap().forEach((postId, delta) -> {
+			long value = Long.parseLong(delta);
+			if (value != 0) {
+				counterBatch.getDeltaMap().put(Long.valueOf(postId), value);
+			}
+		});
+		return counterBatch;
+	}
+	
+	/**
+	 * 确认批次已回写数据库，删除回写中数据
+	 *
+	 * @param type 计数类型
+	 */
+	public void ack(CounterType type) {
+		redissonClient.getKeys().delete(buildPendingKey(type) + ":FLUSHING", buildDeltaKey(type) + ":FLUSHING");
+	}
+	
+	/**
+	 * 从数据库加载用户的点赞、收藏关系集合，查询期间有同步切换时重新查询
+	 *
+	 * @param type   计数类型
+	 * @param userId userId
+	 */
+	private void loadMembers(CounterType type, long userId) {
+		for (int i = 0; i < LOAD_RETRY_TIMES; i++) {
+			if (tryLoadMembers(type, userId)) {
+				return;
+			}
+		}
+		log.warn("关系集合加载期间持续有切换，放弃加载，type: {}, userId: {}", type, userId);
+	}
+	
+	/**
+	 * 按版本号从数据库加载一次关系集合
+	 *
+	 * @param type   计数类型
+	 * @param userId userId
+	 * @return 集合已存在或加载成功时返回 true，查询期间版本号变化时返回 false
+	 */
+	private boolean tryLoadMembers(CounterType type, long userId) {
+		String versionKey = buildVersionKey(type, userId);
+		String version = (String) redissonClient.getBucket(versionKey, StringCodec.INSTANCE).get();
+		List<Long> postIdList;
+		if (CounterType.THUMB.equals(type)) {
+			postIdList = postThumbMapper.selectList(new QueryWrapper<PostThumb>().select("postId").eq("userId", userId))
+					.stream().map(PostThumb::getPostId).collect(Collectors.toList());
+		} else {
+			postIdList = postFavourMapper.selectList(new QueryWrapper<PostFavour>().select("postId").eq("userId", userId))
+					.stream().map(PostFavour::getPostId).collect(Collectors.toList());
+		}
+		List<Object> args = new ArrayList<>();
+		args.add(String.valueOf(counterProperties.getMemberExpired()));
+		args.add(version == null ? "0" : version);
+		args.add(MEMBER_PLACEHOLDER);
+		postIdList.forEach(postId -> args.add(String.valueOf(postId)));
+		Long loaded = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, LOAD_SCRIPT, RScript.ReturnType.INTEGER,
+				Arrays.asList(buildMemberKey(type, userId), versionKey), args.toArray());
+		return loaded == null || loaded >= 0;
+	}
+	
+	private String buildMemberKey(CounterType type, long userId) {
+		return KeyPrefixConstants.COUNTER_PREFIX + type.name() + ":MEMBER:" + userId;
+	}
+	
+	private String buildVersionKey(CounterType type, long userId) {
+		return buildMemberKey(type, userId) + ":VERSION";
+	}
+	
+	private String buildPendingKey(CounterType type) {
+		return KeyPrefixConstants.COUNTER_PREFIX + type.name() + ":PENDING";
+	}
+	
+	private String buildDeltaKey(CounterType type) {
+		return KeyPrefixConstants.COUNTER_PREFIX + type.name() + ":DELTA";
+	}
+}
@@ -0,0 +1,56 @@
+package com.stephen.trajectory.manager.counter.model;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一次回写数据库的计数批次
+ *
+ * @author stephen qiu
+ */
+@Data
+public class CounterBatch implements Serializable {
+	
+	private static final long serialVersionUID = 3015278837046219311L;
+	
+	/**
+	 * 新增的关系，帖子 id => 用户 id 集合
+	 */
+	private Map<Long, Set<Long>> addMap = new HashMap<>();
+	
+	/**
+	 * 删除的关系，帖子 id => 用户 id 集合
+	 */
+	private Map<Long, Set<Long>> removeMap = new HashMap<>();
+	
+	/**
+	 * 计数增量，帖子 id => 增量（不包含增量为 0 的帖子）
+	 */
+	private Map<Long, Long> deltaMap = new HashMap<>();
+	
+	/**
+	 * 记录一条关系变更
+	 *
+	 * @param postId postId
+	 * @param userId userId
+	 * @param add    是否新增
+	 */
+	public void addChange(Long postId, Long userId, boolean add) {
+		(add ? addMap : removeMap).computeIfAbsent(postId, key -> new HashSet<>()).add(userId);
+	}
+	
+	/**
+	 * 批次是否为空
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return addMap.isEmpty() && removeMap.isEmpty() && deltaMap.isEmpty();
+	}
+	
+}
@@ -0,0 +1,35 @@
+package com.stephen.trajectory.manager.counter.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 帖子计数类型
+ *
+ * @author stephen qiu
+ */
+@Getter
+@AllArgsConstructor
+public enum CounterType {
+	
+	/**
+	 * 点赞
+	 */
+	THUMB("点赞", "thumbNum"),
+	
+	/**
+	 * 收藏
+	 */
+	FAVOUR("收藏", "favourNum");
+	
+	/**
+	 * 类型描述
+	 */
+	private final String text;
+	
+	/**
+	 * 帖子表中对应的计数字段
+	 */
+	private final String countColumn;
+	
+}
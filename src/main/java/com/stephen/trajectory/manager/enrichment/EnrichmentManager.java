@@ -0,0 +1,170 @@
+package com.stephen.trajectory.manager.enrichment;
+
+import com.stephen.trajectory.config.thread.properties.EnrichmentProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 视图填充管理器
+ * <p>
+ * 在独立的有界线程池中并发执行视图填充的各个环节，调用方按请求截止时间等待结果；
+ * 超时、失败或被拒绝的环节返回降级值（例如不填充 userVO），而不是让整页请求失败。
+ * 每个环节统计调用、超时、失败、拒绝次数以及调用方阻塞等待的耗时。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+public class EnrichmentManager {
+	
+	@Resource
+	private ThreadPoolExecutor enrichmentExecutor;
+	
+	@Resource
+	private EnrichmentProperties enrichmentProperties;
+	
+	/**
+	 * 环节名称 => 环节统计
+	 */
+	private final Map<String, StageStats> stageStatsMap = new ConcurrentHashMap<>();
+	
+	/**
+	 * 按配置的超时时间生成本次请求的截止时间
+	 *
+	 * @return 截止时间（System.nanoTime）
+	 */
+	public long newDeadline() {
+		return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(enrichmentProperties.getTimeout());
+	}
+	
+	/**
+	 * 提交填充环节，线程池拒绝时返回异常完成的 Future，由 {@link #join} 统一降级
+	 *
+	 * @param stage    环节名称
+	 * @param supplier 环节逻辑
+	 * @return {@link CompletableFuture}
+	 */
+	public <T> CompletableFuture<T> supply(String stage, Supplier<T> supplier) {
+		try {
+			return CompletableFuture.supplyAsync(supplier, enrichmentExecutor);
+		} catch (RejectedExecutionException e) {
+			getStageStats(stage).rejected.increment();
+			CompletableFuture<T> future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+			return future;
+		}
+	}
+	
+	/**
+	 * 在截止时间前等待环节结果，超时、失败时返回降级值
+	 *
+	 * @param stage    环节名称
+	 * @param future   环节结果
+	 * @param deadline 截止时间（System.nanoTime）
+	 * @param fallback 降级值
+	 * @return 环节结果或降级值
+	 */
+	public <T> T join(String stage, CompletableFuture<T> future, long deadline, T fallback) {
+		StageStats stageStats = getStageStats(stage);
+		stageStats.calls.increment();
+		long start = System.nanoTime();
+		try {
+			return future.get(Math.max(0L, deadline - start), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			stageStats.timeouts.increment();
+			future.cancel(true);
+			log.warn("视图填充超时，已降级, stage: {}", stage);
+			return fallback;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			stageStats.failures.increment();
+			return fallback;
+		} catch (ExecutionException e) {
+			if (!(e.getCause() instanceof RejectedExecutionException)) {
+				stageStats.failures.increment();
+				log.error("视图填充失败，已降级, stage: {}", stage, e.getCause());
+			}
+			return fallback;
+		} finally {
+			long blocked = System.nanoTime() - start;
+			stageStats.blockedNanos.add(blocked);
+			stageStats.maxBlockedNanos.accumulate(blocked);
+		}
+	}
+	
+	/**
+	 * 获取各环节统计快照
+	 *
+	 * @return 环节名称 => 统计指标
+	 */
+	public Map<String, Map<String, Long>> getStageMetrics() {
+		Map<String, Map<String, Long>> metrics = new LinkedHashMap<>();
+		stageStatsMap.forEach((stage, stageStats) -> metrics.put(stage, stageStats.snapshot()));
+		return metrics;
+	}
+	
+	/**
+	 * 定时输出线程池状态和各环节统计，并重置阻塞耗时最大值
+	 */
+	@Scheduled(fixedRate = 60 * 1000)
+	public void logMetrics() {
+		if (stageStatsMap.isEmpty()) {
+			return;
+		}
+		log.info("Enrichment Pool Status: ActiveThreads = {}, PoolSize = {}, QueueSize = {}, CompletedTaskCount = {}",
+				enrichmentExecutor.getActiveCount(),
+				enrichmentExecutor.getPoolSize(),
+				enrichmentExecutor.getQueue().size(),
+				enrichmentExecutor.getCompletedTaskCount());
+		stageStatsMap.forEach((stage, stageStats) -> {
+			log.info("Enrichment Stage: {} => {}", stage, stageStats.snapshot());
+			stageStats.maxBlockedNanos.reset();
+		});
+	}
+	
+	private StageStats getStageStats(String stage) {
+		return stageStatsMap.computeIfAbsent(stage, key -> new StageStats());
+	}
+	
+	/**
+	 * 单个填充环节的统计
+	 */
+	private static class StageStats {
+		
+		private final LongAdder calls = new LongAdder();
+		
+		private final LongAdder timeouts = new LongAdder();
+		
+		private final LongAdder failures = new LongAdder();
+		
+		private final LongAdder rejected = new LongAdder();
+		
+		private final LongAdder blockedNanos = new LongAdder();
+		
+		private final LongAccumulator maxBlockedNanos = new LongAccumulator(Long::max, 0L);
+		
+		private Map<String, Long> snapshot() {
+			Map<String, Long> snapshot = new LinkedHashMap<>();
+			long callCount = calls.sum();
+			long blockedMillis = TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum());
+			snapshot.put("calls", callCount);
+			snapshot.put("timeouts", timeouts.sum());
+			snapshot.put("failures", failures.sum());
+			snapshot.put("rejected", rejected.sum());
+			snapshot.put("blockedMillis", blockedMillis);
+			snapshot.put("avgBlockedMillis", callCount == 0 ? 0L : blockedMillis / callCount);
+			snapshot.put("maxBlockedMillis", TimeUnit.NANOSECONDS.toMillis(maxBlockedNanos.get()));
+			return snapshot;
+		}
+	}
+}
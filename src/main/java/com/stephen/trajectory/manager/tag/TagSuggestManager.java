@@ -0,0 +1,238 @@
+package com.stephen.trajectory.manager.tag;
+
+import cn.hutool.json.JSONUtil;
+import com.stephen.trajectory.manager.tag.model.TagSuggestIndex;
+import com.stephen.trajectory.mapper.PostTagMapper;
+import com.stephen.trajectory.mapper.TagMapper;
+import com.stephen.trajectory.model.dto.tag.TagUsageDTO;
+import com.stephen.trajectory.model.entity.Tag;
+import com.stephen.trajectory.model.vo.TagSuggestVO;
+import com.stephen.trajectory.utils.redisson.KeyPrefixConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 标签联想管理器
+ * <p>
+ * 内存中维护按规范化标签名称排序的前缀索引，联想查询只在本地索引上二分查找并按使用次数排序，不访问数据库；
+ * 标签新增、修改、删除提交后增量更新本节点索引，并通过 Redis 发布订阅通知其他节点增量更新；
+ * 标签使用次数（关联的帖子数量）和索引定时全量校准，避免广播消息丢失导致长期不一致。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+public class TagSuggestManager {
+	
+	/**
+	 * 默认返回数量
+	 */
+	public static final int DEFAULT_SIZE = 10;
+	
+	/**
+	 * 最大返回数量
+	 */
+	public static final int MAX_SIZE = 50;
+	
+	/**
+	 * 标签变更广播 Topic
+	 */
+	private static final String CHANGE_TOPIC = KeyPrefixConstants.CACHE_TOPIC_PREFIX + "TAG_SUGGEST";
+	
+	/**
+	 * 已删除标签的 isDelete 值
+	 */
+	private static final int DELETED = 1;
+	
+	@Resource
+	private TagTreeManager tagTreeManager;
+	
+	@Resource
+	private TagMapper tagMapper;
+	
+	@Resource
+	private PostTagMapper postTagMapper;
+	
+	@Resource
+	private RedissonClient redissonClient;
+	
+	/**
+	 * 当前前缀索引，首次查询时构建
+	 */
+	private final AtomicReference<TagSuggestIndex> indexRef = new AtomicReference<>();
+	
+	/**
+	 * 规范化标签名称 => 使用次数
+	 */
+	private volatile Map<String, Long> usageMap = Collections.emptyMap();
+	
+	private RTopic changeTopic;
+	
+	/**
+	 * 订阅标签变更广播，增量更新本节点索引
+	 */
+	@PostConstruct
+	public void init() {
+		changeTopic = redissonClient.getTopic(CHANGE_TOPIC, StringCodec.INSTANCE);
+		changeTopic.addListener(String.class, (channel, message) -> apply(JSONUtil.toBean(message, Tag.class)));
+	}
+	
+	/**
+	 * 按前缀联想标签，按使用次数从高到低排序
+	 *
+	 * @param keyword 输入的关键词，为空时返回最常用的标签
+	 * @param size    返回数量
+	 * @return {@link List<TagSuggestVO>}
+	 */
+	public List<TagSuggestVO> suggest(String keyword, int size) {
+		List<TagSuggestIndex.Entry> entryList = getIndex().prefixRange(TagSuggestIndex.normalize(keyword));
+		Map<String, Long> currentUsageMap = usageMap;
+		// 排序规则：使用次数多的在前，其次名称短的在前，最后按 id
+		Comparator<TagSuggestIndex.Entry> rankOrder = Comparator
+				.comparing((TagSuggestIndex.Entry entry) -> currentUsageMap.getOrDefault(entry.getKey(), 0L)).reversed()
+				.thenComparingInt(entry -> entry.getKey().length())
+				.thenComparing(TagSuggestIndex.Entry::getId);
+		// 小顶堆只保留排名最靠前的 size 个，堆顶是其中排名最靠后的
+		PriorityQueue<TagSuggestIndex.Entry> topQueue = new PriorityQueue<>(size + 1, rankOrder.reversed());
+		for (TagSuggestIndex.Entry entry : entryList) {
+			topQueue.offer(entry);
+			if (topQueue.size() > size) {
+				topQueue.poll();
+			}
+		}
+		List<TagSuggestIndex.Entry> topList = new ArrayList<>(topQueue);
+		topList.sort(rankOrder);
+		List<TagSuggestVO> tagSuggestVOList = new ArrayList<>(topList.size());
+		for (TagSuggestIndex.Entry entry : topList) {
+			TagSuggestVO tagSuggestVO = new TagSuggestVO();
+			tagSuggestVO.setId(entry.getId());
+			tagSuggestVO.setTagName(entry.getTagName());
+			tagSuggestVO.setParentId(entry.getParentId());
+			tagSuggestVO.setUsageNum(currentUsageMap.getOrDefault(entry.getKey(), 0L));
+			tagSuggestVOList.add(tagSuggestVO);
+		}
+		return tagSuggestVOList;
+	}
+	
+	/**
+	 * 标签变更后增量更新索引，处于事务中时在事务提交后更新
+	 *
+	 * @param tagId 标签 id
+	 */
+	public void syncAfterCommit(Long tagId) {
+		if (tagId == null) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					sync(tagId);
+				}
+			});
+			return;
+		}
+		sync(tagId);
+	}
+	
+	/**
+	 * 每 5 分钟全量校准一次使用次数和索引（索引尚未使用时跳过）
+	 */
+	@Scheduled(fixedRate = 5 * 60 * 1000)
+	public void rebuild() {
+		if (indexRef.get() == null) {
+			return;
+		}
+		try {
+			load();
+		} catch (Exception e) {
+			log.error("标签联想索引校准失败", e);
+		}
+	}
+	
+	/**
+	 * 获取当前索引，不存在时构建
+	 *
+	 * @return {@link TagSuggestIndex}
+	 */
+	private TagSuggestIndex getIndex() {
+		TagSuggestIndex index = indexRef.get();
+		if (index != null) {
+			return index;
+		}
+		synchronized (this) {
+			index = indexRef.get();
+			return index != null ? index : load();
+		}
+	}
+	
+	/**
+	 * 全量构建索引：标签取自标签树快照，使用次数一次分组统计帖子标签关联
+	 *
+	 * @return 新的索引
+	 */
+	private synchronized TagSuggestIndex load() {
+		long start = System.currentTimeMillis();
+		Map<String, Long> newUsageMap = new HashMap<>();
+		for (TagUsageDTO tagUsageDTO : postTagMapper.listTagUsage()) {
+			newUsageMap.merge(TagSuggestIndex.normalize(tagUsageDTO.getTagName()), tagUsageDTO.getUsageNum(), Long::sum);
+		}
+		usageMap = Collections.unmodifiableMap(newUsageMap);
+		TagSuggestIndex index = TagSuggestIndex.of(tagTreeManager.getSnapshot().getTagMap().values());
+		indexRef.set(index);
+		log.info("标签联想索引构建完成, size: {}, cost: {} ms", index.size(), System.currentTimeMillis() - start);
+		return index;
+	}
+	
+	/**
+	 * 读取标签最新数据，更新本节点索引并通知其他节点
+	 *
+	 * @param tagId 标签 id
+	 */
+	private void sync(Long tagId) {
+		Tag tag = tagMapper.selectById(tagId);
+		if (tag == null) {
+			// 标签已删除，只广播 id
+			tag = new Tag();
+			tag.setId(tagId);
+			tag.setIsDelete(DELETED);
+		}
+		apply(tag);
+		try {
+			changeTopic.publish(JSONUtil.toJsonStr(tag));
+		} catch (Exception e) {
+			// 广播失败时其他节点会在下一次定时校准中追上
+			log.error("标签变更广播失败, tagId: {}", tagId, e);
+		}
+	}
+	
+	/**
+	 * 增量更新本节点索引（索引尚未构建时跳过，首次构建会读取最新数据）
+	 *
+	 * @param tag 变更后的标签，isDelete 为 1 表示已删除
+	 */
+	private void apply(Tag tag) {
+		if (tag == null || tag.getId() == null) {
+			return;
+		}
+		boolean deleted = Objects.equals(tag.getIsDelete(), DELETED);
+		indexRef.updateAndGet(index -> {
+			if (index == null) {
+				return null;
+			}
+			return deleted ? index.remove(tag.getId()) : index.put(tag);
+		});
+	}
+}
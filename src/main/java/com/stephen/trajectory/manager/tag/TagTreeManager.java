@@ -0,0 +1,150 @@
+package com.stephen.trajectory.manager.tag;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stephen.trajectory.common.ErrorCode;
+import com.stephen.trajectory.common.ResultUtils;
+import com.stephen.trajectory.common.exception.BusinessException;
+import com.stephen.trajectory.manager.cache.CacheVersionManager;
+import com.stephen.trajectory.manager.tag.model.TagTreeSnapshot;
+import com.stephen.trajectory.mapper.TagMapper;
+import com.stephen.trajectory.model.dto.tag.TagDTO;
+import com.stephen.trajectory.model.entity.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 标签树管理器
+ * <p>
+ * 内存中保存不可变的标签树快照（本地一级缓存），读请求直接读取快照和预先序列化好的响应体；
+ * 快照携带构建时的缓存版本号，标签变更提交后递增 Redis 中的版本号并通过发布订阅广播到所有节点，
+ * 各节点读取时发现本地版本号比快照新，就一次查询全部标签重新构建并原子替换。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+public class TagTreeManager {
+	
+	/**
+	 * 缓存区域
+	 */
+	public static final String REGION = "tagTree";
+	
+	@Resource
+	private TagMapper tagMapper;
+	
+	@Resource
+	private CacheVersionManager cacheVersionManager;
+	
+	@Resource
+	private ObjectMapper objectMapper;
+	
+	/**
+	 * 当前标签树快照
+	 */
+	private final AtomicReference<TagTreeSnapshot> snapshotRef = new AtomicReference<>();
+	
+	/**
+	 * 获取当前标签树快照，快照不存在或版本落后时重新构建
+	 *
+	 * @return {@link TagTreeSnapshot}
+	 */
+	public TagTreeSnapshot getSnapshot() {
+		long version = currentVersion();
+		TagTreeSnapshot snapshot = snapshotRef.get();
+		if (snapshot != null && snapshot.getVersion() >= version) {
+			return snapshot;
+		}
+		return refresh(version);
+	}
+	
+	/**
+	 * 标签变更后失效所有节点的标签树快照，处于事务中时在事务提交后失效
+	 */
+	public void evictAfterCommit() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					evict();
+				}
+			});
+			return;
+		}
+		evict();
+	}
+	
+	/**
+	 * 递增缓存版本号，本节点和其他节点在下一次读取时重新构建快照
+	 */
+	private void evict() {
+		try {
+			cacheVersionManager.bumpVersion(REGION);
+		} catch (Exception e) {
+			log.error("标签树缓存失效失败, region: {}", REGION, e);
+			// 版本号递增失败时至少保证本节点读到最新数据
+			snapshotRef.set(null);
+		}
+	}
+	
+	/**
+	 * 重新构建标签树快照并原子替换，同一时间只有一个线程构建，其余线程直接使用构建结果
+	 *
+	 * @param version 构建前读取的缓存版本号
+	 * @return 新的快照
+	 */
+	private synchronized TagTreeSnapshot refresh(long version) {
+		TagTreeSnapshot snapshot = snapshotRef.get();
+		if (snapshot != null && snapshot.getVersion() >= version) {
+			return snapshot;
+		}
+		long start = System.currentTimeMillis();
+		// 一次查询全部未删除的标签
+		QueryWrapper<Tag> queryWrapper = new QueryWrapper<>();
+		queryWrapper.select("id", "tagName", "parentId");
+		queryWrapper.orderByAsc("id");
+		List<Tag> tagList = tagMapper.selectList(queryWrapper);
+		snapshot = TagTreeSnapshot.of(tagList, version, this::serialize);
+		snapshotRef.set(snapshot);
+		log.info("标签树快照构建完成, version: {}, size: {}, cost: {} ms", version, tagList.size(), System.currentTimeMillis() - start);
+		return snapshot;
+	}
+	
+	/**
+	 * 读取当前缓存版本号（通常只读取本地版本号），Redis 异常时沿用已有快照
+	 *
+	 * @return 缓存版本号
+	 */
+	private long currentVersion() {
+		try {
+			return cacheVersionManager.getVersion(REGION);
+		} catch (Exception e) {
+			log.error("读取标签树缓存版本失败, region: {}", REGION, e);
+			return Long.MIN_VALUE;
+		}
+	}
+	
+	/**
+	 * 将标签树序列化为接口响应体
+	 *
+	 * @param tree 标签树
+	 * @return 响应体
+	 */
+	private byte[] serialize(List<TagDTO> tree) {
+		try {
+			return objectMapper.writeValueAsBytes(ResultUtils.success(tree));
+		} catch (JsonProcessingException e) {
+			log.error("标签树序列化失败", e);
+			throw new BusinessException(ErrorCode.SYSTEM_ERROR, "标签树序列化失败");
+		}
+	}
+}
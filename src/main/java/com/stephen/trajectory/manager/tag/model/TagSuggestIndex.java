@@ -0,0 +1,201 @@
+package com.stephen.trajectory.manager.tag.model;
+
+import com.stephen.trajectory.model.entity.Tag;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * 标签联想前缀索引（不可变）
+ * <p>
+ * 按规范化后的标签名称排序的有序数组，前缀查询时二分查找前缀的下界，再向后顺序扫描到前缀不匹配为止；
+ * 新增、修改、删除标签时复制出一个新的索引（写少读多），读线程无需加锁。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+public class TagSuggestIndex {
+	
+	/**
+	 * 按 规范化名称、id 排序的索引项
+	 */
+	private final List<Entry> entryList;
+	
+	/**
+	 * 标签 id => 索引项
+	 */
+	private final Map<Long, Entry> entryMap;
+	
+	private TagSuggestIndex(List<Entry> entryList, Map<Long, Entry> entryMap) {
+		this.entryList = entryList;
+		this.entryMap = entryMap;
+	}
+	
+	/**
+	 * 由全部标签构建索引
+	 *
+	 * @param tagList 全部未删除的标签
+	 * @return {@link TagSuggestIndex}
+	 */
+	public static TagSuggestIndex of(Collection<Tag> tagList) {
+		Map<Long, Entry> entryMap = new HashMap<>(tagList.size() * 2);
+		for (Tag tag : tagList) {
+			Entry entry = Entry.of(tag);
+			if (entry != null) {
+				entryMap.put(entry.getId(), entry);
+			}
+		}
+		List<Entry> entryList = new ArrayList<>(entryMap.values());
+		entryList.sort(Entry.ORDER);
+		return new TagSuggestIndex(Collections.unmodifiableList(entryList), Collections.unmodifiableMap(entryMap));
+	}
+	
+	/**
+	 * 获取空索引
+	 *
+	 * @return {@link TagSuggestIndex}
+	 */
+	public static TagSuggestIndex empty() {
+		return new TagSuggestIndex(Collections.emptyList(), Collections.emptyMap());
+	}
+	
+	/**
+	 * 新增或修改标签，返回新的索引
+	 *
+	 * @param tag 标签
+	 * @return {@link TagSuggestIndex}
+	 */
+	public TagSuggestIndex put(Tag tag) {
+		Entry entry = Entry.of(tag);
+		if (entry == null) {
+			return this;
+		}
+		List<Entry> newEntryList = new ArrayList<>(entryList);
+		Map<Long, Entry> newEntryMap = new HashMap<>(entryMap);
+		Entry oldEntry = newEntryMap.put(entry.getId(), entry);
+		if (oldEntry != null) {
+			newEntryList.remove(Collections.binarySearch(newEntryList, oldEntry, Entry.ORDER));
+		}
+		// 二分查找插入位置，保持有序
+		int index = Collections.binarySearch(newEntryList, entry, Entry.ORDER);
+		newEntryList.add(index < 0 ? -index - 1 : index, entry);
+		return new TagSuggestIndex(Collections.unmodifiableList(newEntryList), Collections.unmodifiableMap(newEntryMap));
+	}
+	
+	/**
+	 * 删除标签，返回新的索引
+	 *
+	 * @param tagId 标签 id
+	 * @return {@link TagSuggestIndex}
+	 */
+	public TagSuggestIndex remove(Long tagId) {
+		Entry oldEntry = entryMap.get(tagId);
+		if (oldEntry == null) {
+			return this;
+		}
+		List<Entry> newEntryList = new ArrayList<>(entryList);
+		Map<Long, Entry> newEntryMap = new HashMap<>(entryMap);
+		newEntryMap.remove(tagId);
+		newEntryList.remove(Collections.binarySearch(newEntryList, oldEntry, Entry.ORDER));
+		return new TagSuggestIndex(Collections.unmodifiableList(newEntryList), Collections.unmodifiableMap(newEntryMap));
+	}
+	
+	/**
+	 * 查询规范化名称以指定前缀开头的全部索引项
+	 *
+	 * @param prefix 前缀（已规范化），为空时返回全部索引项
+	 * @return 索引项列表（只读视图）
+	 */
+	public List<Entry> prefixRange(String prefix) {
+		if (StringUtils.isEmpty(prefix)) {
+			return entryList;
+		}
+		// 二分查找第一个不小于前缀的位置
+		int low = 0;
+		int high = entryList.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (entryList.get(mid).getKey().compareTo(prefix) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		int end = low;
+		while (end < entryList.size() && entryList.get(end).getKey().startsWith(prefix)) {
+			end++;
+		}
+		return entryList.subList(low, end);
+	}
+	
+	/**
+	 * 索引中的标签数量
+	 *
+	 * @return 标签数量
+	 */
+	public int size() {
+		return entryList.size();
+	}
+	
+	/**
+	 * 规范化标签名称：全角转半角、去除首尾空白并转为小写
+	 *
+	 * @param text 原始文本
+	 * @return 规范化后的文本
+	 */
+	public static String normalize(String text) {
+		if (text == null) {
+			return "";
+		}
+		return Normalizer.normalize(text, Normalizer.Form.NFKC).trim().toLowerCase(Locale.ROOT);
+	}
+	
+	/**
+	 * 索引项
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class Entry {
+		
+		/**
+		 * 排序规则：规范化名称，名称相同按 id
+		 */
+		private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::getKey).thenComparing(Entry::getId);
+		
+		/**
+		 * 规范化后的标签名称
+		 */
+		private final String key;
+		
+		/**
+		 * 标签 id
+		 */
+		private final Long id;
+		
+		/**
+		 * 标签名称
+		 */
+		private final String tagName;
+		
+		/**
+		 * 父标签 id
+		 */
+		private final Long parentId;
+		
+		/**
+		 * 由标签构建索引项
+		 *
+		 * @param tag 标签
+		 * @return 索引项，标签 id 或名称为空时返回 null
+		 */
+		private static Entry of(Tag tag) {
+			if (tag == null || tag.getId() == null || StringUtils.isBlank(tag.getTagName())) {
+				return null;
+			}
+			return new Entry(normalize(tag.getTagName()), tag.getId(), tag.getTagName(), tag.getParentId());
+		}
+	}
+}
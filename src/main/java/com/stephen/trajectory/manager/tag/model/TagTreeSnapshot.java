@@ -0,0 +1,134 @@
+package com.stephen.trajectory.manager.tag.model;
+
+import com.stephen.trajectory.model.dto.tag.TagDTO;
+import com.stephen.trajectory.model.entity.Tag;
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 标签树快照（不可变）
+ * <p>
+ * 由一次查询出的全部标签在 O(n) 时间内构建：先建立 父标签 id => 子标签列表 的映射，再从根标签展开成树；
+ * 构建完成后不再修改，读线程无需加锁，标签变更时整体替换为新快照。
+ * 快照同时保存构建时的缓存版本号和预先序列化好的响应体，接口直接输出字节，无需每次序列化。
+ * 树节点对象和响应体会被所有请求共享，调用方不能修改。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Getter
+public class TagTreeSnapshot {
+	
+	/**
+	 * 标签 id => 标签
+	 */
+	private final Map<Long, Tag> tagMap;
+	
+	/**
+	 * 父标签 id => 子标签 id 列表
+	 */
+	private final Map<Long, List<Long>> childrenMap;
+	
+	/**
+	 * 标签树（根标签列表）
+	 */
+	private final List<TagDTO> tree;
+	
+	/**
+	 * 构建快照时的缓存版本号
+	 */
+	private final long version;
+	
+	/**
+	 * 预先序列化的响应体
+	 */
+	private final byte[] responseBody;
+	
+	/**
+	 * 响应体的 ETag（响应体的 MD5 值）
+	 */
+	private final String eTag;
+	
+	private TagTreeSnapshot(Map<Long, Tag> tagMap, Map<Long, List<Long>> childrenMap, List<TagDTO> tree,
+	                        long version, byte[] responseBody, String eTag) {
+		this.tagMap = tagMap;
+		this.childrenMap = childrenMap;
+		this.tree = tree;
+		this.version = version;
+		this.responseBody = responseBody;
+		this.eTag = eTag;
+	}
+	
+	/**
+	 * 由全部标签构建快照
+	 *
+	 * @param tagList    全部未删除的标签，按 id 正序
+	 * @param version    构建前读取的缓存版本号
+	 * @param serializer 将标签树序列化为响应体
+	 * @return {@link TagTreeSnapshot}
+	 */
+	public static TagTreeSnapshot of(List<Tag> tagList, long version, Function<List<TagDTO>, byte[]> serializer) {
+		Map<Long, Tag> tagMap = new LinkedHashMap<>();
+		Map<Long, List<Long>> childrenMap = new HashMap<>();
+		List<Long> rootIdList = new ArrayList<>();
+		// 一次遍历建立 id => 标签、父标签 id => 子标签 id 列表
+		for (Tag tag : tagList) {
+			if (tag.getId() == null) {
+				continue;
+			}
+			tagMap.put(tag.getId(), tag);
+			if (tag.getParentId() == null) {
+				rootIdList.add(tag.getId());
+			} else {
+				childrenMap.computeIfAbsent(tag.getParentId(), key -> new ArrayList<>()).add(tag.getId());
+			}
+		}
+		// 从根标签展开，每个标签只访问一次
+		List<TagDTO> tree = new ArrayList<>();
+		for (Long rootId : rootIdList) {
+			Tag root = tagMap.get(rootId);
+			TagDTO tagDTO = new TagDTO();
+			tagDTO.setId(root.getId());
+			tagDTO.setTagName(root.getTagName());
+			tagDTO.setChildren(buildChildren(rootId, tagMap, childrenMap));
+			tree.add(tagDTO);
+		}
+		Map<Long, List<Long>> immutableChildrenMap = new HashMap<>();
+		childrenMap.forEach((parentId, childIdList) -> immutableChildrenMap.put(parentId, Collections.unmodifiableList(childIdList)));
+		List<TagDTO> immutableTree = Collections.unmodifiableList(tree);
+		byte[] responseBody = serializer.apply(immutableTree);
+		return new TagTreeSnapshot(Collections.unmodifiableMap(tagMap), Collections.unmodifiableMap(immutableChildrenMap),
+				immutableTree, version, responseBody, DigestUtils.md5DigestAsHex(responseBody));
+	}
+	
+	/**
+	 * 获取标签的子树
+	 *
+	 * @param tagId 标签 id
+	 * @return 子标签列表，标签不存在或没有子标签时返回空列表
+	 */
+	public List<TagDTO.TagChildren> getChildren(Long tagId) {
+		return buildChildren(tagId, tagMap, childrenMap);
+	}
+	
+	/**
+	 * 递归构建子标签列表
+	 *
+	 * @param parentId    父标签 id
+	 * @param tagMap      标签 id => 标签
+	 * @param childrenMap 父标签 id => 子标签 id 列表
+	 * @return 子标签列表
+	 */
+	private static List<TagDTO.TagChildren> buildChildren(Long parentId, Map<Long, Tag> tagMap, Map<Long, List<Long>> childrenMap) {
+		List<Long> childIdList = childrenMap.getOrDefault(parentId, Collections.emptyList());
+		List<TagDTO.TagChildren> children = new ArrayList<>(childIdList.size());
+		for (Long childId : childIdList) {
+			Tag child = tagMap.get(childId);
+			children.add(new TagDTO.TagChildren(child.getId(), child.getTagName(), buildChildren(childId, tagMap, childrenMap)));
+		}
+		return children;
+	}
+}
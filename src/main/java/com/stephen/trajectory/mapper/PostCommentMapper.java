@@ -1,7 +1,12 @@
 package com.stephen.trajectory.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.stephen.trajectory.model.dto.postComment.PostCommentReplyCountDTO;
 import com.stephen.trajectory.model.entity.PostComment;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * @author stephen qiu
@@ -10,9 +15,37 @@ import com.stephen.trajectory.model.entity.PostComment;
  * @Entity com.stephen.trajectory.model.entity.PostComment
  */
 public interface PostCommentMapper extends BaseMapper<PostComment> {
-
+	
+	/**
+	 * 一次查询每个根评论最早的 N 条回复（窗口函数按根评论分组编号）
+	 *
+	 * @param rootIdList 根评论 id 列表
+	 * @param replySize  每个根评论返回的回复数量
+	 * @return {@link List<PostComment>} 按根评论、(createTime, id) 正序排列
+	 */
+	List<PostComment> listTopReplies(@Param("rootIdList") Collection<Long> rootIdList, @Param("replySize") int replySize);
+	
+	/**
+	 * 按根评论分组统计回复数量
+	 *
+	 * @param rootIdList 根评论 id 列表
+	 * @return {@link List<PostCommentReplyCountDTO>}（没有回复的根评论不在结果中）
+	 */
+	List<PostCommentReplyCountDTO> listReplyCount(@Param("rootIdList") Collection<Long> rootIdList);
+	
+	/**
+	 * 查询已存在的评论 id（包括已被删除的数据）
+	 *
+	 * @param idList 评论 id 列表
+	 * @return 已存在的评论 id
+	 */
+	List<Long> listExistingIds(@Param("idList") Collection<Long> idList);
+	
+	/**
+	 * 一条语句批量插入评论，主键已存在时忽略
+	 *
+	 * @param postCommentList 评论列表（需要包含 id）
+	 * @return 影响行数
+	 */
+	int insertIgnoreBatch(@Param("postCommentList") Collection<PostComment> postCommentList);
 }
-
-
-
-
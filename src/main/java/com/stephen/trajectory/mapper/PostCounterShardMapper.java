@@ -0,0 +1,45 @@
+package com.stephen.trajectory.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.stephen.trajectory.model.entity.PostCounterShard;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 帖子计数分片数据库操作
+ *
+ * @author stephen qiu
+ */
+public interface PostCounterShardMapper extends BaseMapper<PostCounterShard> {
+	
+	/**
+	 * 累加分片计数，分片不存在时插入
+	 *
+	 * @param postId    postId
+	 * @param slot      分片序号
+	 * @param thumbNum  点赞数增量
+	 * @param favourNum 收藏数增量
+	 * @return 影响行数
+	 */
+	int increment(@Param("postId") long postId, @Param("slot") int slot,
+	              @Param("thumbNum") long thumbNum, @Param("favourNum") long favourNum);
+	
+	/**
+	 * 按帖子汇总未合并的分片计数
+	 *
+	 * @param postIdList 帖子 id 列表
+	 * @return {@link List<PostCounterShard>} 每个帖子一条，只填充 postId、thumbNum、favourNum
+	 */
+	List<PostCounterShard> sumByPostIds(@Param("postIdList") Collection<Long> postIdList);
+	
+	/**
+	 * 锁定并汇总帖子的分片计数
+	 *
+	 * @param postId postId
+	 * @return {@link PostCounterShard} 只填充 thumbNum、favourNum
+	 */
+	PostCounterShard sumForUpdate(@Param("postId") long postId);
+	
+}
@@ -9,6 +9,8 @@ import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.entity.PostFavour;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
+
 /**
  * 帖子收藏数据库操作
  *
@@ -27,8 +29,21 @@ public interface PostFavourMapper extends BaseMapper<PostFavour> {
 	Page<Post> listFavourPostByPage(IPage<Post> page, @Param(Constants.WRAPPER) Wrapper<Post> queryWrapper,
 	                                long favourUserId);
 	
+	/**
+	 * 不存在时插入收藏关系（依赖唯一索引 (postId, userId)）
+	 *
+	 * @param postId postId
+	 * @param userId userId
+	 * @return 影响行数，已存在时为 0
+	 */
+	int insertIgnore(@Param("postId") long postId, @Param("userId") long userId);
+	
+	/**
+	 * 批量插入同一帖子的收藏关系，已存在的关系忽略
+	 *
+	 * @param postId     postId
+	 * @param userIdList 用户 id 列表
+	 * @return 实际插入的行数
+	 */
+	int insertIgnoreBatch(@Param("postId") long postId, @Param("userIdList") Collection<Long> userIdList);
 }
-
-
-
-
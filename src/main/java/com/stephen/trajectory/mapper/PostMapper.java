@@ -1,10 +1,15 @@
 package com.stephen.trajectory.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.stephen.trajectory.model.dto.post.PostEngagementCountDTO;
+import com.stephen.trajectory.model.dto.post.PostViewerStateDTO;
 import com.stephen.trajectory.model.entity.Post;
+import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子数据库操作
@@ -18,8 +23,37 @@ public interface PostMapper extends BaseMapper<Post> {
 	 */
 	List<Post> listPostWithDelete(Date minUpdateTime);
 	
+	/**
+	 * 一次查询用户对一批帖子的点赞、收藏状态（只返回点赞或收藏过的帖子）
+	 *
+	 * @param userId     用户 id
+	 * @param postIdList 帖子 id 列表
+	 * @return {@link List<PostViewerStateDTO>}
+	 */
+	List<PostViewerStateDTO> listViewerState(@Param("userId") long userId, @Param("postIdList") Collection<Long> postIdList);
+	
+	/**
+	 * 一条语句按帖子批量增减计数，计数不会小于 0
+	 *
+	 * @param countColumn 计数字段（thumbNum / favourNum / commentNum）
+	 * @param deltaMap    帖子 id => 增量
+	 * @return 影响行数
+	 */
+	int updateCountBatch(@Param("countColumn") String countColumn, @Param("deltaMap") Map<Long, Long> deltaMap);
+	
+	/**
+	 * 按帖子分组统计点赞、收藏记录数（一次数据库往返）
+	 *
+	 * @param postIdList 帖子 id 列表
+	 * @return {@link List<PostEngagementCountDTO>}（没有点赞、收藏记录的帖子不在结果中）
+	 */
+	List<PostEngagementCountDTO> listEngagementCount(@Param("postIdList") Collection<Long> postIdList);
+	
+	/**
+	 * 锁定帖子并查询点赞、收藏数
+	 *
+	 * @param postIdList 帖子 id 列表
+	 * @return {@link List<Post>}（只包含 id、thumbNum、favourNum）
+	 */
+	List<Post> listCountForUpdate(@Param("postIdList") Collection<Long> postIdList);
 }
-
-
-
-
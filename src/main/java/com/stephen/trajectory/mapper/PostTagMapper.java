@@ -0,0 +1,22 @@
+package com.stephen.trajectory.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.stephen.trajectory.model.dto.tag.TagUsageDTO;
+import com.stephen.trajectory.model.entity.PostTag;
+
+import java.util.List;
+
+/**
+ * 帖子标签关联数据库操作
+ *
+ * @author stephen qiu
+ */
+public interface PostTagMapper extends BaseMapper<PostTag> {
+	
+	/**
+	 * 按标签名称分组统计标签使用次数
+	 *
+	 * @return {@link List<TagUsageDTO>}
+	 */
+	List<TagUsageDTO> listTagUsage();
+}
@@ -9,6 +9,8 @@ import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.entity.PostThumb;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
+
 /**
  * 帖子点赞数据库操作
  *
@@ -26,8 +28,22 @@ public interface PostThumbMapper extends BaseMapper<PostThumb> {
 	 */
 	Page<Post> listThumbPostByPage(IPage<Post> page, @Param(Constants.WRAPPER) Wrapper<Post> queryWrapper,
 	                               long thumbUserId);
+	
+	/**
+	 * 不存在时插入点赞关系（依赖唯一索引 (postId, userId)）
+	 *
+	 * @param postId postId
+	 * @param userId userId
+	 * @return 影响行数，已存在时为 0
+	 */
+	int insertIgnore(@Param("postId") long postId, @Param("userId") long userId);
+	
+	/**
+	 * 批量插入同一帖子的点赞关系，已存在的关系忽略
+	 *
+	 * @param postId     postId
+	 * @param userIdList 用户 id 列表
+	 * @return 实际插入的行数
+	 */
+	int insertIgnoreBatch(@Param("postId") long postId, @Param("userIdList") Collection<Long> userIdList);
 }
-
-
-
-
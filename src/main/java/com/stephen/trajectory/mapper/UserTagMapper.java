@@ -0,0 +1,13 @@
+package com.stephen.trajectory.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.stephen.trajectory.model.entity.UserTag;
+
+/**
+ * 用户标签关联数据库操作
+ *
+ * @author stephen qiu
+ */
+public interface UserTagMapper extends BaseMapper<UserTag> {
+	
+}
@@ -0,0 +1,32 @@
+package com.stephen.trajectory.model.dto.post;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 帖子点赞、收藏计数
+ *
+ * @author stephen qiu
+ */
+@Data
+public class PostEngagementCountDTO implements Serializable {
+	
+	private static final long serialVersionUID = 5816427734290458732L;
+	
+	/**
+	 * 帖子 id
+	 */
+	private Long postId;
+	
+	/**
+	 * 点赞数
+	 */
+	private Long thumbNum;
+	
+	/**
+	 * 收藏数
+	 */
+	private Long favourNum;
+	
+}
@@ -61,5 +61,10 @@ public class PostQueryRequest extends PageRequest implements Serializable {
 	 */
 	private Long favourUserId;
 	
+	/**
+	 * 游标（上一页返回的 nextCursor，为空时查询第一页，仅游标分页接口使用）
+	 */
+	private String cursor;
+	
 	private static final long serialVersionUID = 1L;
 }
\ No newline at end of file
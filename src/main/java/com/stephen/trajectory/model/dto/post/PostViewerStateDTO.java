@@ -0,0 +1,32 @@
+package com.stephen.trajectory.model.dto.post;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 当前用户对帖子的点赞、收藏状态
+ *
+ * @author stephen qiu
+ */
+@Data
+public class PostViewerStateDTO implements Serializable {
+	
+	private static final long serialVersionUID = -3478027625120853187L;
+	
+	/**
+	 * 帖子 id
+	 */
+	private Long postId;
+	
+	/**
+	 * 是否已点赞
+	 */
+	private Boolean hasThumb;
+	
+	/**
+	 * 是否已收藏
+	 */
+	private Boolean hasFavour;
+	
+}
@@ -42,5 +42,10 @@ public class PostCommentAddRequest implements Serializable {
 	 */
 	private Long toCommentId;
 	
+	/**
+	 * 客户端消息id（重试时保持不变，用于去重）
+	 */
+	private String clientMsgId;
+	
 	private static final long serialVersionUID = 1L;
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.stephen.trajectory.model.dto.postComment;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 根评论的回复数量
+ *
+ * @author stephen qiu
+ */
+@Data
+public class PostCommentReplyCountDTO implements Serializable {
+	
+	private static final long serialVersionUID = -6902173185640296619L;
+	
+	/**
+	 * 根评论 id
+	 */
+	private Long rootId;
+	
+	/**
+	 * 回复数量
+	 */
+	private Long replyCount;
+	
+}
@@ -0,0 +1,29 @@
+package com.stephen.trajectory.model.dto.postComment;
+
+import com.stephen.trajectory.common.PageRequest;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+
+/**
+ * 查询帖子评论楼层请求
+ *
+ * @author stephen qiu
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class PostCommentThreadQueryRequest extends PageRequest implements Serializable {
+	
+	/**
+	 * 帖子id
+	 */
+	private Long postId;
+	
+	/**
+	 * 每个根评论返回的回复数量
+	 */
+	private Integer replySize = 3;
+	
+	private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,41 @@
+package com.stephen.trajectory.model.dto.postFavour;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量收藏 / 取消收藏请求
+ *
+ * @author stephen qiu
+ */
+@Data
+public class PostFavourBatchRequest implements Serializable {
+	
+	/**
+	 * 收藏操作列表（按客户端发生顺序，同一帖子以最后一次操作为准）
+	 */
+	private List<PostFavourAction> actionList;
+	
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * 单个收藏操作
+	 */
+	@Data
+	public static class PostFavourAction implements Serializable {
+		
+		/**
+		 * 帖子 id
+		 */
+		private Long postId;
+		
+		/**
+		 * true 表示收藏，false 表示取消收藏，不能为空
+		 */
+		private Boolean favour;
+		
+		private static final long serialVersionUID = 1L;
+	}
+}
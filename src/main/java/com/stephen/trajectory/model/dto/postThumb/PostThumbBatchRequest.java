@@ -0,0 +1,41 @@
+package com.stephen.trajectory.model.dto.postThumb;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量点赞 / 取消点赞请求
+ *
+ * @author stephen qiu
+ */
+@Data
+public class PostThumbBatchRequest implements Serializable {
+	
+	/**
+	 * 点赞操作列表（按客户端发生顺序，同一帖子以最后一次操作为准）
+	 */
+	private List<PostThumbAction> actionList;
+	
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * 单个点赞操作
+	 */
+	@Data
+	public static class PostThumbAction implements Serializable {
+		
+		/**
+		 * 帖子 id
+		 */
+		private Long postId;
+		
+		/**
+		 * true 表示点赞，false 表示取消点赞，不能为空
+		 */
+		private Boolean thumb;
+		
+		private static final long serialVersionUID = 1L;
+	}
+}
@@ -0,0 +1,27 @@
+package com.stephen.trajectory.model.dto.tag;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 标签使用次数
+ *
+ * @author stephen qiu
+ */
+@Data
+public class TagUsageDTO implements Serializable {
+	
+	private static final long serialVersionUID = 3177920480521462381L;
+	
+	/**
+	 * 标签名称
+	 */
+	private String tagName;
+	
+	/**
+	 * 使用次数（关联的帖子数量）
+	 */
+	private Long usageNum;
+	
+}
@@ -0,0 +1,54 @@
+package com.stephen.trajectory.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 帖子计数分片
+ *
+ * @author stephen qiu
+ */
+@TableName(value = "post_counter_shard")
+@Data
+public class PostCounterShard implements Serializable {
+	
+	/**
+	 * id
+	 */
+	@TableId(type = IdType.AUTO)
+	private Long id;
+	
+	/**
+	 * 帖子 id
+	 */
+	private Long postId;
+	
+	/**
+	 * 分片序号
+	 */
+	private Integer slot;
+	
+	/**
+	 * 未合并的点赞数增量
+	 */
+	private Long thumbNum;
+	
+	/**
+	 * 未合并的收藏数增量
+	 */
+	private Long favourNum;
+	
+	/**
+	 * 更新时间
+	 */
+	private Date updateTime;
+	
+	@TableField(exist = false)
+	private static final long serialVersionUID = 1L;
+}
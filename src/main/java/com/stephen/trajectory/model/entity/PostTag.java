@@ -0,0 +1,44 @@
+package com.stephen.trajectory.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 帖子标签关联
+ *
+ * @author stephen qiu
+ */
+@TableName(value = "post_tag")
+@Data
+public class PostTag implements Serializable {
+	
+	/**
+	 * id
+	 */
+	@TableId(type = IdType.AUTO)
+	private Long id;
+	
+	/**
+	 * 帖子 id
+	 */
+	private Long postId;
+	
+	/**
+	 * 标签名称
+	 */
+	private String tagName;
+	
+	/**
+	 * 创建时间
+	 */
+	private Date createTime;
+	
+	@TableField(exist = false)
+	private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,44 @@
+package com.stephen.trajectory.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 用户标签关联
+ *
+ * @author stephen qiu
+ */
+@TableName(value = "user_tag")
+@Data
+public class UserTag implements Serializable {
+	
+	/**
+	 * id
+	 */
+	@TableId(type = IdType.AUTO)
+	private Long id;
+	
+	/**
+	 * 用户 id
+	 */
+	private Long userId;
+	
+	/**
+	 * 标签名称
+	 */
+	private String tagName;
+	
+	/**
+	 * 创建时间
+	 */
+	private Date createTime;
+	
+	@TableField(exist = false)
+	private static final long serialVersionUID = 1L;
+}
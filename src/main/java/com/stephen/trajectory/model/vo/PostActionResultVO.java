@@ -0,0 +1,36 @@
+package com.stephen.trajectory.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 帖子批量点赞、收藏的单项结果
+ *
+ * @author stephen qiu
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostActionResultVO implements Serializable {
+	
+	private static final long serialVersionUID = 6237491502381137352L;
+	
+	/**
+	 * 帖子 id
+	 */
+	private Long postId;
+	
+	/**
+	 * 本次变化数：1 新增，-1 取消，0 未变化
+	 */
+	private Integer result;
+	
+	/**
+	 * 未生效的原因
+	 */
+	private String message;
+	
+}
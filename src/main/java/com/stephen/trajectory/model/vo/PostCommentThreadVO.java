@@ -0,0 +1,33 @@
+package com.stephen.trajectory.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 帖子评论楼层视图（根评论及其最早的若干条回复）
+ *
+ * @author stephen qiu
+ */
+@Data
+public class PostCommentThreadVO implements Serializable {
+	
+	private static final long serialVersionUID = 2958176403319722851L;
+	
+	/**
+	 * 根评论
+	 */
+	private PostCommentVO rootComment;
+	
+	/**
+	 * 最早的若干条回复
+	 */
+	private List<PostCommentVO> replyList;
+	
+	/**
+	 * 回复总数
+	 */
+	private Long replyCount;
+	
+}
@@ -51,6 +51,11 @@ public class PostVO implements Serializable {
 	 */
 	private Integer favourNum;
 	
+	/**
+	 * 评论数
+	 */
+	private Integer commentNum;
+	
 	/**
 	 * 创建用户 id
 	 */
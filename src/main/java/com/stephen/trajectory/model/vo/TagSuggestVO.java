@@ -0,0 +1,37 @@
+package com.stephen.trajectory.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 标签联想视图
+ *
+ * @author stephen qiu
+ */
+@Data
+public class TagSuggestVO implements Serializable {
+	
+	private static final long serialVersionUID = -4261980571390214657L;
+	
+	/**
+	 * id
+	 */
+	private Long id;
+	
+	/**
+	 * 标签名称
+	 */
+	private String tagName;
+	
+	/**
+	 * 父标签id
+	 */
+	private Long parentId;
+	
+	/**
+	 * 使用次数
+	 */
+	private Long usageNum;
+	
+}
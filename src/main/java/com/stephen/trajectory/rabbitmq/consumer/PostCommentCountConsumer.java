@@ -0,0 +1,88 @@
+package com.stephen.trajectory.rabbitmq.consumer;
+
+import cn.hutool.json.JSONUtil;
+import com.rabbitmq.client.Channel;
+import com.stephen.trajectory.config.rabbitmq.condition.RabbitMqCondition;
+import com.stephen.trajectory.manager.cache.EntityCacheManager;
+import com.stephen.trajectory.manager.cache.PostListCacheManager;
+import com.stephen.trajectory.mapper.PostMapper;
+import com.stephen.trajectory.rabbitmq.consumer.model.PostCommentCountMessage;
+import com.stephen.trajectory.rabbitmq.consumer.model.RabbitMessage;
+import com.stephen.trajectory.rabbitmq.customizeMq.PostCommentCountRabbitMq;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 帖子评论数变更消息消费者
+ * <p>
+ * 批量拉取评论新增、删除消息，按帖子合并增量后一条语句更新评论数，整批确认；
+ * 更新失败时整批重新入队，无法解析的消息直接丢弃。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RabbitMqCondition.class)
+public class PostCommentCountConsumer {
+	
+	@Resource
+	private PostMapper postMapper;
+	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	@Resource
+	private PostListCacheManager postListCacheManager;
+	
+	/**
+	 * 批量处理帖子评论数变更消息
+	 *
+	 * @param messageList 一批消息
+	 * @param channel     RabbitMQ 通道
+	 * @throws IOException 抛出异常
+	 */
+	@RabbitListener(queues = PostCommentCountRabbitMq.QUEUE_NAME, containerFactory = "batchRabbitListenerContainerFactory")
+	public void consume(List<Message> messageList, Channel channel) throws IOException {
+		if (messageList.isEmpty()) {
+			return;
+		}
+		long lastTag = messageList.get(messageList.size() - 1).getMessageProperties().getDeliveryTag();
+		// 按帖子合并增量
+		Map<Long, Long> deltaMap = new HashMap<>();
+		messageList.forEach(message -> {
+			try {
+				RabbitMessage rabbitMessage = JSONUtil.toBean(new String(message.getBody(), StandardCharsets.UTF_8), RabbitMessage.class);
+				PostCommentCountMessage countMessage = JSONUtil.toBean(rabbitMessage.getMsgText(), PostCommentCountMessage.class);
+				if (countMessage.getPostId() != null && countMessage.getDelta() != null) {
+					deltaMap.merge(countMessage.getPostId(), countMessage.getDelta(), Long::sum);
+				}
+			} catch (Exception e) {
+				log.error("无效的帖子评论数消息，已丢弃: {}", new String(message.getBody(), StandardCharsets.UTF_8), e);
+			}
+		});
+		deltaMap.values().removeIf(delta -> delta == 0);
+		try {
+			if (!deltaMap.isEmpty()) {
+				postMapper.updateCountBatch("commentNum", deltaMap);
+				deltaMap.keySet().forEach(postId -> entityCacheManager.evict(EntityCacheManager.POST_REGION, postId));
+				postListCacheManager.evictDeferred();
+			}
+			// 整批确认
+			channel.basicAck(lastTag, true);
+		} catch (Exception e) {
+			log.error("更新帖子评论数失败，整批重新入队, size: {}", messageList.size(), e);
+			channel.basicNack(lastTag, true, true);
+		}
+	}
+}
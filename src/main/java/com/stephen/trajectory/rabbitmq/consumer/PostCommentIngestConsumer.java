@@ -0,0 +1,89 @@
+package com.stephen.trajectory.rabbitmq.consumer;
+
+import cn.hutool.json.JSONUtil;
+import com.rabbitmq.client.Channel;
+import com.stephen.trajectory.config.rabbitmq.condition.RabbitMqCondition;
+import com.stephen.trajectory.manager.cache.PostListCacheManager;
+import com.stephen.trajectory.manager.comment.CommentIngestManager;
+import com.stephen.trajectory.model.entity.PostComment;
+import com.stephen.trajectory.rabbitmq.consumer.model.RabbitMessage;
+import com.stephen.trajectory.rabbitmq.customizeMq.PostCommentIngestRabbitMq;
+import com.stephen.trajectory.service.PostCommentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 帖子评论缓冲写入消息消费者
+ * <p>
+ * 批量拉取缓冲的评论，一条多行插入语句写入数据库并按评论 id 去重，整批确认；
+ * 写入失败时整批重新入队，无法解析的消息直接丢弃。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Component
+@Slf4j
+@Conditional(RabbitMqCondition.class)
+public class PostCommentIngestConsumer {
+	
+	@Resource
+	private PostCommentService postCommentService;
+	
+	@Resource
+	private CommentIngestManager commentIngestManager;
+	
+	@Resource
+	private PostListCacheManager postListCacheManager;
+	
+	/**
+	 * 批量写入缓冲的评论
+	 *
+	 * @param messageList 一批消息
+	 * @param channel     RabbitMQ 通道
+	 * @throws IOException 抛出异常
+	 */
+	@RabbitListener(queues = PostCommentIngestRabbitMq.QUEUE_NAME, containerFactory = "commentIngestListenerContainerFactory")
+	public void consume(List<Message> messageList, Channel channel) throws IOException {
+		if (messageList.isEmpty()) {
+			return;
+		}
+		long lastTag = messageList.get(messageList.size() - 1).getMessageProperties().getDeliveryTag();
+		List<PostComment> postCommentList = new ArrayList<>();
+		messageList.forEach(message -> {
+			try {
+				RabbitMessage rabbitMessage = JSONUtil.toBean(new String(message.getBody(), StandardCharsets.UTF_8), RabbitMessage.class);
+				PostComment postComment = JSONUtil.toBean(rabbitMessage.getMsgText(), PostComment.class);
+				if (postComment.getId() != null && postComment.getPostId() != null && postComment.getUserId() != null) {
+					postCommentList.add(postComment);
+				}
+			} catch (Exception e) {
+				log.error("无效的评论缓冲写入消息，已丢弃: {}", new String(message.getBody(), StandardCharsets.UTF_8), e);
+			}
+		});
+		try {
+			if (!postCommentList.isEmpty()) {
+				List<PostComment> savedList = postCommentService.saveIngestedBatch(postCommentList);
+				// 评论已落库，作者不再需要从 Redis 中读取
+				commentIngestManager.clearPending(postCommentList);
+				if (!savedList.isEmpty()) {
+					postListCacheManager.evictDeferred();
+				}
+				log.info("PostCommentIngestConsumer end, received {}, saved {}", postCommentList.size(), savedList.size());
+			}
+			// 整批确认
+			channel.basicAck(lastTag, true);
+		} catch (Exception e) {
+			log.error("批量写入评论失败，整批重新入队, size: {}", messageList.size(), e);
+			channel.basicNack(lastTag, true, true);
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.stephen.trajectory.rabbitmq.consumer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 帖子评论数变更消息
+ *
+ * @author stephen qiu
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostCommentCountMessage implements Serializable {
+	
+	/**
+	 * 帖子 id
+	 */
+	private Long postId;
+	
+	/**
+	 * 评论数增量（新增为 1，删除为 -1）
+	 */
+	private Long delta;
+	
+	private static final long serialVersionUID = 3390958173408226742L;
+	
+}
@@ -0,0 +1,81 @@
+package com.stephen.trajectory.rabbitmq.customizeMq;
+
+import com.stephen.trajectory.config.rabbitmq.condition.RabbitMqCondition;
+import com.stephen.trajectory.rabbitmq.BaseCustomizeMq;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子评论数变更消息队列实例配置
+ *
+ * @author stephen qiu
+ */
+@Slf4j
+@Component
+@Conditional(RabbitMqCondition.class)
+public class PostCommentCountRabbitMq extends BaseCustomizeMq {
+	
+	/**
+	 * 帖子评论数变更交换机名称
+	 */
+	public static final String EXCHANGE_NAME = "exchange.post.comment.count";
+	
+	/**
+	 * 帖子评论数变更队列名称
+	 */
+	public static final String QUEUE_NAME = "queue.post.comment.count";
+	
+	/**
+	 * 帖子评论数变更队列绑定关系的RoutingKey
+	 */
+	public static final String BINDING_ROUTING_KEY = "binding.routing.key.post.comment.count";
+	
+	/**
+	 * 注册帖子评论数变更交换机
+	 *
+	 * @return 返回交换机实例
+	 */
+	@Bean("postCommentCountExchange")
+	public Exchange postCommentCountExchange() {
+		return new TopicExchange(EXCHANGE_NAME, true, false, null);
+	}
+	
+	/**
+	 * 注册帖子评论数变更队列
+	 *
+	 * @param connectionFactory 连接工厂接口
+	 * @return 返回结果
+	 */
+	@Bean("postCommentCountQueue")
+	public Queue postCommentCountQueue(ConnectionFactory connectionFactory) {
+		Queue queue = new Queue(QUEUE_NAME, true, false, false, null);
+		RabbitAdmin rabbitAdmin = new RabbitAdmin(connectionFactory);
+		rabbitAdmin.setAutoStartup(true);
+		rabbitAdmin.declareQueue(queue);
+		return queue;
+	}
+	
+	/**
+	 * 注册帖子评论数变更队列绑定关系
+	 *
+	 * @param postCommentCountQueue    注册实例队列方法名称
+	 * @param postCommentCountExchange 注册实例交换机方法名称
+	 * @return 返回结果
+	 */
+	@Bean("postCommentCountBinding")
+	public Binding postCommentCountBinding(@Qualifier("postCommentCountQueue") Queue postCommentCountQueue,
+	                                       @Qualifier("postCommentCountExchange") Exchange postCommentCountExchange) {
+		return BindingBuilder
+				.bind(postCommentCountQueue)
+				.to(postCommentCountExchange)
+				.with(BINDING_ROUTING_KEY)
+				.noargs();
+	}
+	
+}
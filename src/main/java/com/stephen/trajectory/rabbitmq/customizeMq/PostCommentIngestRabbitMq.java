@@ -0,0 +1,81 @@
+package com.stephen.trajectory.rabbitmq.customizeMq;
+
+import com.stephen.trajectory.config.rabbitmq.condition.RabbitMqCondition;
+import com.stephen.trajectory.rabbitmq.BaseCustomizeMq;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子评论缓冲写入消息队列实例配置
+ *
+ * @author stephen qiu
+ */
+@Slf4j
+@Component
+@Conditional(RabbitMqCondition.class)
+public class PostCommentIngestRabbitMq extends BaseCustomizeMq {
+	
+	/**
+	 * 帖子评论缓冲写入交换机名称
+	 */
+	public static final String EXCHANGE_NAME = "exchange.post.comment.ingest";
+	
+	/**
+	 * 帖子评论缓冲写入队列名称
+	 */
+	public static final String QUEUE_NAME = "queue.post.comment.ingest";
+	
+	/**
+	 * 帖子评论缓冲写入队列绑定关系的RoutingKey
+	 */
+	public static final String BINDING_ROUTING_KEY = "binding.routing.key.post.comment.ingest";
+	
+	/**
+	 * 注册帖子评论缓冲写入交换机
+	 *
+	 * @return 返回交换机实例
+	 */
+	@Bean("postCommentIngestExchange")
+	public Exchange postCommentIngestExchange() {
+		return new TopicExchange(EXCHANGE_NAME, true, false, null);
+	}
+	
+	/**
+	 * 注册帖子评论缓冲写入队列
+	 *
+	 * @param connectionFactory 连接工厂接口
+	 * @return 返回结果
+	 */
+	@Bean("postCommentIngestQueue")
+	public Queue postCommentIngestQueue(ConnectionFactory connectionFactory) {
+		Queue queue = new Queue(QUEUE_NAME, true, false, false, null);
+		RabbitAdmin rabbitAdmin = new RabbitAdmin(connectionFactory);
+		rabbitAdmin.setAutoStartup(true);
+		rabbitAdmin.declareQueue(queue);
+		return queue;
+	}
+	
+	/**
+	 * 注册帖子评论缓冲写入队列绑定关系
+	 *
+	 * @param postCommentIngestQueue    注册实例队列方法名称
+	 * @param postCommentIngestExchange 注册实例交换机方法名称
+	 * @return 返回结果
+	 */
+	@Bean("postCommentIngestBinding")
+	public Binding postCommentIngestBinding(@Qualifier("postCommentIngestQueue") Queue postCommentIngestQueue,
+	                                        @Qualifier("postCommentIngestExchange") Exchange postCommentIngestExchange) {
+		return BindingBuilder
+				.bind(postCommentIngestQueue)
+				.to(postCommentIngestExchange)
+				.with(BINDING_ROUTING_KEY)
+				.noargs();
+	}
+	
+}
@@ -4,10 +4,13 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.stephen.trajectory.model.dto.postComment.PostCommentQueryRequest;
+import com.stephen.trajectory.model.dto.postComment.PostCommentThreadQueryRequest;
 import com.stephen.trajectory.model.entity.PostComment;
+import com.stephen.trajectory.model.vo.PostCommentThreadVO;
 import com.stephen.trajectory.model.vo.PostCommentVO;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.List;
 
 /**
  * 帖子评论服务
@@ -49,4 +52,41 @@ public interface PostCommentService extends IService<PostComment> {
 	 * @return {@link Page<PostCommentVO>}
 	 */
 	Page<PostCommentVO> getPostCommentVOPage(Page<PostComment> postCommentPage, HttpServletRequest request);
-}
\ No newline at end of file
+	
+	/**
+	 * 分页获取帖子评论楼层（根评论及其最早的若干条回复），查询次数与分页大小无关
+	 *
+	 * @param postCommentThreadQueryRequest postCommentThreadQueryRequest
+	 * @return {@link Page<PostCommentThreadVO>}
+	 */
+	Page<PostCommentThreadVO> getPostCommentThreadPage(PostCommentThreadQueryRequest postCommentThreadQueryRequest);
+	
+	/**
+	 * 批量写入缓冲的评论，已存在的评论会被忽略，同时累加帖子评论数
+	 *
+	 * @param postCommentList 评论列表（需要包含 id）
+	 * @return 本次新写入的评论
+	 */
+	List<PostComment> saveIngestedBatch(List<PostComment> postCommentList);
+	
+	/**
+	 * 将当前用户在帖子下尚未落库、且符合查询条件的评论合并到按时间倒序的评论列表第一页头部，合并后不超过页面大小
+	 *
+	 * @param postCommentVOList       评论列表第一页
+	 * @param postCommentQueryRequest 查询条件
+	 * @param size                    页面大小
+	 * @param request                 request
+	 * @return 合并到列表中的未落库评论，按 (createTime, id) 倒序
+	 */
+	List<PostComment> mergePendingComments(List<PostCommentVO> postCommentVOList, PostCommentQueryRequest postCommentQueryRequest,
+	                                       long size, HttpServletRequest request);
+	
+	/**
+	 * 将当前用户在帖子下尚未落库的评论合并到评论楼层中
+	 *
+	 * @param threadPage 评论楼层分页
+	 * @param postId     帖子 id
+	 * @param request    request
+	 */
+	void mergePendingThreads(Page<PostCommentThreadVO> threadPage, Long postId, HttpServletRequest request);
+}
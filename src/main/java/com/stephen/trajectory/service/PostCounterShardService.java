@@ -0,0 +1,49 @@
+package com.stephen.trajectory.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.stephen.trajectory.manager.counter.model.CounterType;
+import com.stephen.trajectory.model.entity.PostCounterShard;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 帖子计数分片服务
+ *
+ * @author stephen qiu
+ */
+public interface PostCounterShardService extends IService<PostCounterShard> {
+	
+	/**
+	 * 随机选择一个分片累加计数
+	 *
+	 * @param type   计数类型
+	 * @param postId postId
+	 * @param delta  增量
+	 */
+	void increment(CounterType type, long postId, long delta);
+	
+	/**
+	 * 按帖子汇总未合并的分片计数
+	 *
+	 * @param postIds 帖子 id 集合
+	 * @return 帖子 id => 分片计数汇总，没有分片的帖子不在结果中
+	 */
+	Map<Long, PostCounterShard> sumByPostIds(Collection<Long> postIds);
+	
+	/**
+	 * 获取存在未合并分片的帖子 id
+	 *
+	 * @param limit 最多返回数量
+	 * @return 帖子 id 列表
+	 */
+	List<Long> listShardedPostIds(int limit);
+	
+	/**
+	 * 将帖子的分片计数合并回帖子表并删除分片
+	 *
+	 * @param postId postId
+	 */
+	void compact(long postId);
+}
@@ -4,9 +4,17 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.stephen.trajectory.common.CursorPage;
+import com.stephen.trajectory.manager.counter.model.CounterBatch;
 import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.entity.PostFavour;
 import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.PostActionResultVO;
+import com.stephen.trajectory.model.vo.PostVO;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子收藏服务
@@ -43,4 +51,40 @@ public interface PostFavourService extends IService<PostFavour> {
 	 * @return int
 	 */
 	int doPostFavourInner(long userId, long postId);
+	
+	/**
+	 * 批量回写收藏关系和帖子收藏数（内部服务）
+	 *
+	 * @param counterBatch counterBatch
+	 */
+	void flushCounterBatch(CounterBatch counterBatch);
+	
+	/**
+	 * 批量收藏 / 取消收藏
+	 *
+	 * @param actionMap 帖子 id => 是否收藏（按操作顺序）
+	 * @param loginUser loginUser
+	 * @return 每个帖子的处理结果
+	 */
+	List<PostActionResultVO> doPostFavourBatch(Map<Long, Boolean> actionMap, User loginUser);
+	
+	/**
+	 * 批量收藏 / 取消收藏（内部服务）
+	 *
+	 * @param userId    userId
+	 * @param actionMap 帖子 id => 是否收藏
+	 * @return 帖子 id => 本次变化数
+	 */
+	Map<Long, Integer> doPostFavourBatchInner(long userId, Map<Long, Boolean> actionMap);
+	
+	/**
+	 * 按收藏时间游标分页获取用户收藏的帖子列表
+	 *
+	 * @param favourUserId favourUserId
+	 * @param cursor      上一页返回的游标
+	 * @param size        页面大小
+	 * @param request     request
+	 * @return {@link CursorPage<PostVO>}
+	 */
+	CursorPage<PostVO> listFavourPostVOByCursor(long favourUserId, String cursor, long size, HttpServletRequest request);
 }
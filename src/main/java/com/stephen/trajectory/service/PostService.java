@@ -4,10 +4,15 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.stephen.trajectory.model.dto.post.PostQueryRequest;
+import com.stephen.trajectory.model.dto.post.PostEngagementCountDTO;
+import com.stephen.trajectory.model.dto.post.PostViewerStateDTO;
 import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.vo.PostVO;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子服务
@@ -49,4 +54,46 @@ public interface PostService extends IService<Post> {
 	 * @return {@link Page<PostVO>}
 	 */
 	Page<PostVO> getPostVOPage(Page<Post> postPage, HttpServletRequest request);
+	
+	/**
+	 * 分页获取帖子骨架封装（不包含当前用户的点赞、收藏状态，可在所有用户间共享缓存）
+	 *
+	 * @param postPage postPage
+	 * @param request  request
+	 * @return {@link Page<PostVO>}
+	 */
+	Page<PostVO> getPostVOSkeletonPage(Page<Post> postPage, HttpServletRequest request);
+	
+	/**
+	 * 批量填充当前用户的点赞、收藏状态（查询超时或失败时保持为 null，表示状态未知）
+	 *
+	 * @param postVOList postVOList
+	 * @param request    request
+	 */
+	void fillViewerState(List<PostVO> postVOList, HttpServletRequest request);
+	
+	/**
+	 * 批量获取用户对帖子的点赞、收藏状态（一次数据库往返）
+	 *
+	 * @param postIds 帖子 id 集合
+	 * @param userId  用户 id
+	 * @return 帖子 id => 点赞、收藏状态
+	 */
+	Map<Long, PostViewerStateDTO> getViewerStateMap(Collection<Long> postIds, Long userId);
+	
+	/**
+	 * 计算帖子点赞、收藏数与实际记录数的偏差（不加锁，用于筛选需要修复的帖子）
+	 *
+	 * @param postList 帖子列表（需要包含 id、thumbNum、favourNum）
+	 * @return 帖子 id => 计数偏差（正数表示计数偏小），没有偏差的帖子不在结果中
+	 */
+	Map<Long, PostEngagementCountDTO> getCountDriftMap(List<Post> postList);
+	
+	/**
+	 * 锁定帖子后重新计算偏差并修复点赞、收藏数
+	 *
+	 * @param postIds 帖子 id 集合
+	 * @return 帖子 id => 已修复的计数偏差
+	 */
+	Map<Long, PostEngagementCountDTO> repairCountDrift(Collection<Long> postIds);
 }
@@ -0,0 +1,27 @@
+package com.stephen.trajectory.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.stephen.trajectory.model.entity.PostTag;
+
+/**
+ * 帖子标签关联服务
+ *
+ * @author stephen qiu
+ */
+public interface PostTagService extends IService<PostTag> {
+	
+	/**
+	 * 按帖子最新的标签列表重建帖子标签关联
+	 *
+	 * @param postId postId
+	 * @param tags   标签列表（JSON 字符数组）
+	 */
+	void syncPostTags(Long postId, String tags);
+	
+	/**
+	 * 删除帖子的全部帖子标签关联
+	 *
+	 * @param postId postId
+	 */
+	void removeByPostId(Long postId);
+}
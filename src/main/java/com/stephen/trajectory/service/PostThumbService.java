@@ -4,9 +4,17 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.stephen.trajectory.common.CursorPage;
+import com.stephen.trajectory.manager.counter.model.CounterBatch;
 import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.entity.PostThumb;
 import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.PostActionResultVO;
+import com.stephen.trajectory.model.vo.PostVO;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子点赞服务
@@ -42,4 +50,40 @@ public interface PostThumbService extends IService<PostThumb> {
 	 * @return {@link Page <Post>}
 	 */
 	Page<Post> listThumbPostByPage(IPage<Post> page, Wrapper<Post> queryWrapper, long thumbUserId);
+	
+	/**
+	 * 批量回写点赞关系和帖子点赞数（内部服务）
+	 *
+	 * @param counterBatch counterBatch
+	 */
+	void flushCounterBatch(CounterBatch counterBatch);
+	
+	/**
+	 * 批量点赞 / 取消点赞
+	 *
+	 * @param actionMap 帖子 id => 是否点赞（按操作顺序）
+	 * @param loginUser loginUser
+	 * @return 每个帖子的处理结果
+	 */
+	List<PostActionResultVO> doPostThumbBatch(Map<Long, Boolean> actionMap, User loginUser);
+	
+	/**
+	 * 批量点赞 / 取消点赞（内部服务）
+	 *
+	 * @param userId    userId
+	 * @param actionMap 帖子 id => 是否点赞
+	 * @return 帖子 id => 本次变化数
+	 */
+	Map<Long, Integer> doPostThumbBatchInner(long userId, Map<Long, Boolean> actionMap);
+	
+	/**
+	 * 按点赞时间游标分页获取用户点赞的帖子列表
+	 *
+	 * @param thumbUserId thumbUserId
+	 * @param cursor      上一页返回的游标
+	 * @param size        页面大小
+	 * @param request     request
+	 * @return {@link CursorPage<PostVO>}
+	 */
+	CursorPage<PostVO> listThumbPostVOByCursor(long thumbUserId, String cursor, long size, HttpServletRequest request);
 }
@@ -52,7 +52,7 @@ public interface TagService extends IService<Tag> {
 	Page<TagVO> getTagVOPage(Page<Tag> tagPage, HttpServletRequest request);
 	
 	/**
-	 * 递归将 Tag 实体转换为 TagDTO，并填充子标签
+	 * 将 Tag 实体转换为 TagDTO，并从标签树快照中填充子标签
 	 *
 	 * @param tag 父标签
 	 * @return {@link TagDTO}
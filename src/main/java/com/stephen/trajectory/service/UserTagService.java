@@ -0,0 +1,27 @@
+package com.stephen.trajectory.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.stephen.trajectory.model.entity.UserTag;
+
+/**
+ * 用户标签关联服务
+ *
+ * @author stephen qiu
+ */
+public interface UserTagService extends IService<UserTag> {
+	
+	/**
+	 * 按用户最新的标签列表重建用户标签关联
+	 *
+	 * @param userId userId
+	 * @param tags   标签列表（JSON 字符数组）
+	 */
+	void syncUserTags(Long userId, String tags);
+	
+	/**
+	 * 删除用户的全部用户标签关联
+	 *
+	 * @param userId userId
+	 */
+	void removeByUserId(Long userId);
+}
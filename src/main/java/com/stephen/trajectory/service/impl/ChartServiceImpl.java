@@ -9,6 +9,9 @@ import com.stephen.trajectory.common.ThrowUtils;
 import com.stephen.trajectory.common.exception.BusinessException;
 import com.stephen.trajectory.constants.CommonConstant;
 import com.stephen.trajectory.constants.UserConstant;
+import com.stephen.trajectory.manager.cache.EntityCacheManager;
+import com.stephen.trajectory.manager.cache.UserVOResolver;
+import com.stephen.trajectory.manager.enrichment.EnrichmentManager;
 import com.stephen.trajectory.manager.redis.RedisLimiterManager;
 import com.stephen.trajectory.mapper.ChartMapper;
 import com.stephen.trajectory.model.dto.chart.ChartQueryRequest;
@@ -29,11 +32,13 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -49,9 +54,66 @@ public class ChartServiceImpl extends ServiceImpl<ChartMapper, Chart> implements
 	@Resource
 	private UserService userService;
 	
+	@Resource
+	private UserVOResolver userVOResolver;
+	
+	@Resource
+	private EnrichmentManager enrichmentManager;
+	
 	@Resource
 	private RedisLimiterManager redisLimiterManager;
 	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	/**
+	 * 按 id 获取图表信息（读穿实体缓存）
+	 *
+	 * @param id id
+	 * @return {@link Chart}
+	 */
+	@Override
+	public Chart getById(Serializable id) {
+		return entityCacheManager.getById(EntityCacheManager.CHART_REGION, id, Chart.class, super::getById);
+	}
+	
+	/**
+	 * 按 id 批量获取图表信息（读穿实体缓存，未命中的 id 一次性查询数据库）
+	 *
+	 * @param idList idList
+	 * @return {@link List<Chart>}
+	 */
+	@Override
+	public List<Chart> listByIds(Collection<? extends Serializable> idList) {
+		return entityCacheManager.listByIds(EntityCacheManager.CHART_REGION, idList, Chart.class, super::listByIds, Chart::getId);
+	}
+	
+	/**
+	 * 更新图表信息，同时删除实体缓存
+	 *
+	 * @param chart chart
+	 * @return boolean
+	 */
+	@Override
+	public boolean updateById(Chart chart) {
+		boolean result = super.updateById(chart);
+		entityCacheManager.evict(EntityCacheManager.CHART_REGION, chart.getId());
+		return result;
+	}
+	
+	/**
+	 * 删除图表信息，同时删除实体缓存
+	 *
+	 * @param id id
+	 * @return boolean
+	 */
+	@Override
+	public boolean removeById(Serializable id) {
+		boolean result = super.removeById(id);
+		entityCacheManager.evict(EntityCacheManager.CHART_REGION, id);
+		return result;
+	}
+	
 	/**
 	 * 校验数据
 	 *
@@ -147,13 +209,7 @@ public class ChartServiceImpl extends ServiceImpl<ChartMapper, Chart> implements
 		// todo 可以根据需要为封装对象补充值，不需要的内容可以删除
 		// region 可选
 		// 1. 关联查询用户信息
-		Long userId = chart.getUserId();
-		User user = null;
-		if (userId != null && userId > 0) {
-			user = userService.getById(userId);
-		}
-		UserVO userVO = userService.getUserVO(user, request);
-		chartVO.setUserVO(userVO);
+		chartVO.setUserVO(userVOResolver.resolve(chart.getUserId()));
 		// endregion
 		return chartVO;
 	}
@@ -179,28 +235,12 @@ public class ChartServiceImpl extends ServiceImpl<ChartMapper, Chart> implements
 		// todo 可以根据需要为封装对象补充值，不需要的内容可以删除
 		// region 可选
 		// 1. 关联查询用户信息
-		Set<Long> userIdSet = chartList.stream().map(Chart
-				::getUserId).collect(Collectors.toSet());
+		Set<Long> userIdSet = chartList.stream().map(Chart::getUserId).collect(Collectors.toSet());
+		CompletableFuture<Map<Long, UserVO>> userVOMapFuture = enrichmentManager.supply("chartUser", () -> userVOResolver.resolve(userIdSet));
+		// 超时或失败时不填充用户信息
+		Map<Long, UserVO> userVOMap = enrichmentManager.join("chartUser", userVOMapFuture, enrichmentManager.newDeadline(), Collections.emptyMap());
 		// 填充信息
-		if (CollUtil.isNotEmpty(userIdSet)) {
-			CompletableFuture<Map<Long, List<User>>> mapCompletableFuture = CompletableFuture.supplyAsync(() -> userService.listByIds(userIdSet).stream()
-					.collect(Collectors.groupingBy(User::getId)));
-			try {
-				Map<Long, List<User>> userIdUserListMap = mapCompletableFuture.get();
-				// 填充信息
-				chartVOList.forEach(chartVO -> {
-					Long userId = chartVO.getUserId();
-					User user = null;
-					if (userIdUserListMap.containsKey(userId)) {
-						user = userIdUserListMap.get(userId).get(0);
-					}
-					chartVO.setUserVO(userService.getUserVO(user, request));
-				});
-			} catch (InterruptedException | ExecutionException e) {
-				Thread.currentThread().interrupt();
-				throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取信息失败" + e.getMessage());
-			}
-		}
+		chartVOList.forEach(chartVO -> chartVO.setUserVO(userVOMap.get(chartVO.getUserId())));
 		// endregion
 		chartVOPage.setRecords(chartVOList);
 		return chartVOPage;
@@ -6,31 +6,44 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.stephen.trajectory.common.ErrorCode;
 import com.stephen.trajectory.common.ThrowUtils;
-import com.stephen.trajectory.common.exception.BusinessException;
+import com.stephen.trajectory.config.rabbitmq.properties.RabbitMqProperties;
 import com.stephen.trajectory.constants.CommonConstant;
+import com.stephen.trajectory.manager.cache.EntityCacheManager;
+import com.stephen.trajectory.manager.cache.PostCommentThreadCacheManager;
+import com.stephen.trajectory.manager.cache.UserVOResolver;
+import com.stephen.trajectory.manager.comment.CommentIngestManager;
+import com.stephen.trajectory.manager.enrichment.EnrichmentManager;
 import com.stephen.trajectory.mapper.PostCommentMapper;
+import com.stephen.trajectory.mapper.PostMapper;
 import com.stephen.trajectory.model.dto.postComment.PostCommentQueryRequest;
+import com.stephen.trajectory.model.dto.postComment.PostCommentReplyCountDTO;
+import com.stephen.trajectory.model.dto.postComment.PostCommentThreadQueryRequest;
 import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.entity.PostComment;
 import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.PostCommentThreadVO;
 import com.stephen.trajectory.model.vo.PostCommentVO;
 import com.stephen.trajectory.model.vo.UserVO;
+import com.stephen.trajectory.rabbitmq.consumer.model.PostCommentCountMessage;
+import com.stephen.trajectory.rabbitmq.customizeMq.PostCommentCountRabbitMq;
 import com.stephen.trajectory.service.PostCommentService;
 import com.stephen.trajectory.service.PostService;
 import com.stephen.trajectory.service.UserService;
+import com.stephen.trajectory.utils.rabbitmq.RabbitMqUtils;
 import com.stephen.trajectory.utils.sql.SqlUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.io.Serializable;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -45,9 +58,146 @@ public class PostCommentServiceImpl extends ServiceImpl<PostCommentMapper, PostC
 	@Resource
 	private UserService userService;
 	
+	@Resource
+	private UserVOResolver userVOResolver;
+	
+	@Resource
+	private EnrichmentManager enrichmentManager;
+	
 	@Resource
 	private PostService postService;
 	
+	@Resource
+	private PostCommentThreadCacheManager postCommentThreadCacheManager;
+	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	@Resource
+	private RabbitMqProperties rabbitMqProperties;
+	
+	@Resource
+	private CommentIngestManager commentIngestManager;
+	
+	@Resource
+	private PostMapper postMapper;
+	
+	/**
+	 * 按 id 获取评论（读穿实体缓存）
+	 *
+	 * @param id id
+	 * @return {@link PostComment}
+	 */
+	@Override
+	public PostComment getById(Serializable id) {
+		return entityCacheManager.getById(EntityCacheManager.POST_COMMENT_REGION, id, PostComment.class, super::getById);
+	}
+	
+	/**
+	 * 按 id 批量获取评论（读穿实体缓存，未命中的 id 一次性查询数据库）
+	 *
+	 * @param idList idList
+	 * @return {@link List<PostComment>}
+	 */
+	@Override
+	public List<PostComment> listByIds(Collection<? extends Serializable> idList) {
+		return entityCacheManager.listByIds(EntityCacheManager.POST_COMMENT_REGION, idList, PostComment.class, super::listByIds,
+				PostComment::getId);
+	}
+	
+	/**
+	 * 新增评论，同时失效所在帖子的评论楼层缓存
+	 *
+	 * @param postComment postComment
+	 * @return boolean
+	 */
+	@Override
+	public boolean save(PostComment postComment) {
+		boolean result = super.save(postComment);
+		postCommentThreadCacheManager.evict(postComment.getPostId());
+		if (result) {
+			this.publishCommentCount(postComment.getPostId(), 1L);
+		}
+		return result;
+	}
+	
+	/**
+	 * 更新评论，删除实体缓存，同时失效所在帖子的评论楼层缓存
+	 *
+	 * @param postComment postComment
+	 * @return boolean
+	 */
+	@Override
+	public boolean updateById(PostComment postComment) {
+		PostComment oldPostComment = this.getById(postComment.getId());
+		boolean result = super.updateById(postComment);
+		entityCacheManager.evict(EntityCacheManager.POST_COMMENT_REGION, postComment.getId());
+		if (oldPostComment != null) {
+			postCommentThreadCacheManager.evict(oldPostComment.getPostId());
+		}
+		return result;
+	}
+	
+	/**
+	 * 删除评论，删除实体缓存，同时失效所在帖子的评论楼层缓存
+	 *
+	 * @param id id
+	 * @return boolean
+	 */
+	@Override
+	public boolean removeById(Serializable id) {
+		PostComment oldPostComment = this.getById(id);
+		boolean result = super.removeById(id);
+		entityCacheManager.evict(EntityCacheManager.POST_COMMENT_REGION, id);
+		if (oldPostComment != null) {
+			postCommentThreadCacheManager.evict(oldPostComment.getPostId());
+			if (result) {
+				this.publishCommentCount(oldPostComment.getPostId(), -1L);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * 发送帖子评论数变更消息，由消费者批量合并后更新评论数；处于事务中时在事务提交后发送
+	 * <p>
+	 * 未开启 RabbitMQ 或发送失败时直接更新帖子评论数。
+	 * </p>
+	 *
+	 * @param postId 帖子 id
+	 * @param delta  评论数增量
+	 */
+	private void publishCommentCount(Long postId, long delta) {
+		if (postId == null) {
+			return;
+		}
+		Runnable publisher = () -> {
+			if (Boolean.TRUE.equals(rabbitMqProperties.getEnable())) {
+				try {
+					RabbitMqUtils.sendMsg(new PostCommentCountMessage(postId, delta), PostCommentCountRabbitMq.class);
+					return;
+				} catch (Exception e) {
+					log.error("发送帖子评论数消息失败，直接更新评论数, postId: {}", postId, e);
+				}
+			}
+			postService.update()
+					.eq("id", postId)
+					.setSql("commentNum = GREATEST(commentNum + " + delta + ", 0)")
+					.update();
+			entityCacheManager.evict(EntityCacheManager.POST_REGION, postId);
+		};
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					publisher.run();
+				}
+			});
+		} else {
+			publisher.run();
+		}
+	}
+	
 	/**
 	 * 校验数据
 	 *
@@ -67,8 +217,8 @@ public class PostCommentServiceImpl extends ServiceImpl<PostCommentMapper, PostC
 		// 创建数据时，参数不能为空
 		if (add) {
 			// todo 补充校验规则
-			ThrowUtils.throwIf(ObjectUtils.isNotEmpty(postId), ErrorCode.PARAMS_ERROR, "帖子id不能为空");
-			ThrowUtils.throwIf(ObjectUtils.isNotEmpty(toUid), ErrorCode.PARAMS_ERROR, "被评论人id不能为空");
+			ThrowUtils.throwIf(ObjectUtils.isEmpty(postId), ErrorCode.PARAMS_ERROR, "帖子id不能为空");
+			ThrowUtils.throwIf(ObjectUtils.isEmpty(toUid), ErrorCode.PARAMS_ERROR, "被评论人id不能为空");
 			ThrowUtils.throwIf(StringUtils.isBlank(content), ErrorCode.PARAMS_ERROR, "评论内容不能为空");
 		}
 		// 修改数据时，有参数则校验
@@ -76,20 +226,51 @@ public class PostCommentServiceImpl extends ServiceImpl<PostCommentMapper, PostC
 		if (StringUtils.isNotBlank(content)) {
 			ThrowUtils.throwIf(content.length() > 4096, ErrorCode.PARAMS_ERROR, "评论内容过长");
 		}
+		boolean checkToComment = ObjectUtils.isNotEmpty(toCommentId) && ObjectUtils.isNotEmpty(rootId);
+		Set<Long> commentIdSet = new HashSet<>();
+		if (ObjectUtils.isNotEmpty(rootId)) {
+			commentIdSet.add(rootId);
+		}
+		if (checkToComment) {
+			commentIdSet.add(toCommentId);
+		}
+		// 引用的帖子、用户、评论均读穿实体缓存，先合并为一次缓存批量读取，之后的逐项校验直接命中本地缓存
+		Map<String, Collection<Long>> regionIdMap = new HashMap<>();
+		if (ObjectUtils.isNotEmpty(postId)) {
+			regionIdMap.put(EntityCacheManager.POST_REGION, Collections.singletonList(postId));
+		}
+		if (ObjectUtils.isNotEmpty(toUid)) {
+			regionIdMap.put(EntityCacheManager.USER_REGION, Collections.singletonList(toUid));
+		}
+		regionIdMap.put(EntityCacheManager.POST_COMMENT_REGION, commentIdSet);
+		entityCacheManager.prefetch(regionIdMap);
 		if (ObjectUtils.isNotEmpty(postId)) {
 			Post post = postService.getById(postId);
 			ThrowUtils.throwIf(post == null, ErrorCode.PARAMS_ERROR, "帖子内容不存在");
 		}
-		if (ObjectUtils.isNotEmpty(rootId)) {
-			PostComment rootPostComment = this.getById(rootId);
-			ThrowUtils.throwIf(rootPostComment == null, ErrorCode.PARAMS_ERROR, "根评论不存在");
-		}
 		if (ObjectUtils.isNotEmpty(toUid)) {
 			User toUser = userService.getById(toUid);
 			ThrowUtils.throwIf(toUser == null, ErrorCode.PARAMS_ERROR, "被评论用户不能为空");
 		}
-		if (ObjectUtils.isNotEmpty(toCommentId) && ObjectUtils.isNotEmpty(rootId)) {
-			PostComment toComment = this.getById(toCommentId);
+		if (commentIdSet.isEmpty()) {
+			return;
+		}
+		Map<Long, PostComment> commentMap = this.listByIds(commentIdSet).stream()
+				.collect(Collectors.toMap(PostComment::getId, comment -> comment, (a, b) -> a));
+		// 开启缓冲写入时，引用的评论可能是作者自己尚未落库的评论
+		if (commentMap.size() < commentIdSet.size() && commentIngestManager.isEnabled()) {
+			commentIngestManager.listPending(postId, postComment.getUserId()).stream()
+					.filter(pending -> commentIdSet.contains(pending.getId()))
+					.forEach(pending -> commentMap.putIfAbsent(pending.getId(), pending));
+		}
+		if (ObjectUtils.isNotEmpty(rootId)) {
+			PostComment rootPostComment = commentMap.get(rootId);
+			ThrowUtils.throwIf(rootPostComment == null, ErrorCode.PARAMS_ERROR, "根评论不存在");
+			ThrowUtils.throwIf(ObjectUtils.isNotEmpty(postId) && !postId.equals(rootPostComment.getPostId()),
+					ErrorCode.PARAMS_ERROR, "根评论不属于该帖子");
+		}
+		if (checkToComment) {
+			PostComment toComment = commentMap.get(toCommentId);
 			ThrowUtils.throwIf(toComment == null, ErrorCode.PARAMS_ERROR, "被评论的评论不能为空");
 		}
 	}
@@ -150,13 +331,7 @@ public class PostCommentServiceImpl extends ServiceImpl<PostCommentMapper, PostC
 		// todo 可以根据需要为封装对象补充值，不需要的内容可以删除
 		// region 可选
 		// 1. 关联查询用户信息
-		Long userId = postComment.getUserId();
-		User user = null;
-		if (userId != null && userId > 0) {
-			user = userService.getById(userId);
-		}
-		UserVO userVO = userService.getUserVO(user, request);
-		postCommentVO.setUserVO(userVO);
+		postCommentVO.setUserVO(userVOResolver.resolve(postComment.getUserId()));
 		
 		// endregion
 		return postCommentVO;
@@ -184,29 +359,254 @@ public class PostCommentServiceImpl extends ServiceImpl<PostCommentMapper, PostC
 		// region 可选
 		// 1. 关联查询用户信息
 		Set<Long> userIdSet = postCommentList.stream().map(PostComment::getUserId).collect(Collectors.toSet());
+		CompletableFuture<Map<Long, UserVO>> userVOMapFuture = enrichmentManager.supply("postCommentUser", () -> userVOResolver.resolve(userIdSet));
+		// 超时或失败时不填充用户信息
+		Map<Long, UserVO> userVOMap = enrichmentManager.join("postCommentUser", userVOMapFuture, enrichmentManager.newDeadline(), Collections.emptyMap());
 		// 填充信息
-		if (CollUtil.isNotEmpty(userIdSet)) {
-			CompletableFuture<Map<Long, List<User>>> mapCompletableFuture = CompletableFuture.supplyAsync(() -> userService.listByIds(userIdSet).stream()
-					.collect(Collectors.groupingBy(User::getId)));
-			try {
-				Map<Long, List<User>> userIdUserListMap = mapCompletableFuture.get();
-				// 填充信息
-				postCommentVOList.forEach(postCommentVO -> {
-					Long userId = postCommentVO.getUserId();
-					User user = null;
-					if (userIdUserListMap.containsKey(userId)) {
-						user = userIdUserListMap.get(userId).get(0);
-					}
-					postCommentVO.setUserVO(userService.getUserVO(user, request));
-				});
-			} catch (InterruptedException | ExecutionException e) {
-				Thread.currentThread().interrupt();
-				throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取信息失败" + e.getMessage());
-			}
-		}
+		postCommentVOList.forEach(postCommentVO -> postCommentVO.setUserVO(userVOMap.get(postCommentVO.getUserId())));
 		// endregion
 		postCommentVOPage.setRecords(postCommentVOList);
 		return postCommentVOPage;
 	}
 	
+	/**
+	 * 分页获取帖子评论楼层（根评论及其最早的若干条回复），查询次数与分页大小无关
+	 * <p>
+	 * 1 次分页查询根评论，1 次窗口函数查询每个根评论最早的 N 条回复，1 次分组统计回复数，用户信息批量读取缓存。
+	 * </p>
+	 *
+	 * @param postCommentThreadQueryRequest postCommentThreadQueryRequest
+	 * @return {@link Page<PostCommentThreadVO>}
+	 */
+	@Override
+	public Page<PostCommentThreadVO> getPostCommentThreadPage(PostCommentThreadQueryRequest postCommentThreadQueryRequest) {
+		long current = postCommentThreadQueryRequest.getCurrent();
+		long size = postCommentThreadQueryRequest.getPageSize();
+		int replySize = postCommentThreadQueryRequest.getReplySize();
+		// 1. 分页查询根评论，按 (createTime, id) 倒序
+		QueryWrapper<PostComment> queryWrapper = new QueryWrapper<>();
+		queryWrapper.eq("postId", postCommentThreadQueryRequest.getPostId());
+		queryWrapper.and(wrapper -> wrapper.isNull("rootId").or().eq("rootId", 0));
+		queryWrapper.orderByDesc("createTime", "id");
+		Page<PostComment> rootPage = this.page(new Page<>(current, size, postCommentThreadQueryRequest.isSearchCount()), queryWrapper);
+		Page<PostCommentThreadVO> threadPage = new Page<>(rootPage.getCurrent(), rootPage.getSize(), rootPage.getTotal());
+		List<PostComment> rootList = rootPage.getRecords();
+		if (CollUtil.isEmpty(rootList)) {
+			return threadPage;
+		}
+		Set<Long> rootIdSet = rootList.stream().map(PostComment::getId).collect(Collectors.toSet());
+		// 2. 一次查询所有根评论的前 N 条回复和回复总数
+		Map<Long, List<PostComment>> replyMap = replySize > 0
+				? this.baseMapper.listTopReplies(rootIdSet, replySize).stream()
+				.collect(Collectors.groupingBy(PostComment::getRootId, LinkedHashMap::new, Collectors.toList()))
+				: new HashMap<>();
+		Map<Long, Long> replyCountMap = this.baseMapper.listReplyCount(rootIdSet).stream()
+				.collect(Collectors.toMap(PostCommentReplyCountDTO::getRootId, PostCommentReplyCountDTO::getReplyCount, (a, b) -> a));
+		// 3. 批量获取根评论和回复的用户信息（楼层会被缓存，这里同步获取，不使用降级结果）
+		Set<Long> userIdSet = rootList.stream().map(PostComment::getUserId).collect(Collectors.toSet());
+		replyMap.values().forEach(replyList -> replyList.forEach(reply -> userIdSet.add(reply.getUserId())));
+		Map<Long, UserVO> userVOMap = userVOResolver.resolve(userIdSet);
+		// 4. 组装楼层
+		List<PostCommentThreadVO> threadVOList = rootList.stream().map(root -> {
+			PostCommentThreadVO threadVO = new PostCommentThreadVO();
+			threadVO.setRootComment(toPostCommentVO(root, userVOMap));
+			threadVO.setReplyList(replyMap.getOrDefault(root.getId(), Collections.emptyList()).stream()
+					.map(reply -> toPostCommentVO(reply, userVOMap))
+					.collect(Collectors.toList()));
+			threadVO.setReplyCount(replyCountMap.getOrDefault(root.getId(), 0L));
+			return threadVO;
+		}).collect(Collectors.toList());
+		threadPage.setRecords(threadVOList);
+		return threadPage;
+	}
+	
+	/**
+	 * 评论转封装类并填充用户信息
+	 *
+	 * @param postComment postComment
+	 * @param userVOMap   用户 id => 用户信息
+	 * @return {@link PostCommentVO}
+	 */
+	private PostCommentVO toPostCommentVO(PostComment postComment, Map<Long, UserVO> userVOMap) {
+		PostCommentVO postCommentVO = PostCommentVO.objToVo(postComment);
+		postCommentVO.setUserVO(userVOMap.get(postComment.getUserId()));
+		return postCommentVO;
+	}
+	
+	/**
+	 * 批量写入缓冲的评论，已存在的评论会被忽略，同时累加帖子评论数
+	 * <p>
+	 * 评论 id 在投递前分配，消息重复投递时按 id 去重，评论数只累加本次新写入的评论。
+	 * </p>
+	 *
+	 * @param postCommentList 评论列表（需要包含 id）
+	 * @return 本次新写入的评论
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public List<PostComment> saveIngestedBatch(List<PostComment> postCommentList) {
+		if (CollUtil.isEmpty(postCommentList)) {
+			return new ArrayList<>();
+		}
+		Map<Long, PostComment> postCommentMap = postCommentList.stream()
+				.collect(Collectors.toMap(PostComment::getId, postComment -> postComment, (a, b) -> a, LinkedHashMap::new));
+		// 过滤重复投递的评论
+		this.baseMapper.listExistingIds(postCommentMap.keySet()).forEach(postCommentMap::remove);
+		if (postCommentMap.isEmpty()) {
+			return new ArrayList<>();
+		}
+		List<PostComment> newPostCommentList = new ArrayList<>(postCommentMap.values());
+		this.baseMapper.insertIgnoreBatch(newPostCommentList);
+		// 评论 id 在投递前分配，落库前按 id 读取过的节点可能缓存了空值，需要一并删除
+		entityCacheManager.evictAll(EntityCacheManager.POST_COMMENT_REGION,
+				newPostCommentList.stream().map(PostComment::getId).collect(Collectors.toList()));
+		// 按帖子累加评论数，并失效帖子缓存和评论楼层缓存
+		Map<Long, Long> deltaMap = newPostCommentList.stream()
+				.collect(Collectors.groupingBy(PostComment::getPostId, Collectors.counting()));
+		postMapper.updateCountBatch("commentNum", deltaMap);
+		deltaMap.keySet().forEach(postId -> {
+			entityCacheManager.evict(EntityCacheManager.POST_REGION, postId);
+			postCommentThreadCacheManager.evict(postId);
+		});
+		return newPostCommentList;
+	}
+	
+	/**
+	 * 将当前用户在帖子下尚未落库、且符合查询条件的评论合并到按时间倒序的评论列表第一页头部，合并后不超过页面大小
+	 *
+	 * @param postCommentVOList       评论列表第一页
+	 * @param postCommentQueryRequest 查询条件
+	 * @param size                    页面大小
+	 * @param request                 request
+	 * @return 合并到列表中的未落库评论，按 (createTime, id) 倒序
+	 */
+	@Override
+	public List<PostComment> mergePendingComments(List<PostCommentVO> postCommentVOList, PostCommentQueryRequest postCommentQueryRequest,
+	                                              long size, HttpServletRequest request) {
+		List<PostComment> pendingList = this.listPendingComments(postCommentQueryRequest.getPostId(), request);
+		if (pendingList.isEmpty()) {
+			return pendingList;
+		}
+		Set<Long> existIdSet = postCommentVOList.stream().map(PostCommentVO::getId).collect(Collectors.toSet());
+		List<PostComment> mergeList = pendingList.stream()
+				.filter(pending -> !existIdSet.contains(pending.getId()))
+				.filter(pending -> matchQuery(pending, postCommentQueryRequest))
+				.limit(size)
+				.collect(Collectors.toList());
+		if (mergeList.isEmpty()) {
+			return mergeList;
+		}
+		Map<Long, UserVO> userVOMap = userVOResolver.resolve(Collections.singleton(mergeList.get(0).getUserId()));
+		postCommentVOList.addAll(0, mergeList.stream()
+				.map(pending -> toPostCommentVO(pending, userVOMap))
+				.collect(Collectors.toList()));
+		// 合并后超出页面大小时去掉末尾的评论
+		if (postCommentVOList.size() > size) {
+			postCommentVOList.subList((int) size, postCommentVOList.size()).clear();
+		}
+		return mergeList;
+	}
+	
+	/**
+	 * 判断未落库的评论是否符合查询条件，与 {@link #getQueryWrapper} 的过滤条件保持一致
+	 *
+	 * @param postComment             未落库的评论
+	 * @param postCommentQueryRequest 查询条件
+	 * @return 是否符合查询条件
+	 */
+	private boolean matchQuery(PostComment postComment, PostCommentQueryRequest postCommentQueryRequest) {
+		String content = postCommentQueryRequest.getContent();
+		Long notId = postCommentQueryRequest.getNotId();
+		return (StringUtils.isBlank(content) || StringUtils.contains(postComment.getContent(), content))
+				&& (ObjectUtils.isEmpty(notId) || !notId.equals(postComment.getId()))
+				&& matchEq(postCommentQueryRequest.getId(), postComment.getId())
+				&& matchEq(postCommentQueryRequest.getUserId(), postComment.getUserId())
+				&& matchEq(postCommentQueryRequest.getRootId(), postComment.getRootId())
+				&& matchEq(postCommentQueryRequest.getToUid(), postComment.getToUid())
+				&& matchEq(postCommentQueryRequest.getToCommentId(), postComment.getToCommentId());
+	}
+	
+	/**
+	 * 判断精确查询条件，条件为空时视为符合
+	 *
+	 * @param condition 查询条件
+	 * @param value     评论中的值
+	 * @return 是否符合查询条件
+	 */
+	private boolean matchEq(Long condition, Long value) {
+		return ObjectUtils.isEmpty(condition) || condition.equals(value);
+	}
+	
+	/**
+	 * 将当前用户在帖子下尚未落库的评论合并到评论楼层中
+	 * <p>
+	 * 未落库的根评论作为新楼层放在第一页头部，未落库的回复追加到当前页对应楼层的回复列表末尾。
+	 * </p>
+	 *
+	 * @param threadPage 评论楼层分页
+	 * @param postId     帖子 id
+	 * @param request    request
+	 */
+	@Override
+	public void mergePendingThreads(Page<PostCommentThreadVO> threadPage, Long postId, HttpServletRequest request) {
+		List<PostComment> pendingList = this.listPendingComments(postId, request);
+		if (pendingList.isEmpty()) {
+			return;
+		}
+		List<PostCommentThreadVO> threadVOList = new ArrayList<>(threadPage.getRecords());
+		Set<Long> existIdSet = new HashSet<>();
+		Map<Long, PostCommentThreadVO> threadMap = new HashMap<>();
+		threadVOList.forEach(threadVO -> {
+			existIdSet.add(threadVO.getRootComment().getId());
+			threadVO.getReplyList().forEach(reply -> existIdSet.add(reply.getId()));
+			threadMap.put(threadVO.getRootComment().getId(), threadVO);
+		});
+		Map<Long, UserVO> userVOMap = userVOResolver.resolve(Collections.singleton(pendingList.get(0).getUserId()));
+		List<PostCommentThreadVO> pendingThreadList = new ArrayList<>();
+		// 未落库评论按时间倒序，回复需要按时间正序追加
+		for (int i = pendingList.size() - 1; i >= 0; i--) {
+			PostComment pending = pendingList.get(i);
+			if (existIdSet.contains(pending.getId())) {
+				continue;
+			}
+			PostCommentVO pendingVO = toPostCommentVO(pending, userVOMap);
+			if (pending.getRootId() == null || pending.getRootId() == 0) {
+				if (threadPage.getCurrent() == 1) {
+					PostCommentThreadVO threadVO = new PostCommentThreadVO();
+					threadVO.setRootComment(pendingVO);
+					threadVO.setReplyList(new ArrayList<>());
+					threadVO.setReplyCount(0L);
+					pendingThreadList.add(0, threadVO);
+				}
+				continue;
+			}
+			PostCommentThreadVO threadVO = threadMap.get(pending.getRootId());
+			if (threadVO != null) {
+				List<PostCommentVO> replyList = new ArrayList<>(threadVO.getReplyList());
+				replyList.add(pendingVO);
+				threadVO.setReplyList(replyList);
+				threadVO.setReplyCount(threadVO.getReplyCount() + 1);
+			}
+		}
+		threadVOList.addAll(0, pendingThreadList);
+		threadPage.setRecords(threadVOList);
+	}
+	
+	/**
+	 * 获取当前登录用户在帖子下尚未落库的评论
+	 *
+	 * @param postId  帖子 id
+	 * @param request request
+	 * @return 未落库的评论，按 (createTime, id) 倒序
+	 */
+	private List<PostComment> listPendingComments(Long postId, HttpServletRequest request) {
+		if (postId == null || !commentIngestManager.isEnabled()) {
+			return new ArrayList<>();
+		}
+		User loginUser = userService.getLoginUserPermitNull(request);
+		if (loginUser == null) {
+			return new ArrayList<>();
+		}
+		return commentIngestManager.listPending(postId, loginUser.getId());
+	}
 }
@@ -0,0 +1,112 @@
+package com.stephen.trajectory.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.RandomUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.stephen.trajectory.config.counter.properties.CounterProperties;
+import com.stephen.trajectory.manager.counter.model.CounterType;
+import com.stephen.trajectory.mapper.PostCounterShardMapper;
+import com.stephen.trajectory.mapper.PostMapper;
+import com.stephen.trajectory.model.entity.Post;
+import com.stephen.trajectory.model.entity.PostCounterShard;
+import com.stephen.trajectory.service.PostCounterShardService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 帖子计数分片服务实现
+ * <p>
+ * 热点帖子的点赞、收藏数随机写入 N 个分片行，避免所有请求竞争同一行帖子记录的行锁；
+ * 读取时累加分片，定时任务将分片合并回帖子表。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+@Service
+@Slf4j
+public class PostCounterShardServiceImpl extends ServiceImpl<PostCounterShardMapper, PostCounterShard>
+		implements PostCounterShardService {
+	
+	@Resource
+	private PostMapper postMapper;
+	
+	@Resource
+	private CounterProperties counterProperties;
+	
+	/**
+	 * 随机选择一个分片累加计数
+	 *
+	 * @param type   计数类型
+	 * @param postId postId
+	 * @param delta  增量
+	 */
+	@Override
+	public void increment(CounterType type, long postId, long delta) {
+		int slot = RandomUtil.randomInt(Math.max(1, counterProperties.getShardCount()));
+		if (CounterType.THUMB.equals(type)) {
+			baseMapper.increment(postId, slot, delta, 0L);
+		} else {
+			baseMapper.increment(postId, slot, 0L, delta);
+		}
+	}
+	
+	/**
+	 * 按帖子汇总未合并的分片计数
+	 *
+	 * @param postIds 帖子 id 集合
+	 * @return 帖子 id => 分片计数汇总，没有分片的帖子不在结果中
+	 */
+	@Override
+	public Map<Long, PostCounterShard> sumByPostIds(Collection<Long> postIds) {
+		if (CollUtil.isEmpty(postIds)) {
+			return new HashMap<>();
+		}
+		return baseMapper.sumByPostIds(postIds).stream()
+				.collect(Collectors.toMap(PostCounterShard::getPostId, shard -> shard, (a, b) -> a));
+	}
+	
+	/**
+	 * 获取存在未合并分片的帖子 id
+	 *
+	 * @param limit 最多返回数量
+	 * @return 帖子 id 列表
+	 */
+	@Override
+	public List<Long> listShardedPostIds(int limit) {
+		QueryWrapper<PostCounterShard> queryWrapper = new QueryWrapper<>();
+		queryWrapper.select("distinct postId");
+		queryWrapper.last("limit " + limit);
+		return baseMapper.selectObjs(queryWrapper).stream()
+				.map(postId -> Long.valueOf(postId.toString()))
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * 将帖子的分片计数合并回帖子表并删除分片
+	 *
+	 * @param postId postId
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public void compact(long postId) {
+		// 锁定分片，合并期间的新增量等待本次合并完成后再写入
+		PostCounterShard sum = baseMapper.sumForUpdate(postId);
+		long thumbNum = Optional.ofNullable(sum).map(PostCounterShard::getThumbNum).orElse(0L);
+		long favourNum = Optional.ofNullable(sum).map(PostCounterShard::getFavourNum).orElse(0L);
+		if (thumbNum != 0 || favourNum != 0) {
+			UpdateWrapper<Post> updateWrapper = new UpdateWrapper<>();
+			updateWrapper.eq("id", postId);
+			updateWrapper.setSql("thumbNum = GREATEST(thumbNum + " + thumbNum + ", 0)");
+			updateWrapper.setSql("favourNum = GREATEST(favourNum + " + favourNum + ", 0)");
+			postMapper.update(null, updateWrapper);
+		}
+		this.remove(new QueryWrapper<PostCounterShard>().eq("postId", postId));
+	}
+}
@@ -5,19 +5,35 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.stephen.trajectory.common.CursorPage;
 import com.stephen.trajectory.common.ErrorCode;
 import com.stephen.trajectory.common.exception.BusinessException;
+import com.stephen.trajectory.config.counter.properties.CounterProperties;
+import com.stephen.trajectory.manager.cache.EntityCacheManager;
+import com.stephen.trajectory.manager.cache.PostListCacheManager;
+import com.stephen.trajectory.manager.counter.HotPostManager;
+import com.stephen.trajectory.manager.counter.PostCounterManager;
+import com.stephen.trajectory.manager.counter.model.CounterBatch;
+import com.stephen.trajectory.manager.counter.model.CounterType;
 import com.stephen.trajectory.mapper.PostFavourMapper;
+import com.stephen.trajectory.mapper.PostMapper;
 import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.entity.PostFavour;
 import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.PostActionResultVO;
+import com.stephen.trajectory.model.vo.PostVO;
 import com.stephen.trajectory.service.PostFavourService;
+import com.stephen.trajectory.service.PostCounterShardService;
 import com.stephen.trajectory.service.PostService;
+import com.stephen.trajectory.utils.sql.CursorUtils;
 import org.springframework.aop.framework.AopContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * 帖子收藏服务实现
@@ -31,6 +47,27 @@ public class PostFavourServiceImpl extends ServiceImpl<PostFavourMapper, PostFav
 	@Resource
 	private PostService postService;
 	
+	@Resource
+	private PostListCacheManager postListCacheManager;
+	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	@Resource
+	private PostCounterManager postCounterManager;
+	
+	@Resource
+	private CounterProperties counterProperties;
+	
+	@Resource
+	private PostMapper postMapper;
+	
+	@Resource
+	private HotPostManager hotPostManager;
+	
+	@Resource
+	private PostCounterShardService postCounterShardService;
+	
 	/**
 	 * 帖子收藏
 	 *
@@ -47,12 +84,22 @@ public class PostFavourServiceImpl extends ServiceImpl<PostFavourMapper, PostFav
 		}
 		// 是否已帖子收藏
 		long userId = loginUser.getId();
-		// 每个用户串行帖子收藏
-		// 锁必须要包裹住事务方法
+		// Redis 原子切换收藏关系，由定时任务批量回写数据库
+		if (Boolean.TRUE.equals(counterProperties.getWriteBehind())) {
+			return postCounterManager.toggle(CounterType.FAVOUR, postId, userId);
+		}
+		// 依赖唯一索引按影响行数切换，无需先查询或加锁
 		PostFavourService postFavourService = (PostFavourService) AopContext.currentProxy();
-		synchronized (String.valueOf(userId).intern()) {
-			return postFavourService.doPostFavourInner(userId, postId);
+		int result = postFavourService.doPostFavourInner(userId, postId);
+		if (result != 0) {
+			// 同步更新用户关系集合
+			postCounterManager.applyToggle(CounterType.FAVOUR, postId, userId, result);
+			// 计数已变化，删除帖子实体缓存
+			entityCacheManager.evict(EntityCacheManager.POST_REGION, postId);
+			// 计数变化合并后再失效帖子列表缓存
+			postListCacheManager.evictDeferred();
 		}
+		return result;
 	}
 	
 	@Override
@@ -73,44 +120,185 @@ public class PostFavourServiceImpl extends ServiceImpl<PostFavourMapper, PostFav
 	@Override
 	@Transactional(rollbackFor = Exception.class)
 	public int doPostFavourInner(long userId, long postId) {
-		PostFavour postFavour = new PostFavour();
-		postFavour.setUserId(userId);
-		postFavour.setPostId(postId);
-		QueryWrapper<PostFavour> postFavourQueryWrapper = new QueryWrapper<>(postFavour);
-		PostFavour oldPostFavour = this.getOne(postFavourQueryWrapper);
-		boolean result;
-		// 已收藏
-		if (oldPostFavour != null) {
-			result = this.remove(postFavourQueryWrapper);
-			if (result) {
-				// 帖子收藏数 - 1
-				result = postService.update()
-						.eq("id", postId)
-						.gt("favourNum", 0)
-						.setSql("favourNum = favourNum - 1")
-						.update();
-				return result ? -1 : 0;
+		// 未收藏时插入成功，收藏数 + 1
+		if (baseMapper.insertIgnore(postId, userId) > 0) {
+			updateFavourNum(postId, 1);
+			return 1;
+		}
+		// 已收藏时删除成功，收藏数 - 1
+		QueryWrapper<PostFavour> postFavourQueryWrapper = new QueryWrapper<>();
+		postFavourQueryWrapper.eq("postId", postId);
+		postFavourQueryWrapper.eq("userId", userId);
+		if (baseMapper.delete(postFavourQueryWrapper) > 0) {
+			updateFavourNum(postId, -1);
+			return -1;
+		}
+		// 并发切换已被其他请求抵消
+		return 0;
+	}
+	
+	/**
+	 * 更新帖子收藏数，热点帖子写入随机分片，避免所有请求竞争帖子行锁
+	 *
+	 * @param postId postId
+	 * @param delta  增量
+	 */
+	private void updateFavourNum(long postId, int delta) {
+		if (hotPostManager.recordWrite(postId)) {
+			postCounterShardService.increment(CounterType.FAVOUR, postId, delta);
+			return;
+		}
+		postService.update()
+				.eq("id", postId)
+				.gt(delta < 0, "favourNum", 0)
+				.setSql("favourNum = favourNum + " + delta)
+				.update();
+	}
+	
+	/**
+	 * 按收藏时间游标分页获取用户收藏的帖子列表
+	 * <p>
+	 * 先在 (userId, createTime, postId) 覆盖索引上按游标取出帖子 id，再通过帖子批量缓存填充帖子信息
+	 * </p>
+	 *
+	 * @param favourUserId favourUserId
+	 * @param cursor      上一页返回的游标
+	 * @param size        页面大小
+	 * @param request     request
+	 * @return {@link CursorPage<PostVO>}
+	 */
+	@Override
+	public CursorPage<PostVO> listFavourPostVOByCursor(long favourUserId, String cursor, long size, HttpServletRequest request) {
+		if (favourUserId <= 0) {
+			return new CursorPage<>();
+		}
+		QueryWrapper<PostFavour> postFavourQueryWrapper = new QueryWrapper<>();
+		postFavourQueryWrapper.select("postId", "createTime");
+		postFavourQueryWrapper.eq("userId", favourUserId);
+		CursorUtils.applyCursor(postFavourQueryWrapper, cursor, "postId");
+		Page<PostFavour> postFavourPage = this.page(CursorUtils.buildPage(size), postFavourQueryWrapper);
+		return CursorUtils.toCursorPage(postFavourPage, size, PostFavour::getCreateTime, PostFavour::getPostId, page -> {
+			List<Long> postIdList = page.getRecords().stream()
+					.map(PostFavour::getPostId)
+					.collect(Collectors.toList());
+			// 按收藏时间顺序排列，已删除的帖子不返回
+			Map<Long, Post> postMap = postService.listByIds(postIdList).stream()
+					.collect(Collectors.toMap(Post::getId, post -> post, (a, b) -> a));
+			Page<Post> postPage = new Page<>(1, size, false);
+			postPage.setRecords(postIdList.stream()
+					.map(postMap::get)
+					.filter(Objects::nonNull)
+					.collect(Collectors.toList()));
+			return postService.getPostVOPage(postPage, request).getRecords();
+		});
+	}
+	
+	/**
+	 * 批量收藏 / 取消收藏
+	 *
+	 * @param actionMap 帖子 id => 是否收藏（按操作顺序）
+	 * @param loginUser loginUser
+	 * @return 每个帖子的处理结果
+	 */
+	@Override
+	public List<PostActionResultVO> doPostFavourBatch(Map<Long, Boolean> actionMap, User loginUser) {
+		long userId = loginUser.getId();
+		// 只处理存在的帖子
+		Set<Long> existPostIdSet = postService.listByIds(actionMap.keySet()).stream()
+				.map(Post::getId)
+				.collect(Collectors.toSet());
+		Map<Long, Boolean> validActionMap = new LinkedHashMap<>();
+		actionMap.forEach((postId, favour) -> {
+			if (existPostIdSet.contains(postId)) {
+				validActionMap.put(postId, favour);
+			}
+		});
+		Map<Long, Integer> resultMap = new HashMap<>();
+		if (!validActionMap.isEmpty()) {
+			if (Boolean.TRUE.equals(counterProperties.getWriteBehind())) {
+				// Redis 原子批量切换，由定时任务批量回写数据库
+				resultMap.putAll(postCounterManager.applyBatch(CounterType.FAVOUR, userId, validActionMap));
 			} else {
-				throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+				// 一个事务内批量写入
+				PostFavourService postFavourService = (PostFavourService) AopContext.currentProxy();
+				resultMap.putAll(postFavourService.doPostFavourBatchInner(userId, validActionMap));
+				resultMap.forEach((postId, result) -> {
+					if (result != 0) {
+						postCounterManager.applyToggle(CounterType.FAVOUR, postId, userId, result);
+						entityCacheManager.evict(EntityCacheManager.POST_REGION, postId);
+					}
+				});
+				postListCacheManager.evictDeferred();
 			}
-		} else {
-			// 未帖子收藏
-			result = this.save(postFavour);
-			if (result) {
-				// 帖子收藏数 + 1
-				result = postService.update()
-						.eq("id", postId)
-						.setSql("favourNum = favourNum + 1")
-						.update();
-				return result ? 1 : 0;
+		}
+		return actionMap.keySet().stream()
+				.map(postId -> existPostIdSet.contains(postId)
+						? new PostActionResultVO(postId, resultMap.getOrDefault(postId, 0), null)
+						: new PostActionResultVO(postId, 0, ErrorCode.NOT_FOUND_ERROR.getMessage()))
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * 一个事务内批量收藏 / 取消收藏：逐条插入、删除，并用一条语句合并更新收藏数
+	 *
+	 * @param userId    userId
+	 * @param actionMap 帖子 id => 是否收藏
+	 * @return 帖子 id => 本次变化数
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public Map<Long, Integer> doPostFavourBatchInner(long userId, Map<Long, Boolean> actionMap) {
+		// 1. 按帖子 id 顺序逐条插入、删除，按影响行数得到实际变化，不使用锁定读，
+		// 并发批次按相同顺序加锁，避免间隙锁互相等待导致死锁
+		Map<Long, Integer> resultMap = new HashMap<>();
+		new TreeMap<>(actionMap).forEach((postId, favour) -> {
+			int result;
+			if (Boolean.TRUE.equals(favour)) {
+				result = baseMapper.insertIgnore(postId, userId) > 0 ? 1 : 0;
 			} else {
-				throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+				QueryWrapper<PostFavour> postFavourQueryWrapper = new QueryWrapper<>();
+				postFavourQueryWrapper.eq("postId", postId);
+				postFavourQueryWrapper.eq("userId", userId);
+				result = baseMapper.delete(postFavourQueryWrapper) > 0 ? -1 : 0;
 			}
+			resultMap.put(postId, result);
+		});
+		// 2. 一条语句合并更新收藏数
+		Map<Long, Long> deltaMap = new HashMap<>();
+		resultMap.forEach((postId, result) -> {
+			if (result != 0) {
+				deltaMap.put(postId, (long) result);
+			}
+		});
+		if (!deltaMap.isEmpty()) {
+			postMapper.updateCountBatch(CounterType.FAVOUR.getCountColumn(), deltaMap);
+		}
+		return resultMap;
+	}
+	
+	/**
+	 * 批量回写收藏关系和帖子收藏数，一条语句合并更新计数
+	 *
+	 * @param counterBatch counterBatch
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public void flushCounterBatch(CounterBatch counterBatch) {
+		// 按影响行数计算实际变化，批次重试时不会重复计数
+		Map<Long, Long> changedMap = new HashMap<>();
+		// 1. 按帖子批量新增收藏关系
+		counterBatch.getAddMap().forEach((postId, userIdSet) ->
+				changedMap.merge(postId, (long) baseMapper.insertIgnoreBatch(postId, userIdSet), Long::sum));
+		// 2. 按帖子批量删除收藏关系
+		counterBatch.getRemoveMap().forEach((postId, userIdSet) ->
+				changedMap.merge(postId, -(long) baseMapper.delete(new QueryWrapper<PostFavour>()
+						.eq("postId", postId)
+						.in("userId", userIdSet)), Long::sum));
+		// 3. 一条语句合并更新收藏数
+		changedMap.values().removeIf(delta -> delta == 0);
+		if (!changedMap.isEmpty()) {
+			postMapper.updateCountBatch(CounterType.FAVOUR.getCountColumn(), changedMap);
 		}
 	}
 	
 }
-
-
-
-
@@ -8,32 +8,42 @@ import com.stephen.trajectory.common.ErrorCode;
 import com.stephen.trajectory.common.ThrowUtils;
 import com.stephen.trajectory.common.exception.BusinessException;
 import com.stephen.trajectory.constants.CommonConstant;
-import com.stephen.trajectory.mapper.PostFavourMapper;
+import com.stephen.trajectory.manager.cache.EntityCacheManager;
+import com.stephen.trajectory.manager.cache.UserVOResolver;
+import com.stephen.trajectory.manager.counter.HotPostManager;
+import com.stephen.trajectory.manager.counter.PostCounterManager;
+import com.stephen.trajectory.manager.enrichment.EnrichmentManager;
 import com.stephen.trajectory.mapper.PostMapper;
-import com.stephen.trajectory.mapper.PostThumbMapper;
 import com.stephen.trajectory.model.dto.post.PostQueryRequest;
+import com.stephen.trajectory.model.dto.post.PostEngagementCountDTO;
+import com.stephen.trajectory.model.dto.post.PostViewerStateDTO;
 import com.stephen.trajectory.model.entity.Post;
-import com.stephen.trajectory.model.entity.PostFavour;
-import com.stephen.trajectory.model.entity.PostThumb;
+import com.stephen.trajectory.model.entity.PostCounterShard;
 import com.stephen.trajectory.model.entity.User;
 import com.stephen.trajectory.model.vo.PostVO;
 import com.stephen.trajectory.model.vo.UserVO;
+import com.stephen.trajectory.service.PostCounterShardService;
 import com.stephen.trajectory.service.PostService;
+import com.stephen.trajectory.service.PostTagService;
 import com.stephen.trajectory.service.UserService;
 import com.stephen.trajectory.utils.sql.SqlUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -49,10 +59,97 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
 	private UserService userService;
 	
 	@Resource
-	private PostThumbMapper postThumbMapper;
+	private UserVOResolver userVOResolver;
 	
 	@Resource
-	private PostFavourMapper postFavourMapper;
+	private EnrichmentManager enrichmentManager;
+	
+	@Resource
+	private PostCounterManager postCounterManager;
+	
+	@Resource
+	private PostTagService postTagService;
+	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	@Resource
+	private PostCounterShardService postCounterShardService;
+	
+	@Resource
+	private HotPostManager hotPostManager;
+	
+	/**
+	 * 按 id 获取帖子（读穿实体缓存）
+	 *
+	 * @param id id
+	 * @return {@link Post}
+	 */
+	@Override
+	public Post getById(Serializable id) {
+		return entityCacheManager.getById(EntityCacheManager.POST_REGION, id, Post.class, super::getById);
+	}
+	
+	/**
+	 * 按 id 批量获取帖子（读穿实体缓存，未命中的 id 一次性查询数据库）
+	 *
+	 * @param idList idList
+	 * @return {@link List<Post>}
+	 */
+	@Override
+	public List<Post> listByIds(Collection<? extends Serializable> idList) {
+		return entityCacheManager.listByIds(EntityCacheManager.POST_REGION, idList, Post.class, super::listByIds, Post::getId);
+	}
+	
+	/**
+	 * 新增帖子，同时写入帖子标签倒排索引
+	 *
+	 * @param post post
+	 * @return boolean
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public boolean save(Post post) {
+		boolean result = super.save(post);
+		if (result) {
+			postTagService.syncPostTags(post.getId(), post.getTags());
+		}
+		return result;
+	}
+	
+	/**
+	 * 更新帖子，删除实体缓存，标签有变化时重建帖子标签倒排索引
+	 *
+	 * @param post post
+	 * @return boolean
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public boolean updateById(Post post) {
+		boolean result = super.updateById(post);
+		entityCacheManager.evict(EntityCacheManager.POST_REGION, post.getId());
+		if (result && post.getTags() != null) {
+			postTagService.syncPostTags(post.getId(), post.getTags());
+		}
+		return result;
+	}
+	
+	/**
+	 * 删除帖子，删除实体缓存并清理帖子标签倒排索引
+	 *
+	 * @param id id
+	 * @return boolean
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public boolean removeById(Serializable id) {
+		boolean result = super.removeById(id);
+		entityCacheManager.evict(EntityCacheManager.POST_REGION, id);
+		if (result) {
+			postTagService.removeByPostId(Long.valueOf(id.toString()));
+		}
+		return result;
+	}
 	
 	/**
 	 * 校验帖子信息
@@ -97,6 +194,7 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
 		String title = postQueryRequest.getTitle();
 		String content = postQueryRequest.getContent();
 		List<String> tagList = postQueryRequest.getTags();
+		List<String> orTagList = postQueryRequest.getOrTags();
 		Long userId = postQueryRequest.getUserId();
 		Long notId = postQueryRequest.getNotId();
 		// 拼接查询条件
@@ -106,11 +204,17 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
 		// 模糊查询
 		queryWrapper.like(StringUtils.isNotBlank(title), "title", title);
 		queryWrapper.like(StringUtils.isNotBlank(content), "content", content);
-		// 遍历查询
-		if (CollUtil.isNotEmpty(tagList)) {
-			for (String tag : tagList) {
-				queryWrapper.like("tags", "\"" + tag + "\"");
-			}
+		// 标签查询走 post_tag 倒排索引，tags 需同时命中全部标签，orTags 命中任意标签即可
+		// 与写入标签关联表时的规范化规则一致，HAVING COUNT(*) 才能与去重后的标签数量对应
+		List<String> distinctTagList = SqlUtils.normalizeTagList(tagList);
+		if (CollUtil.isNotEmpty(distinctTagList)) {
+			queryWrapper.apply(SqlUtils.buildTagFilterSql("post_tag", "postId", distinctTagList.size(), true),
+					distinctTagList.toArray());
+		}
+		List<String> distinctOrTagList = SqlUtils.normalizeTagList(orTagList);
+		if (CollUtil.isNotEmpty(distinctOrTagList)) {
+			queryWrapper.apply(SqlUtils.buildTagFilterSql("post_tag", "postId", distinctOrTagList.size(), false),
+					distinctOrTagList.toArray());
 		}
 		// 精准查询
 		queryWrapper.ne(ObjectUtils.isNotEmpty(notId), "id", notId);
@@ -131,31 +235,12 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
 	@Override
 	public PostVO getPostVO(Post post, HttpServletRequest request) {
 		PostVO postVO = PostVO.objToVo(post);
-		long postId = post.getId();
 		// 1. 关联查询用户信息
-		Long userId = post.getUserId();
-		User user = null;
-		if (userId != null && userId > 0) {
-			user = userService.getById(userId);
-		}
-		UserVO userVO = userService.getUserVO(user, request);
-		postVO.setUserVO(userVO);
-		// 2. 已登录，获取用户点赞、收藏状态
-		User loginUser = userService.getLoginUserPermitNull(request);
-		if (loginUser != null) {
-			// 获取点赞
-			QueryWrapper<PostThumb> postThumbQueryWrapper = new QueryWrapper<>();
-			postThumbQueryWrapper.in("postId", postId);
-			postThumbQueryWrapper.eq("userId", loginUser.getId());
-			PostThumb postThumb = postThumbMapper.selectOne(postThumbQueryWrapper);
-			postVO.setHasThumb(postThumb != null);
-			// 获取收藏
-			QueryWrapper<PostFavour> postFavourQueryWrapper = new QueryWrapper<>();
-			postFavourQueryWrapper.in("postId", postId);
-			postFavourQueryWrapper.eq("userId", loginUser.getId());
-			PostFavour postFavour = postFavourMapper.selectOne(postFavourQueryWrapper);
-			postVO.setHasFavour(postFavour != null);
-		}
+		postVO.setUserVO(userVOResolver.resolve(post.getUserId()));
+		// 2. 累加热点帖子尚未合并的分片计数（只在存在本节点热点帖子时查询）
+		this.mergeShardCount(Collections.singletonList(postVO));
+		// 3. 获取当前用户点赞、收藏状态
+		this.fillViewerState(Collections.singletonList(postVO), request);
 		return postVO;
 	}
 	
@@ -168,71 +253,211 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
 	 */
 	@Override
 	public Page<PostVO> getPostVOPage(Page<Post> postPage, HttpServletRequest request) {
+		Page<PostVO> postVOPage = this.getPostVOSkeletonPage(postPage, request);
+		this.fillViewerState(postVOPage.getRecords(), request);
+		return postVOPage;
+	}
+	
+	/**
+	 * 分页获取帖子骨架视图类（不包含当前用户的点赞、收藏状态）
+	 *
+	 * @param postPage postPage
+	 * @param request  request
+	 * @return {@link Page<PostVO>}
+	 */
+	@Override
+	public Page<PostVO> getPostVOSkeletonPage(Page<Post> postPage, HttpServletRequest request) {
 		List<Post> postList = postPage.getRecords();
 		Page<PostVO> postVOPage = new Page<>(postPage.getCurrent(), postPage.getSize(), postPage.getTotal());
 		if (CollUtil.isEmpty(postList)) {
 			return postVOPage;
 		}
-		// 获取登录用户信息
+		// 关联查询用户信息
+		Set<Long> userIdSet = postList.stream().map(Post::getUserId).collect(Collectors.toSet());
+		Map<Long, UserVO> userVOMap = userVOResolver.resolve(userIdSet);
+		// 填充信息
+		List<PostVO> postVOList = postList.stream().map(post -> {
+			PostVO postVO = PostVO.objToVo(post);
+			postVO.setUserVO(userVOMap.get(post.getUserId()));
+			return postVO;
+		}).collect(Collectors.toList());
+		// 累加热点帖子尚未合并的分片计数
+		this.mergeShardCount(postVOList);
+		postVOPage.setRecords(postVOList);
+		return postVOPage;
+	}
+	
+	/**
+	 * 将热点帖子尚未合并的分片计数累加到点赞、收藏数上
+	 * <p>
+	 * 只查询本节点最近写过分片的帖子，未开启分片（默认的异步回写模式）或没有热点帖子时不访问数据库
+	 * </p>
+	 *
+	 * @param postVOList postVOList
+	 */
+	private void mergeShardCount(List<PostVO> postVOList) {
+		Set<Long> postIdSet = hotPostManager.filterSharded(
+				postVOList.stream().map(PostVO::getId).collect(Collectors.toList()));
+		if (postIdSet.isEmpty()) {
+			return;
+		}
+		Map<Long, PostCounterShard> shardMap = postCounterShardService.sumByPostIds(postIdSet);
+		if (shardMap.isEmpty()) {
+			return;
+		}
+		postVOList.forEach(postVO -> {
+			PostCounterShard shard = shardMap.get(postVO.getId());
+			if (shard == null) {
+				return;
+			}
+			postVO.setThumbNum((int) Math.max(0, Optional.ofNullable(postVO.getThumbNum()).orElse(0) + shard.getThumbNum()));
+			postVO.setFavourNum((int) Math.max(0, Optional.ofNullable(postVO.getFavourNum()).orElse(0) + shard.getFavourNum()));
+		});
+	}
+	
+	/**
+	 * 批量填充当前用户的点赞、收藏状态（查询超时或失败时保持为 null，表示状态未知）
+	 *
+	 * @param postVOList postVOList
+	 * @param request    request
+	 */
+	@Override
+	public void fillViewerState(List<PostVO> postVOList, HttpServletRequest request) {
+		if (CollUtil.isEmpty(postVOList)) {
+			return;
+		}
+		// 获取登录用户信息，未登录时点赞、收藏状态均为 false
 		User loginUser = userService.getLoginUserPermitNull(request);
-		// 1. 异步获取用户信息
-		CompletableFuture<Map<Long, List<User>>> userMapFuture = CompletableFuture.supplyAsync(() -> {
-			Set<Long> userIdSet = postList.stream().map(Post::getUserId).collect(Collectors.toSet());
-			return userService.listByIds(userIdSet).stream()
-					.collect(Collectors.groupingBy(User::getId));
+		if (loginUser == null) {
+			postVOList.forEach(postVO -> {
+				postVO.setHasThumb(false);
+				postVO.setHasFavour(false);
+			});
+			return;
+		}
+		Set<Long> postIdSet = postVOList.stream().map(PostVO::getId).collect(Collectors.toSet());
+		// 一次查询点赞、收藏状态，超时或失败时不填充（状态未知），由客户端保留本地状态，避免误显示为未点赞后被再次点击取消
+		CompletableFuture<Map<Long, PostViewerStateDTO>> viewerStateFuture = enrichmentManager.supply("postViewerState",
+				() -> this.loadViewerStateMap(postIdSet, loginUser.getId()));
+		Map<Long, PostViewerStateDTO> viewerStateMap = enrichmentManager.join("postViewerState", viewerStateFuture,
+				enrichmentManager.newDeadline(), null);
+		if (viewerStateMap == null) {
+			return;
+		}
+		// 合并到帖子骨架上
+		postVOList.forEach(postVO -> {
+			PostViewerStateDTO viewerState = viewerStateMap.get(postVO.getId());
+			postVO.setHasThumb(viewerState != null && Boolean.TRUE.equals(viewerState.getHasThumb()));
+			postVO.setHasFavour(viewerState != null && Boolean.TRUE.equals(viewerState.getHasFavour()));
 		});
-		// 2. 异步获取点赞状态
-		CompletableFuture<Map<Long, Boolean>> thumbMapFuture = CompletableFuture.supplyAsync(() -> {
-			Map<Long, Boolean> postIdHasThumbMap = new HashMap<>();
-			if (loginUser != null) {
-				Set<Long> postIdSet = postList.stream().map(Post::getId).collect(Collectors.toSet());
-				QueryWrapper<PostThumb> postThumbQueryWrapper = new QueryWrapper<>();
-				postThumbQueryWrapper.in("postId", postIdSet);
-				postThumbQueryWrapper.eq("userId", loginUser.getId());
-				postThumbMapper.selectList(postThumbQueryWrapper)
-						.forEach(postThumb -> postIdHasThumbMap.put(postThumb.getPostId(), true));
+	}
+	
+	/**
+	 * 优先从 Redis 中的用户关系集合获取点赞、收藏状态，Redis 异常时回退到数据库查询
+	 *
+	 * @param postIds 帖子 id 集合
+	 * @param userId  用户 id
+	 * @return 帖子 id => 点赞、收藏状态
+	 */
+	private Map<Long, PostViewerStateDTO> loadViewerStateMap(Collection<Long> postIds, Long userId) {
+		try {
+			return postCounterManager.getViewerStateMap(postIds, userId);
+		} catch (Exception e) {
+			log.error("从 Redis 获取点赞、收藏状态失败，回退到数据库查询, userId: {}", userId, e);
+			return this.getViewerStateMap(postIds, userId);
+		}
+	}
+	
+	/**
+	 * 批量获取用户对帖子的点赞、收藏状态（一次数据库往返）
+	 *
+	 * @param postIds 帖子 id 集合
+	 * @param userId  用户 id
+	 * @return 帖子 id => 点赞、收藏状态，未点赞且未收藏的帖子不在结果中
+	 */
+	@Override
+	public Map<Long, PostViewerStateDTO> getViewerStateMap(Collection<Long> postIds, Long userId) {
+		if (CollUtil.isEmpty(postIds) || userId == null) {
+			return new HashMap<>();
+		}
+		return this.baseMapper.listViewerState(userId, postIds).stream()
+				.collect(Collectors.toMap(PostViewerStateDTO::getPostId, viewerState -> viewerState, (a, b) -> a));
+	}
+	
+	/**
+	 * 计算帖子点赞、收藏数与实际记录数的偏差（不加锁，用于筛选需要修复的帖子）
+	 * <p>
+	 * 热点帖子尚未合并的分片计数也属于帖子计数，期望值 = 实际记录数 - 分片计数。
+	 * </p>
+	 *
+	 * @param postList 帖子列表（需要包含 id、thumbNum、favourNum）
+	 * @return 帖子 id => 计数偏差（正数表示计数偏小），没有偏差的帖子不在结果中
+	 */
+	@Override
+	public Map<Long, PostEngagementCountDTO> getCountDriftMap(List<Post> postList) {
+		Map<Long, PostEngagementCountDTO> driftMap = new HashMap<>();
+		if (CollUtil.isEmpty(postList)) {
+			return driftMap;
+		}
+		Set<Long> postIdSet = postList.stream().map(Post::getId).collect(Collectors.toSet());
+		Map<Long, PostEngagementCountDTO> countMap = this.baseMapper.listEngagementCount(postIdSet).stream()
+				.collect(Collectors.toMap(PostEngagementCountDTO::getPostId, count -> count, (a, b) -> a));
+		Map<Long, PostCounterShard> shardMap = postCounterShardService.sumByPostIds(postIdSet);
+		postList.forEach(post -> {
+			PostEngagementCountDTO count = countMap.get(post.getId());
+			PostCounterShard shard = shardMap.get(post.getId());
+			long expectedThumbNum = Math.max(0, (count == null ? 0 : count.getThumbNum()) - (shard == null ? 0 : shard.getThumbNum()));
+			long expectedFavourNum = Math.max(0, (count == null ? 0 : count.getFavourNum()) - (shard == null ? 0 : shard.getFavourNum()));
+			long thumbDrift = expectedThumbNum - Optional.ofNullable(post.getThumbNum()).orElse(0);
+			long favourDrift = expectedFavourNum - Optional.ofNullable(post.getFavourNum()).orElse(0);
+			if (thumbDrift != 0 || favourDrift != 0) {
+				PostEngagementCountDTO drift = new PostEngagementCountDTO();
+				drift.setPostId(post.getId());
+				drift.setThumbNum(thumbDrift);
+				drift.setFavourNum(favourDrift);
+				driftMap.put(post.getId(), drift);
 			}
-			return postIdHasThumbMap;
 		});
-		// 3. 异步获取收藏状态
-		CompletableFuture<Map<Long, Boolean>> favourMapFuture = CompletableFuture.supplyAsync(() -> {
-			Map<Long, Boolean> postIdHasFavourMap = new HashMap<>();
-			if (loginUser != null) {
-				Set<Long> postIdSet = postList.stream().map(Post::getId).collect(Collectors.toSet());
-				QueryWrapper<PostFavour> postFavourQueryWrapper = new QueryWrapper<>();
-				postFavourQueryWrapper.in("postId", postIdSet);
-				postFavourQueryWrapper.eq("userId", loginUser.getId());
-				postFavourMapper.selectList(postFavourQueryWrapper)
-						.forEach(postFavour -> postIdHasFavourMap.put(postFavour.getPostId(), true));
+		return driftMap;
+	}
+	
+	/**
+	 * 锁定帖子后重新计算偏差并修复点赞、收藏数
+	 * <p>
+	 * 先锁定帖子行再统计记录数，统计读取的快照晚于加锁，已提交的点赞、收藏都会被计入；
+	 * 尚未提交的点赞、收藏会等待帖子行锁释放后再更新计数，不会被重复计算。
+	 * </p>
+	 *
+	 * @param postIds 帖子 id 集合
+	 * @return 帖子 id => 已修复的计数偏差
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public Map<Long, PostEngagementCountDTO> repairCountDrift(Collection<Long> postIds) {
+		if (CollUtil.isEmpty(postIds)) {
+			return new HashMap<>();
+		}
+		Map<Long, PostEngagementCountDTO> driftMap = this.getCountDriftMap(this.baseMapper.listCountForUpdate(postIds));
+		if (driftMap.isEmpty()) {
+			return driftMap;
+		}
+		Map<Long, Long> thumbDeltaMap = new HashMap<>();
+		Map<Long, Long> favourDeltaMap = new HashMap<>();
+		driftMap.forEach((postId, drift) -> {
+			if (drift.getThumbNum() != 0) {
+				thumbDeltaMap.put(postId, drift.getThumbNum());
+			}
+			if (drift.getFavourNum() != 0) {
+				favourDeltaMap.put(postId, drift.getFavourNum());
 			}
-			return postIdHasFavourMap;
 		});
-		
-		try {
-			// 等待所有的异步任务执行完毕
-			
-			// 获取异步执行结果
-			Map<Long, List<User>> userIdUserListMap = userMapFuture.get();
-			Map<Long, Boolean> postIdHasThumbMap = thumbMapFuture.get();
-			Map<Long, Boolean> postIdHasFavourMap = favourMapFuture.get();
-			
-			// 填充信息
-			List<PostVO> postVOList = postList.stream().map(post -> {
-				PostVO postVO = PostVO.objToVo(post);
-				Long userId = post.getUserId();
-				User user = null;
-				if (userIdUserListMap.containsKey(userId)) {
-					user = userIdUserListMap.get(userId).get(0);
-				}
-				postVO.setUserVO(userService.getUserVO(user, request));
-				postVO.setHasThumb(postIdHasThumbMap.getOrDefault(post.getId(), false));
-				postVO.setHasFavour(postIdHasFavourMap.getOrDefault(post.getId(), false));
-				return postVO;
-			}).collect(Collectors.toList());
-			postVOPage.setRecords(postVOList);
-		} catch (InterruptedException | ExecutionException e) {
-			throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取帖子信息失败");
+		if (!thumbDeltaMap.isEmpty()) {
+			this.baseMapper.updateCountBatch("thumbNum", thumbDeltaMap);
 		}
-		return postVOPage;
+		if (!favourDeltaMap.isEmpty()) {
+			this.baseMapper.updateCountBatch("favourNum", favourDeltaMap);
+		}
+		driftMap.keySet().forEach(postId -> entityCacheManager.evict(EntityCacheManager.POST_REGION, postId));
+		return driftMap;
 	}
-}
\ No newline at end of file
+}
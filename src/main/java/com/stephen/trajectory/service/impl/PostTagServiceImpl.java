@@ -0,0 +1,64 @@
+package com.stephen.trajectory.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.stephen.trajectory.mapper.PostTagMapper;
+import com.stephen.trajectory.model.entity.PostTag;
+import com.stephen.trajectory.service.PostTagService;
+import com.stephen.trajectory.utils.sql.SqlUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 帖子标签关联服务实现
+ *
+ * @author stephen qiu
+ */
+@Service
+@Slf4j
+public class PostTagServiceImpl extends ServiceImpl<PostTagMapper, PostTag> implements PostTagService {
+	
+	/**
+	 * 按帖子最新的标签列表重建帖子标签关联
+	 *
+	 * @param postId postId
+	 * @param tags   标签列表（JSON 字符数组）
+	 */
+	@Override
+	public void syncPostTags(Long postId, String tags) {
+		if (postId == null) {
+			return;
+		}
+		this.removeByPostId(postId);
+		if (StringUtils.isBlank(tags) || !JSONUtil.isTypeJSONArray(tags)) {
+			return;
+		}
+		List<PostTag> postTagList = SqlUtils.normalizeTagList(JSONUtil.toList(tags, String.class)).stream()
+				.map(tagName -> {
+					PostTag postTag = new PostTag();
+					postTag.setPostId(postId);
+					postTag.setTagName(tagName);
+					return postTag;
+				})
+				.collect(Collectors.toList());
+		if (CollUtil.isNotEmpty(postTagList)) {
+			this.saveBatch(postTagList);
+		}
+	}
+	
+	/**
+	 * 删除帖子的全部帖子标签关联
+	 *
+	 * @param postId postId
+	 */
+	@Override
+	public void removeByPostId(Long postId) {
+		this.remove(new QueryWrapper<PostTag>().eq("postId", postId));
+	}
+}
@@ -5,19 +5,35 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.stephen.trajectory.common.CursorPage;
 import com.stephen.trajectory.common.ErrorCode;
 import com.stephen.trajectory.common.exception.BusinessException;
+import com.stephen.trajectory.config.counter.properties.CounterProperties;
+import com.stephen.trajectory.manager.cache.EntityCacheManager;
+import com.stephen.trajectory.manager.cache.PostListCacheManager;
+import com.stephen.trajectory.manager.counter.HotPostManager;
+import com.stephen.trajectory.manager.counter.PostCounterManager;
+import com.stephen.trajectory.manager.counter.model.CounterBatch;
+import com.stephen.trajectory.manager.counter.model.CounterType;
+import com.stephen.trajectory.mapper.PostMapper;
 import com.stephen.trajectory.mapper.PostThumbMapper;
 import com.stephen.trajectory.model.entity.Post;
 import com.stephen.trajectory.model.entity.PostThumb;
 import com.stephen.trajectory.model.entity.User;
+import com.stephen.trajectory.model.vo.PostActionResultVO;
+import com.stephen.trajectory.model.vo.PostVO;
+import com.stephen.trajectory.service.PostCounterShardService;
 import com.stephen.trajectory.service.PostService;
 import com.stephen.trajectory.service.PostThumbService;
+import com.stephen.trajectory.utils.sql.CursorUtils;
 import org.springframework.aop.framework.AopContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * 帖子点赞服务实现
@@ -31,6 +47,27 @@ public class PostThumbServiceImpl extends ServiceImpl<PostThumbMapper, PostThumb
 	@Resource
 	private PostService postService;
 	
+	@Resource
+	private PostListCacheManager postListCacheManager;
+	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	@Resource
+	private PostCounterManager postCounterManager;
+	
+	@Resource
+	private CounterProperties counterProperties;
+	
+	@Resource
+	private PostMapper postMapper;
+	
+	@Resource
+	private HotPostManager hotPostManager;
+	
+	@Resource
+	private PostCounterShardService postCounterShardService;
+	
 	/**
 	 * 点赞
 	 *
@@ -47,12 +84,22 @@ public class PostThumbServiceImpl extends ServiceImpl<PostThumbMapper, PostThumb
 		}
 		// 是否已点赞
 		long userId = loginUser.getId();
-		// 每个用户串行点赞
-		// 锁必须要包裹住事务方法
+		// Redis 原子切换点赞关系，由定时任务批量回写数据库
+		if (Boolean.TRUE.equals(counterProperties.getWriteBehind())) {
+			return postCounterManager.toggle(CounterType.THUMB, postId, userId);
+		}
+		// 依赖唯一索引按影响行数切换，无需先查询或加锁
 		PostThumbService postThumbService = (PostThumbService) AopContext.currentProxy();
-		synchronized (String.valueOf(userId).intern()) {
-			return postThumbService.doPostThumbInner(userId, postId);
+		int result = postThumbService.doPostThumbInner(userId, postId);
+		if (result != 0) {
+			// 同步更新用户关系集合
+			postCounterManager.applyToggle(CounterType.THUMB, postId, userId, result);
+			// 计数已变化，删除帖子实体缓存
+			entityCacheManager.evict(EntityCacheManager.POST_REGION, postId);
+			// 计数变化合并后再失效帖子列表缓存
+			postListCacheManager.evictDeferred();
 		}
+		return result;
 	}
 	
 	/**
@@ -65,40 +112,39 @@ public class PostThumbServiceImpl extends ServiceImpl<PostThumbMapper, PostThumb
 	@Override
 	@Transactional(rollbackFor = Exception.class)
 	public int doPostThumbInner(long userId, long postId) {
-		PostThumb postThumb = new PostThumb();
-		postThumb.setUserId(userId);
-		postThumb.setPostId(postId);
-		QueryWrapper<PostThumb> thumbQueryWrapper = new QueryWrapper<>(postThumb);
-		PostThumb oldPostThumb = this.getOne(thumbQueryWrapper);
-		boolean result;
-		// 已点赞
-		if (oldPostThumb != null) {
-			result = this.remove(thumbQueryWrapper);
-			if (result) {
-				// 点赞数 - 1
-				result = postService.update()
-						.eq("id", postId)
-						.gt("thumbNum", 0)
-						.setSql("thumbNum = thumbNum - 1")
-						.update();
-				return result ? -1 : 0;
-			} else {
-				throw new BusinessException(ErrorCode.SYSTEM_ERROR);
-			}
-		} else {
-			// 未点赞
-			result = this.save(postThumb);
-			if (result) {
-				// 点赞数 + 1
-				result = postService.update()
-						.eq("id", postId)
-						.setSql("thumbNum = thumbNum + 1")
-						.update();
-				return result ? 1 : 0;
-			} else {
-				throw new BusinessException(ErrorCode.SYSTEM_ERROR);
-			}
+		// 未点赞时插入成功，点赞数 + 1
+		if (baseMapper.insertIgnore(postId, userId) > 0) {
+			updateThumbNum(postId, 1);
+			return 1;
+		}
+		// 已点赞时删除成功，点赞数 - 1
+		QueryWrapper<PostThumb> postThumbQueryWrapper = new QueryWrapper<>();
+		postThumbQueryWrapper.eq("postId", postId);
+		postThumbQueryWrapper.eq("userId", userId);
+		if (baseMapper.delete(postThumbQueryWrapper) > 0) {
+			updateThumbNum(postId, -1);
+			return -1;
+		}
+		// 并发切换已被其他请求抵消
+		return 0;
+	}
+	
+	/**
+	 * 更新帖子点赞数，热点帖子写入随机分片，避免所有请求竞争帖子行锁
+	 *
+	 * @param postId postId
+	 * @param delta  增量
+	 */
+	private void updateThumbNum(long postId, int delta) {
+		if (hotPostManager.recordWrite(postId)) {
+			postCounterShardService.increment(CounterType.THUMB, postId, delta);
+			return;
 		}
+		postService.update()
+				.eq("id", postId)
+				.gt(delta < 0, "thumbNum", 0)
+				.setSql("thumbNum = thumbNum + " + delta)
+				.update();
 	}
 	
 	/**
@@ -117,8 +163,150 @@ public class PostThumbServiceImpl extends ServiceImpl<PostThumbMapper, PostThumb
 		return baseMapper.listThumbPostByPage(page, queryWrapper, thumbUserId);
 	}
 	
+	/**
+	 * 按点赞时间游标分页获取用户点赞的帖子列表
+	 * <p>
+	 * 先在 (userId, createTime, postId) 覆盖索引上按游标取出帖子 id，再通过帖子批量缓存填充帖子信息
+	 * </p>
+	 *
+	 * @param thumbUserId thumbUserId
+	 * @param cursor      上一页返回的游标
+	 * @param size        页面大小
+	 * @param request     request
+	 * @return {@link CursorPage<PostVO>}
+	 */
+	@Override
+	public CursorPage<PostVO> listThumbPostVOByCursor(long thumbUserId, String cursor, long size, HttpServletRequest request) {
+		if (thumbUserId <= 0) {
+			return new CursorPage<>();
+		}
+		QueryWrapper<PostThumb> postThumbQueryWrapper = new QueryWrapper<>();
+		postThumbQueryWrapper.select("postId", "createTime");
+		postThumbQueryWrapper.eq("userId", thumbUserId);
+		CursorUtils.applyCursor(postThumbQueryWrapper, cursor, "postId");
+		Page<PostThumb> postThumbPage = this.page(CursorUtils.buildPage(size), postThumbQueryWrapper);
+		return CursorUtils.toCursorPage(postThumbPage, size, PostThumb::getCreateTime, PostThumb::getPostId, page -> {
+			List<Long> postIdList = page.getRecords().stream()
+					.map(PostThumb::getPostId)
+					.collect(Collectors.toList());
+			// 按点赞时间顺序排列，已删除的帖子不返回
+			Map<Long, Post> postMap = postService.listByIds(postIdList).stream()
+					.collect(Collectors.toMap(Post::getId, post -> post, (a, b) -> a));
+			Page<Post> postPage = new Page<>(1, size, false);
+			postPage.setRecords(postIdList.stream()
+					.map(postMap::get)
+					.filter(Objects::nonNull)
+					.collect(Collectors.toList()));
+			return postService.getPostVOPage(postPage, request).getRecords();
+		});
+	}
+	
+	/**
+	 * 批量点赞 / 取消点赞
+	 *
+	 * @param actionMap 帖子 id => 是否点赞（按操作顺序）
+	 * @param loginUser loginUser
+	 * @return 每个帖子的处理结果
+	 */
+	@Override
+	public List<PostActionResultVO> doPostThumbBatch(Map<Long, Boolean> actionMap, User loginUser) {
+		long userId = loginUser.getId();
+		// 只处理存在的帖子
+		Set<Long> existPostIdSet = postService.listByIds(actionMap.keySet()).stream()
+				.map(Post::getId)
+				.collect(Collectors.toSet());
+		Map<Long, Boolean> validActionMap = new LinkedHashMap<>();
+		actionMap.forEach((postId, thumb) -> {
+			if (existPostIdSet.contains(postId)) {
+				validActionMap.put(postId, thumb);
+			}
+		});
+		Map<Long, Integer> resultMap = new HashMap<>();
+		if (!validActionMap.isEmpty()) {
+			if (Boolean.TRUE.equals(counterProperties.getWriteBehind())) {
+				// Redis 原子批量切换，由定时任务批量回写数据库
+				resultMap.putAll(postCounterManager.applyBatch(CounterType.THUMB, userId, validActionMap));
+			} else {
+				// 一个事务内批量写入
+				PostThumbService postThumbService = (PostThumbService) AopContext.currentProxy();
+				resultMap.putAll(postThumbService.doPostThumbBatchInner(userId, validActionMap));
+				resultMap.forEach((postId, result) -> {
+					if (result != 0) {
+						postCounterManager.applyToggle(CounterType.THUMB, postId, userId, result);
+						entityCacheManager.evict(EntityCacheManager.POST_REGION, postId);
+					}
+				});
+				postListCacheManager.evictDeferred();
+			}
+		}
+		return actionMap.keySet().stream()
+				.map(postId -> existPostIdSet.contains(postId)
+						? new PostActionResultVO(postId, resultMap.getOrDefault(postId, 0), null)
+						: new PostActionResultVO(postId, 0, ErrorCode.NOT_FOUND_ERROR.getMessage()))
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * 一个事务内批量点赞 / 取消点赞：逐条插入、删除，并用一条语句合并更新点赞数
+	 *
+	 * @param userId    userId
+	 * @param actionMap 帖子 id => 是否点赞
+	 * @return 帖子 id => 本次变化数
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public Map<Long, Integer> doPostThumbBatchInner(long userId, Map<Long, Boolean> actionMap) {
+		// 1. 按帖子 id 顺序逐条插入、删除，按影响行数得到实际变化，不使用锁定读，
+		// 并发批次按相同顺序加锁，避免间隙锁互相等待导致死锁
+		Map<Long, Integer> resultMap = new HashMap<>();
+		new TreeMap<>(actionMap).forEach((postId, thumb) -> {
+			int result;
+			if (Boolean.TRUE.equals(thumb)) {
+				result = baseMapper.insertIgnore(postId, userId) > 0 ? 1 : 0;
+			} else {
+				QueryWrapper<PostThumb> postThumbQueryWrapper = new QueryWrapper<>();
+				postThumbQueryWrapper.eq("postId", postId);
+				postThumbQueryWrapper.eq("userId", userId);
+				result = baseMapper.delete(postThumbQueryWrapper) > 0 ? -1 : 0;
+			}
+			resultMap.put(postId, result);
+		});
+		// 2. 一条语句合并更新点赞数
+		Map<Long, Long> deltaMap = new HashMap<>();
+		resultMap.forEach((postId, result) -> {
+			if (result != 0) {
+				deltaMap.put(postId, (long) result);
+			}
+		});
+		if (!deltaMap.isEmpty()) {
+			postMapper.updateCountBatch(CounterType.THUMB.getCountColumn(), deltaMap);
+		}
+		return resultMap;
+	}
+	
+	/**
+	 * 批量回写点赞关系和帖子点赞数，一条语句合并更新计数
+	 *
+	 * @param counterBatch counterBatch
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public void flushCounterBatch(CounterBatch counterBatch) {
+		// 按影响行数计算实际变化，批次重试时不会重复计数
+		Map<Long, Long> changedMap = new HashMap<>();
+		// 1. 按帖子批量新增点赞关系
+		counterBatch.getAddMap().forEach((postId, userIdSet) ->
+				changedMap.merge(postId, (long) baseMapper.insertIgnoreBatch(postId, userIdSet), Long::sum));
+		// 2. 按帖子批量删除点赞关系
+		counterBatch.getRemoveMap().forEach((postId, userIdSet) ->
+				changedMap.merge(postId, -(long) baseMapper.delete(new QueryWrapper<PostThumb>()
+						.eq("postId", postId)
+						.in("userId", userIdSet)), Long::sum));
+		// 3. 一条语句合并更新点赞数
+		changedMap.values().removeIf(delta -> delta == 0);
+		if (!changedMap.isEmpty()) {
+			postMapper.updateCountBatch(CounterType.THUMB.getCountColumn(), changedMap);
+		}
+	}
+	
 }
-
-
-
-
@@ -6,13 +6,15 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.stephen.trajectory.common.ErrorCode;
 import com.stephen.trajectory.common.ThrowUtils;
-import com.stephen.trajectory.common.exception.BusinessException;
 import com.stephen.trajectory.constants.CommonConstant;
+import com.stephen.trajectory.manager.cache.UserVOResolver;
+import com.stephen.trajectory.manager.enrichment.EnrichmentManager;
+import com.stephen.trajectory.manager.tag.TagSuggestManager;
+import com.stephen.trajectory.manager.tag.TagTreeManager;
 import com.stephen.trajectory.mapper.TagMapper;
 import com.stephen.trajectory.model.dto.tag.TagDTO;
 import com.stephen.trajectory.model.dto.tag.TagQueryRequest;
 import com.stephen.trajectory.model.entity.Tag;
-import com.stephen.trajectory.model.entity.User;
 import com.stephen.trajectory.model.enums.TagIsParentEnum;
 import com.stephen.trajectory.model.vo.TagVO;
 import com.stephen.trajectory.model.vo.UserVO;
@@ -26,6 +28,7 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -42,6 +45,66 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
 	@Resource
 	private UserService userService;
 	
+	@Resource
+	private UserVOResolver userVOResolver;
+	
+	@Resource
+	private EnrichmentManager enrichmentManager;
+	
+	@Resource
+	private TagTreeManager tagTreeManager;
+	
+	@Resource
+	private TagSuggestManager tagSuggestManager;
+	
+	/**
+	 * 创建标签，事务提交后失效标签树缓存并更新标签联想索引
+	 *
+	 * @param entity 标签
+	 * @return 是否成功
+	 */
+	@Override
+	public boolean save(Tag entity) {
+		boolean result = super.save(entity);
+		if (result) {
+			tagTreeManager.evictAfterCommit();
+			tagSuggestManager.syncAfterCommit(entity.getId());
+		}
+		return result;
+	}
+	
+	/**
+	 * 更新标签，事务提交后失效标签树缓存并更新标签联想索引
+	 *
+	 * @param entity 标签
+	 * @return 是否成功
+	 */
+	@Override
+	public boolean updateById(Tag entity) {
+		boolean result = super.updateById(entity);
+		if (result) {
+			tagTreeManager.evictAfterCommit();
+			tagSuggestManager.syncAfterCommit(entity.getId());
+		}
+		return result;
+	}
+	
+	/**
+	 * 删除标签，事务提交后失效标签树缓存并更新标签联想索引
+	 *
+	 * @param id 标签 id
+	 * @return 是否成功
+	 */
+	@Override
+	public boolean removeById(Serializable id) {
+		boolean result = super.removeById(id);
+		if (result) {
+			tagTreeManager.evictAfterCommit();
+			tagSuggestManager.syncAfterCommit(Long.valueOf(id.toString()));
+		}
+		return result;
+	}
+	
 	/**
 	 * 校验数据
 	 *
@@ -126,13 +189,7 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
 		// todo 可以根据需要为封装对象补充值，不需要的内容可以删除
 		// region 可选
 		// 1. 关联查询用户信息
-		Long userId = tag.getUserId();
-		User user = null;
-		if (userId != null && userId > 0) {
-			user = userService.getById(userId);
-		}
-		UserVO userVO = userService.getUserVO(user, request);
-		tagVO.setUserVO(userVO);
+		tagVO.setUserVO(userVOResolver.resolve(tag.getUserId()));
 		// endregion
 		
 		return tagVO;
@@ -152,40 +209,21 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
 		if (CollUtil.isEmpty(tagList)) {
 			return tagVOPage;
 		}
-		// 1. 异步获取对象列表 => 封装对象列表
-		CompletableFuture<List<TagVO>> tagListFuture = CompletableFuture.supplyAsync(() -> tagList.stream().map(TagVO::objToVo).collect(Collectors.toList()));
-		// 2. 异步获取用户信息 => 封装用户信息
-		CompletableFuture<Map<Long, List<User>>> userMapFurture = CompletableFuture.supplyAsync(() -> {
-			Set<Long> userIdSet = tagList.stream().map(Tag::getUserId).collect(Collectors.toSet());
-			return userService.listByIds(userIdSet).stream()
-					.collect(Collectors.groupingBy(User::getId));
-			
-		});
-		
-		try {
-			// todo 可以根据需要为封装对象补充值，不需要的内容可以删除
-			List<TagVO> tagVOList = tagListFuture.get();
-			// 1. 关联查询用户信息
-			Map<Long, List<User>> userIdUserListMap = userMapFurture.get();
-			// 填充信息
-			tagVOList.forEach(tagVO -> {
-				Long userId = tagVO.getUserId();
-				User user = null;
-				if (userIdUserListMap.containsKey(userId)) {
-					user = userIdUserListMap.get(userId).get(0);
-				}
-				tagVO.setUserVO(userService.getUserVO(user, request));
-			});
-			tagVOPage.setRecords(tagVOList);
-		} catch (Exception e) {
-			Thread.currentThread().interrupt();
-			throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取标签失败");
-		}
+		// 对象列表 => 封装对象列表
+		List<TagVO> tagVOList = tagList.stream().map(TagVO::objToVo).collect(Collectors.toList());
+		// 1. 关联查询用户信息
+		Set<Long> userIdSet = tagList.stream().map(Tag::getUserId).collect(Collectors.toSet());
+		CompletableFuture<Map<Long, UserVO>> userVOMapFuture = enrichmentManager.supply("tagUser", () -> userVOResolver.resolve(userIdSet));
+		// 超时或失败时不填充用户信息
+		Map<Long, UserVO> userVOMap = enrichmentManager.join("tagUser", userVOMapFuture, enrichmentManager.newDeadline(), Collections.emptyMap());
+		// 填充信息
+		tagVOList.forEach(tagVO -> tagVO.setUserVO(userVOMap.get(tagVO.getUserId())));
+		tagVOPage.setRecords(tagVOList);
 		return tagVOPage;
 	}
 	
 	/**
-	 * 递归将 Tag 实体转换为 TagDTO，并填充子标签
+	 * 将 Tag 实体转换为 TagDTO，并从标签树快照中填充子标签（不查询数据库）
 	 *
 	 * @param tag 父标签
 	 * @return {@link TagDTO}
@@ -196,35 +234,9 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
 		TagDTO tagDTO = new TagDTO();
 		tagDTO.setId(tag.getId());
 		tagDTO.setTagName(tag.getTagName());
-		
-		// 查询子标签
-		QueryWrapper<Tag> childQueryWrapper = new QueryWrapper<>();
-		childQueryWrapper.eq("parentId", tag.getId());
-		List<Tag> childTags = this.list(childQueryWrapper);
-		
-		// 如果有子标签，递归处理子标签
-		if (!childTags.isEmpty()) {
-			List<TagDTO.TagChildren> childDTOList = childTags.stream()
-					.map(childTag -> {
-						if (childTag.getId() == null) {
-							return null;
-						}
-						TagDTO.TagChildren childDTO = new TagDTO.TagChildren();
-						childDTO.setId(childTag.getId());
-						childDTO.setTagName(childTag.getTagName());
-						// 递归调用获取子标签的 DTO
-						childDTO.setChildren(Optional.ofNullable(this.getTagDTO(childTag).getChildren()).orElse(new ArrayList<>()));
-						
-						return childDTO;
-					}).filter(Objects::nonNull).collect(Collectors.toList());
-			
-			tagDTO.setChildren(childDTOList);
-		} else {
-			// 确保即使没有子标签也将 children 设置为一个空数组
-			tagDTO.setChildren(new ArrayList<>());
-		}
-		
+		// 没有子标签时 children 为空数组
+		tagDTO.setChildren(tagTreeManager.getSnapshot().getChildren(tag.getId()));
 		return tagDTO;
 	}
 	
-}
+}
\ No newline at end of file
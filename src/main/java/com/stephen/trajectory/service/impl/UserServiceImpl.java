@@ -15,6 +15,7 @@ import com.stephen.trajectory.config.secure.utils.DeviceUtils;
 import com.stephen.trajectory.constants.CommonConstant;
 import com.stephen.trajectory.constants.SaltConstant;
 import com.stephen.trajectory.constants.UserConstant;
+import com.stephen.trajectory.manager.cache.EntityCacheManager;
 import com.stephen.trajectory.mapper.UserMapper;
 import com.stephen.trajectory.model.dto.user.UserQueryRequest;
 import com.stephen.trajectory.model.entity.User;
@@ -22,6 +23,7 @@ import com.stephen.trajectory.model.enums.UserRoleEnum;
 import com.stephen.trajectory.model.vo.LoginUserVO;
 import com.stephen.trajectory.model.vo.UserVO;
 import com.stephen.trajectory.service.UserService;
+import com.stephen.trajectory.service.UserTagService;
 import com.stephen.trajectory.utils.redisson.lock.LockUtils;
 import com.stephen.trajectory.utils.regex.RegexUtils;
 import com.stephen.trajectory.utils.sql.SqlUtils;
@@ -30,9 +32,12 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.DigestUtils;
 
+import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -46,6 +51,104 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 	
+	@Resource
+	private UserTagService userTagService;
+	
+	@Resource
+	private EntityCacheManager entityCacheManager;
+	
+	/**
+	 * 按 id 获取用户（读穿实体缓存，缓存中不包含密码，返回的用户密码为 null）
+	 *
+	 * @param id id
+	 * @return {@link User}
+	 */
+	@Override
+	public User getById(Serializable id) {
+		return entityCacheManager.getById(EntityCacheManager.USER_REGION, id, User.class,
+				userId -> this.clearPassword(super.getById(userId)));
+	}
+	
+	/**
+	 * 按 id 批量获取用户（读穿实体缓存，未命中的 id 一次性查询数据库，返回的用户密码为 null）
+	 *
+	 * @param idList idList
+	 * @return {@link List<User>}
+	 */
+	@Override
+	public List<User> listByIds(Collection<? extends Serializable> idList) {
+		return entityCacheManager.listByIds(EntityCacheManager.USER_REGION, idList, User.class, userIdList -> {
+			List<User> userList = super.listByIds(userIdList);
+			userList.forEach(this::clearPassword);
+			return userList;
+		}, User::getId);
+	}
+	
+	/**
+	 * 清除用户密码后再写入缓存，登录、修改密码等校验直接查询数据库
+	 *
+	 * @param user user
+	 * @return 清除密码后的用户
+	 */
+	private User clearPassword(User user) {
+		if (user != null) {
+			user.setUserPassword(null);
+		}
+		return user;
+	}
+	
+	/**
+	 * 新增用户，同时写入用户标签倒排索引
+	 *
+	 * @param user user
+	 * @return boolean
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public boolean save(User user) {
+		boolean result = super.save(user);
+		if (result) {
+			userTagService.syncUserTags(user.getId(), user.getTags());
+		}
+		return result;
+	}
+	
+	/**
+	 * 更新用户，删除实体缓存，标签有变化时重建用户标签倒排索引
+	 *
+	 * @param user user
+	 * @return boolean
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public boolean updateById(User user) {
+		boolean result = super.updateById(user);
+		entityCacheManager.evict(EntityCacheManager.USER_REGION, user.getId());
+		entityCacheManager.evict(EntityCacheManager.USER_VO_REGION, user.getId());
+		if (result && user.getTags() != null) {
+			userTagService.syncUserTags(user.getId(), user.getTags());
+		}
+		return result;
+	}
+	
+	/**
+	 * 删除用户，删除实体缓存并清理用户标签倒排索引
+	 *
+	 * @param id id
+	 * @return boolean
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public boolean removeById(Serializable id) {
+		boolean result = super.removeById(id);
+		entityCacheManager.evict(EntityCacheManager.USER_REGION, id);
+		entityCacheManager.evict(EntityCacheManager.USER_VO_REGION, id);
+		if (result) {
+			userTagService.removeByUserId(Long.valueOf(id.toString()));
+		}
+		return result;
+	}
+	
 	/**
 	 * 校验数据
 	 *
@@ -331,13 +434,20 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 		String userEmail = userQueryRequest.getUserEmail();
 		String userPhone = userQueryRequest.getUserPhone();
 		List<String> tagList = userQueryRequest.getTags();
+		List<String> orTagList = userQueryRequest.getOrTags();
 		String searchText = userQueryRequest.getSearchText();
 		QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-		// 遍历查询
-		if (CollUtil.isNotEmpty(tagList)) {
-			for (String tag : tagList) {
-				queryWrapper.like("tags", "\"" + tag + "\"");
-			}
+		// 标签查询走 user_tag 倒排索引，tags 需同时命中全部标签，orTags 命中任意标签即可
+		// 与写入标签关联表时的规范化规则一致，HAVING COUNT(*) 才能与去重后的标签数量对应
+		List<String> distinctTagList = SqlUtils.normalizeTagList(tagList);
+		if (CollUtil.isNotEmpty(distinctTagList)) {
+			queryWrapper.apply(SqlUtils.buildTagFilterSql("user_tag", "userId", distinctTagList.size(), true),
+					distinctTagList.toArray());
+		}
+		List<String> distinctOrTagList = SqlUtils.normalizeTagList(orTagList);
+		if (CollUtil.isNotEmpty(distinctOrTagList)) {
+			queryWrapper.apply(SqlUtils.buildTagFilterSql("user_tag", "userId", distinctOrTagList.size(), false),
+					distinctOrTagList.toArray());
 		}
 		// 精准查询
 		queryWrapper.eq(id != null, "id", id);
@@ -0,0 +1,64 @@
+package com.stephen.trajectory.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.stephen.trajectory.mapper.UserTagMapper;
+import com.stephen.trajectory.model.entity.UserTag;
+import com.stephen.trajectory.service.UserTagService;
+import com.stephen.trajectory.utils.sql.SqlUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 用户标签关联服务实现
+ *
+ * @author stephen qiu
+ */
+@Service
+@Slf4j
+public class UserTagServiceImpl extends ServiceImpl<UserTagMapper, UserTag> implements UserTagService {
+	
+	/**
+	 * 按用户最新的标签列表重建用户标签关联
+	 *
+	 * @param userId userId
+	 * @param tags   标签列表（JSON 字符数组）
+	 */
+	@Override
+	public void syncUserTags(Long userId, String tags) {
+		if (userId == null) {
+			return;
+		}
+		this.removeByUserId(userId);
+		if (StringUtils.isBlank(tags) || !JSONUtil.isTypeJSONArray(tags)) {
+			return;
+		}
+		List<UserTag> userTagList = SqlUtils.normalizeTagList(JSONUtil.toList(tags, String.class)).stream()
+				.map(tagName -> {
+					UserTag userTag = new UserTag();
+					userTag.setUserId(userId);
+					userTag.setTagName(tagName);
+					return userTag;
+				})
+				.collect(Collectors.toList());
+		if (CollUtil.isNotEmpty(userTagList)) {
+			this.saveBatch(userTagList);
+		}
+	}
+	
+	/**
+	 * 删除用户的全部用户标签关联
+	 *
+	 * @param userId userId
+	 */
+	@Override
+	public void removeByUserId(Long userId) {
+		this.remove(new QueryWrapper<UserTag>().eq("userId", userId));
+	}
+}
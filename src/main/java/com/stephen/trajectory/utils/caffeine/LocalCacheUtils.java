@@ -75,6 +75,15 @@ public class LocalCacheUtils {
 		CAFFEINE_CLIENT.invalidateAll(keys);
 	}
 	
+	/**
+	 * 按前缀批量删除缓存
+	 *
+	 * @param prefix 缓存键前缀
+	 */
+	public static void deleteByPrefix(String prefix) {
+		CAFFEINE_CLIENT.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+	}
+	
 	/**
 	 * 清空所有缓存
 	 */
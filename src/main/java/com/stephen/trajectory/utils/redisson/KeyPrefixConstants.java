@@ -39,6 +39,28 @@ public interface KeyPrefixConstants {
 	 */
 	String CACHE_MAP_PREFIX = CACHE_PREFIX + "MAP:";
 	
+	/**
+	 * 缓存版本号Key前缀
+	 */
+	String CACHE_VERSION_PREFIX = CACHE_PREFIX + "VERSION:";
+	
+	/**
+	 * 缓存失效广播Topic前缀
+	 */
+	String CACHE_TOPIC_PREFIX = CACHE_PREFIX + "TOPIC:";
+	
+	/**
+	 * 实体缓存Key前缀
+	 */
+	String CACHE_ENTITY_PREFIX = CACHE_PREFIX + "ENTITY:";
+	
+	// todo 计数相关键前缀
+	
+	/**
+	 * 点赞、收藏计数Key前缀
+	 */
+	String COUNTER_PREFIX = "COUNTER:";
+	
 	// todo 幂等相关键前缀
 	
 	/**
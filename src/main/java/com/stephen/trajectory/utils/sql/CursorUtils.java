@@ -0,0 +1,140 @@
+package com.stephen.trajectory.utils.sql;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.stephen.trajectory.common.CursorPage;
+import com.stephen.trajectory.common.ErrorCode;
+import com.stephen.trajectory.common.ThrowUtils;
+import com.stephen.trajectory.common.exception.BusinessException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页工具
+ * <p>
+ * 按 (createTime, id) 倒序做键集分页，游标为上一页最后一条记录的 createTime 与 id，
+ * 无论翻到第几页都只走索引范围扫描，并且不执行 count 查询。
+ * </p>
+ *
+ * @author stephen qiu
+ */
+public class CursorUtils {
+	
+	/**
+	 * 游标中创建时间与 id 的分隔符
+	 */
+	private static final String SEPARATOR = "_";
+	
+	/**
+	 * 页面大小上限
+	 */
+	public static final long MAX_SIZE = 20L;
+	
+	/**
+	 * 编码游标
+	 *
+	 * @param createTime createTime
+	 * @param id         id
+	 * @return 游标
+	 */
+	public static String encode(Date createTime, Long id) {
+		String raw = createTime.getTime() + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * 在查询条件上追加游标条件和 (createTime, id) 倒序排序
+	 *
+	 * @param queryWrapper queryWrapper
+	 * @param cursor       上一页返回的游标，为空时查询第一页
+	 */
+	public static <T> void applyCursor(QueryWrapper<T> queryWrapper, String cursor) {
+		applyCursor(queryWrapper, cursor, "id");
+	}
+	
+	/**
+	 * 在查询条件上追加游标条件和 (createTime, idColumn) 倒序排序
+	 *
+	 * @param queryWrapper queryWrapper
+	 * @param cursor       上一页返回的游标，为空时查询第一页
+	 * @param idColumn     与 createTime 组成唯一排序键的 id 字段
+	 */
+	public static <T> void applyCursor(QueryWrapper<T> queryWrapper, String cursor, String idColumn) {
+		if (StringUtils.isNotBlank(cursor)) {
+			String raw;
+			try {
+				raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			} catch (IllegalArgumentException e) {
+				throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标不合法");
+			}
+			String createTimeStr = StringUtils.substringBefore(raw, SEPARATOR);
+			String idStr = StringUtils.substringAfter(raw, SEPARATOR);
+			if (!StringUtils.isNumeric(createTimeStr) || !StringUtils.isNumeric(idStr)) {
+				throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标不合法");
+			}
+			Date createTime = new Date(Long.parseLong(createTimeStr));
+			long id = Long.parseLong(idStr);
+			queryWrapper.and(qw -> qw.lt("createTime", createTime)
+					.or(orQw -> orQw.eq("createTime", createTime).lt(idColumn, id)));
+		}
+		queryWrapper.orderByDesc("createTime");
+		queryWrapper.orderByDesc(idColumn);
+	}
+	
+	/**
+	 * 校验页面大小，必须在 [1, MAX_SIZE] 之间
+	 *
+	 * @param size 页面大小
+	 */
+	public static void checkSize(long size) {
+		ThrowUtils.throwIf(size < 1 || size > MAX_SIZE, ErrorCode.PARAMS_ERROR, "页面大小必须在 1 到 " + MAX_SIZE + " 之间");
+	}
+	
+	/**
+	 * 构建游标分页查询的分页参数，多查一条用于判断是否还有下一页，并关闭 count 查询
+	 *
+	 * @param size 页面大小
+	 * @return {@link Page<T>}
+	 */
+	public static <T> Page<T> buildPage(long size) {
+		checkSize(size);
+		return new Page<>(1, size + 1, false);
+	}
+	
+	/**
+	 * 将多查一条的分页结果转换为游标分页结果
+	 *
+	 * @param page             page
+	 * @param size             页面大小
+	 * @param createTimeGetter 获取创建时间
+	 * @param idGetter         获取 id
+	 * @param converter        转换为封装类
+	 * @return {@link CursorPage<R>}
+	 */
+	public static <T, R> CursorPage<R> toCursorPage(Page<T> page, long size,
+	                                                Function<T, Date> createTimeGetter,
+	                                                Function<T, Long> idGetter,
+	                                                Function<Page<T>, List<R>> converter) {
+		checkSize(size);
+		CursorPage<R> cursorPage = new CursorPage<>();
+		List<T> records = page.getRecords();
+		if (records.isEmpty()) {
+			return cursorPage;
+		}
+		boolean hasMore = records.size() > size;
+		if (hasMore) {
+			records = records.subList(0, (int) size);
+			page.setRecords(records);
+		}
+		T last = records.get(records.size() - 1);
+		cursorPage.setHasMore(hasMore);
+		cursorPage.setNextCursor(hasMore ? encode(createTimeGetter.apply(last), idGetter.apply(last)) : null);
+		cursorPage.setRecords(converter.apply(page));
+		return cursorPage;
+	}
+}
@@ -2,6 +2,11 @@ package com.stephen.trajectory.utils.sql;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.text.Collator;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 /**
  * SQL 工具
  *
@@ -21,4 +26,48 @@ public class SqlUtils {
 		}
 		return !StringUtils.containsAny(sortField, "=", "(", ")", " ");
 	}
+	
+	/**
+	 * 构建标签倒排索引过滤条件，配合 QueryWrapper#apply 使用，标签值通过 {index} 占位符绑定
+	 *
+	 * @param mappingTable 标签关联表
+	 * @param joinColumn   标签关联表中的业务 id 列
+	 * @param tagCount     标签数量
+	 * @param matchAll     true-需同时命中全部标签，false-命中任意标签
+	 * @return SQL 片段
+	 */
+	public static String buildTagFilterSql(String mappingTable, String joinColumn, int tagCount, boolean matchAll) {
+		String placeholders = IntStream.range(0, tagCount)
+				.mapToObj(index -> "{" + index + "}")
+				.collect(Collectors.joining(","));
+		String sql = String.format("id IN (SELECT %s FROM %s WHERE tagName IN (%s)", joinColumn, mappingTable, placeholders);
+		if (matchAll) {
+			sql += String.format(" GROUP BY %s HAVING COUNT(*) = %d", joinColumn, tagCount);
+		}
+		return sql + ")";
+	}
+	
+	/**
+	 * 规范化标签列表：去除空白标签和首尾空白，并按数据库排序规则（utf8mb4_unicode_ci，不区分大小写）去重，保留首次出现的写法
+	 * <p>
+	 * 写入标签关联表和按标签查询时都需要先规范化，避免唯一索引冲突以及 HAVING COUNT(*) 与标签数量不一致
+	 * </p>
+	 *
+	 * @param tagList 原始标签列表
+	 * @return 规范化后的标签列表
+	 */
+	public static List<String> normalizeTagList(Collection<String> tagList) {
+		if (tagList == null || tagList.isEmpty()) {
+			return new ArrayList<>();
+		}
+		// 一级比较强度：忽略大小写和重音，与 unicode_ci 排序规则一致
+		Collator collator = Collator.getInstance(Locale.ROOT);
+		collator.setStrength(Collator.PRIMARY);
+		Set<String> seenTagSet = new TreeSet<>(collator);
+		return tagList.stream()
+				.filter(StringUtils::isNotBlank)
+				.map(String::trim)
+				.filter(seenTagSet::add)
+				.collect(Collectors.toList());
+	}
 }
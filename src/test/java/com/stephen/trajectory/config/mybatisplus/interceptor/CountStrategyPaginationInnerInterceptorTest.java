@@ -0,0 +1,140 @@
+package com.stephen.trajectory.config.mybatisplus.interceptor;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.stephen.trajectory.config.mybatisplus.properties.PaginationProperties;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 带 count 策略的分页插件测试
+ *
+ * @author stephen qiu
+ */
+class CountStrategyPaginationInnerInterceptorTest {
+	
+	private static final String SQL = "SELECT id, title FROM post WHERE isDelete = 0";
+	
+	private static final long MAX_COUNT = 10000L;
+	
+	private MybatisConfiguration configuration;
+	
+	private MappedStatement mappedStatement;
+	
+	private Executor executor;
+	
+	private MockHttpServletResponse response;
+	
+	@BeforeEach
+	void setUp() {
+		configuration = new MybatisConfiguration();
+		mappedStatement = new MappedStatement.Builder(configuration, "com.stephen.trajectory.mapper.PostMapper.selectPage",
+				new StaticSqlSource(configuration, SQL), SqlCommandType.SELECT)
+				.resultMaps(Collections.singletonList(new ResultMap.Builder(configuration, "postResult", Long.class, new ArrayList<>()).build()))
+				.build();
+		executor = mock(Executor.class);
+		when(executor.createCacheKey(any(), any(), any(), any())).thenAnswer(invocation -> {
+			CacheKey cacheKey = new CacheKey();
+			cacheKey.update(((MappedStatement) invocation.getArgument(0)).getId());
+			cacheKey.update(((BoundSql) invocation.getArgument(3)).getSql());
+			return cacheKey;
+		});
+		response = new MockHttpServletResponse();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+	}
+	
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+	
+	@Test
+	void pageBeyondCapIsQueriedOnColdAndWarmCache() throws SQLException {
+		mockCount(MAX_COUNT + 1);
+		CountStrategyPaginationInnerInterceptor interceptor = buildInterceptor(30L);
+		// 冷缓存：第 502 页（size = 20）位于上限之后，仍需查询
+		Page<Object> coldPage = new Page<>(502, 20);
+		assertTrue(willDoQuery(interceptor, coldPage));
+		assertEquals(MAX_COUNT, coldPage.getTotal());
+		assertEquals("true", response.getHeader(CountStrategyPaginationInnerInterceptor.TOTAL_CAPPED_HEADER));
+		// 热缓存：结果一致，且不再执行 count
+		response = new MockHttpServletResponse();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+		Page<Object> warmPage = new Page<>(502, 20);
+		assertTrue(willDoQuery(interceptor, warmPage));
+		assertEquals(MAX_COUNT, warmPage.getTotal());
+		assertEquals("true", response.getHeader(CountStrategyPaginationInnerInterceptor.TOTAL_CAPPED_HEADER));
+		verify(executor, times(1)).query(any(), any(), any(), any(), any(), any());
+	}
+	
+	@Test
+	void cappedPageKeepsPositivePaginationContract() throws SQLException {
+		mockCount(MAX_COUNT + 1);
+		Page<Object> page = new Page<>(1, 20);
+		assertTrue(willDoQuery(buildInterceptor(0L), page));
+		assertEquals(MAX_COUNT, page.getTotal());
+		assertEquals(MAX_COUNT / 20, page.getPages());
+		assertTrue(page.hasNext());
+		assertEquals("true", response.getHeader(CountStrategyPaginationInnerInterceptor.TOTAL_CAPPED_HEADER));
+	}
+	
+	@Test
+	void totalWithinCapIsExact() throws SQLException {
+		mockCount(35L);
+		CountStrategyPaginationInnerInterceptor interceptor = buildInterceptor(30L);
+		Page<Object> page = new Page<>(2, 20);
+		assertTrue(willDoQuery(interceptor, page));
+		assertEquals(35L, page.getTotal());
+		assertNull(response.getHeader(CountStrategyPaginationInnerInterceptor.TOTAL_CAPPED_HEADER));
+		// 未截断时越界页不再查询
+		Page<Object> overflowPage = new Page<>(3, 20);
+		assertFalse(willDoQuery(interceptor, overflowPage));
+	}
+	
+	@Test
+	void countSqlIsLimitedToMaxCountPlusOne() throws SQLException {
+		mockCount(1L);
+		assertTrue(willDoQuery(buildInterceptor(0L), new Page<>(1, 20)));
+		verify(executor).query(any(), any(), any(), any(), any(),
+				argThat(boundSql -> boundSql.getSql().contains("LIMIT " + (MAX_COUNT + 1))));
+	}
+	
+	private CountStrategyPaginationInnerInterceptor buildInterceptor(long countCacheExpired) {
+		PaginationProperties paginationProperties = new PaginationProperties();
+		paginationProperties.setMaxCount(MAX_COUNT);
+		paginationProperties.setCountCacheExpired(countCacheExpired);
+		paginationProperties.setCountCacheMaxSize(100L);
+		return new CountStrategyPaginationInnerInterceptor(DbType.MYSQL, paginationProperties);
+	}
+	
+	private void mockCount(long total) throws SQLException {
+		doReturn(Collections.singletonList(total)).when(executor).query(any(), any(), any(), any(), any(), any());
+	}
+	
+	private boolean willDoQuery(CountStrategyPaginationInnerInterceptor interceptor, Page<Object> page) throws SQLException {
+		BoundSql boundSql = new BoundSql(configuration, SQL, new ArrayList<>(), page);
+		return interceptor.willDoQuery(executor, mappedStatement, page, RowBounds.DEFAULT, null, boundSql);
+	}
+}
@@ -0,0 +1,82 @@
+package com.stephen.trajectory.manager.tag.model;
+
+import com.stephen.trajectory.model.entity.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 标签联想索引测试
+ *
+ * @author stephen qiu
+ */
+class TagSuggestIndexTest {
+	
+	@Test
+	void normalizeFoldsWidthCaseAndSpace() {
+		assertEquals("java", TagSuggestIndex.normalize("  ＪＡＶＡ "));
+		assertEquals("spring boot", TagSuggestIndex.normalize("Spring Boot"));
+		assertEquals("", TagSuggestIndex.normalize(null));
+	}
+	
+	@Test
+	void prefixRangeReturnsSortedMatches() {
+		TagSuggestIndex index = TagSuggestIndex.of(Arrays.asList(
+				buildTag(1L, "Java"), buildTag(2L, "JavaScript"), buildTag(3L, "Go"),
+				buildTag(4L, "java"), buildTag(5L, "Jakarta"), buildTag(6L, "Kotlin")));
+		// 名称规范化后相同时按 id 排序
+		assertEquals(Arrays.asList(1L, 4L, 2L), ids(index.prefixRange("java")));
+		assertEquals(Arrays.asList(5L, 1L, 4L, 2L), ids(index.prefixRange("ja")));
+		assertEquals(Collections.singletonList(6L), ids(index.prefixRange("kotlin")));
+		assertTrue(index.prefixRange("rust").isEmpty());
+		assertTrue(index.prefixRange("kotlinx").isEmpty());
+		assertEquals(6, index.prefixRange("").size());
+	}
+	
+	@Test
+	void ofSkipsInvalidTags() {
+		TagSuggestIndex index = TagSuggestIndex.of(Arrays.asList(
+				buildTag(1L, "Java"), buildTag(2L, " "), buildTag(null, "Go"), null));
+		assertEquals(1, index.size());
+		assertEquals(0, TagSuggestIndex.empty().size());
+	}
+	
+	@Test
+	void putReplacesRenamedTagWithoutChangingOldIndex() {
+		TagSuggestIndex index = TagSuggestIndex.of(Arrays.asList(buildTag(1L, "Java"), buildTag(2L, "Go")));
+		TagSuggestIndex newIndex = index.put(buildTag(1L, "Rust")).put(buildTag(3L, "Ruby"));
+		assertEquals(3, newIndex.size());
+		assertTrue(newIndex.prefixRange("java").isEmpty());
+		assertEquals(Arrays.asList(3L, 1L), ids(newIndex.prefixRange("ru")));
+		assertEquals("Rust", newIndex.prefixRange("rust").get(0).getTagName());
+		// 旧索引保持不变
+		assertEquals(2, index.size());
+		assertEquals(Collections.singletonList(1L), ids(index.prefixRange("java")));
+		assertTrue(index.prefixRange("ru").isEmpty());
+	}
+	
+	@Test
+	void removeDeletesTag() {
+		TagSuggestIndex index = TagSuggestIndex.of(Arrays.asList(buildTag(1L, "Java"), buildTag(2L, "JavaScript")));
+		TagSuggestIndex newIndex = index.remove(1L);
+		assertEquals(Collections.singletonList(2L), ids(newIndex.prefixRange("java")));
+		assertSame(newIndex, newIndex.remove(1L));
+		assertEquals(2, index.size());
+	}
+	
+	private static Tag buildTag(Long id, String tagName) {
+		Tag tag = new Tag();
+		tag.setId(id);
+		tag.setTagName(tagName);
+		return tag;
+	}
+	
+	private static List<Long> ids(List<TagSuggestIndex.Entry> entryList) {
+		return entryList.stream().map(TagSuggestIndex.Entry::getId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,59 @@
+package com.stephen.trajectory.manager.tag.model;
+
+import cn.hutool.json.JSONUtil;
+import com.stephen.trajectory.model.dto.tag.TagDTO;
+import com.stephen.trajectory.model.entity.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 标签树快照测试
+ *
+ * @author stephen qiu
+ */
+class TagTreeSnapshotTest {
+	
+	private static final Function<List<TagDTO>, byte[]> SERIALIZER = tree -> JSONUtil.toJsonStr(tree).getBytes(StandardCharsets.UTF_8);
+	
+	@Test
+	void buildTreeFromFlatList() {
+		TagTreeSnapshot snapshot = TagTreeSnapshot.of(Arrays.asList(
+				buildTag(1L, "后端", null), buildTag(2L, "Java", 1L), buildTag(3L, "Spring", 2L),
+				buildTag(4L, "前端", null), buildTag(5L, "Go", 1L)), 7L, SERIALIZER);
+		assertEquals(7L, snapshot.getVersion());
+		List<TagDTO> tree = snapshot.getTree();
+		assertEquals(2, tree.size());
+		assertEquals("后端", tree.get(0).getTagName());
+		assertEquals(2, tree.get(0).getChildren().size());
+		assertEquals("Java", tree.get(0).getChildren().get(0).getTagName());
+		assertEquals("Spring", tree.get(0).getChildren().get(0).getChildren().get(0).getTagName());
+		assertTrue(tree.get(1).getChildren().isEmpty());
+		assertEquals(1, snapshot.getChildren(2L).size());
+		assertTrue(snapshot.getChildren(99L).isEmpty());
+	}
+	
+	@Test
+	void eTagFollowsResponseBody() {
+		List<Tag> tagList = Arrays.asList(buildTag(1L, "后端", null), buildTag(2L, "Java", 1L));
+		TagTreeSnapshot snapshot = TagTreeSnapshot.of(tagList, 1L, SERIALIZER);
+		// 内容相同时 ETag 相同，与版本号无关
+		assertEquals(snapshot.getETag(), TagTreeSnapshot.of(tagList, 2L, SERIALIZER).getETag());
+		assertArrayEquals(SERIALIZER.apply(snapshot.getTree()), snapshot.getResponseBody());
+		TagTreeSnapshot renamed = TagTreeSnapshot.of(Arrays.asList(buildTag(1L, "后端", null), buildTag(2L, "Kotlin", 1L)), 3L, SERIALIZER);
+		assertNotEquals(snapshot.getETag(), renamed.getETag());
+	}
+	
+	private static Tag buildTag(Long id, String tagName, Long parentId) {
+		Tag tag = new Tag();
+		tag.setId(id);
+		tag.setTagName(tagName);
+		tag.setParentId(parentId);
+		return tag;
+	}
+}
@@ -0,0 +1,153 @@
+package com.stephen.trajectory.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.stephen.trajectory.manager.counter.model.CounterType;
+import com.stephen.trajectory.mapper.PostMapper;
+import com.stephen.trajectory.mapper.PostThumbMapper;
+import com.stephen.trajectory.model.entity.PostThumb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 批量点赞测试，使用内存中的点赞关系模拟唯一索引
+ *
+ * @author stephen qiu
+ */
+class PostThumbServiceImplTest {
+	
+	private static final long USER_ID = 1L;
+	
+	private PostThumbServiceImpl postThumbService;
+	
+	/**
+	 * 点赞关系，元素为 postId:userId
+	 */
+	private Set<String> thumbSet;
+	
+	/**
+	 * 帖子 id => 累计更新的点赞数
+	 */
+	private Map<Long, Long> thumbNumMap;
+	
+	/**
+	 * 每次批量处理中插入、删除帖子的顺序
+	 */
+	private Map<Thread, List<Long>> orderMap;
+	
+	@BeforeEach
+	void setUp() {
+		thumbSet = ConcurrentHashMap.newKeySet();
+		thumbNumMap = new ConcurrentHashMap<>();
+		orderMap = new ConcurrentHashMap<>();
+		PostThumbMapper postThumbMapper = mock(PostThumbMapper.class);
+		when(postThumbMapper.insertIgnore(anyLong(), anyLong())).thenAnswer(invocation -> {
+			long postId = invocation.getArgument(0);
+			long userId = invocation.getArgument(1);
+			recordOrder(postId);
+			return thumbSet.add(postId + ":" + userId) ? 1 : 0;
+		});
+		when(postThumbMapper.delete(any())).thenAnswer(invocation -> {
+			QueryWrapper<PostThumb> queryWrapper = invocation.getArgument(0);
+			// 生成 SQL 片段后才有参数，按条件顺序依次为 postId、userId
+			queryWrapper.getSqlSegment();
+			Map<String, Object> paramMap = queryWrapper.getParamNameValuePairs();
+			Object postId = paramMap.get("MPGENVAL1");
+			Object userId = paramMap.get("MPGENVAL2");
+			recordOrder((Long) postId);
+			return thumbSet.remove(postId + ":" + userId) ? 1 : 0;
+		});
+		PostMapper postMapper = mock(PostMapper.class);
+		when(postMapper.updateCountBatch(eq(CounterType.THUMB.getCountColumn()), anyMap())).thenAnswer(invocation -> {
+			Map<Long, Long> deltaMap = invocation.getArgument(1);
+			deltaMap.forEach((postId, delta) -> thumbNumMap.merge(postId, delta, Long::sum));
+			return deltaMap.size();
+		});
+		postThumbService = new PostThumbServiceImpl();
+		ReflectionTestUtils.setField(postThumbService, "baseMapper", postThumbMapper);
+		ReflectionTestUtils.setField(postThumbService, "postMapper", postMapper);
+	}
+	
+	@Test
+	void testBatchResultFromAffectedRows() {
+		thumbSet.add(1L + ":" + USER_ID);
+		Map<Long, Boolean> actionMap = new LinkedHashMap<>();
+		actionMap.put(1L, true);
+		actionMap.put(2L, true);
+		actionMap.put(3L, false);
+		Map<Long, Integer> resultMap = postThumbService.doPostThumbBatchInner(USER_ID, actionMap);
+		// 已点赞、未点赞时取消均不变化
+		assertEquals(Integer.valueOf(0), resultMap.get(1L));
+		assertEquals(Integer.valueOf(1), resultMap.get(2L));
+		assertEquals(Integer.valueOf(0), resultMap.get(3L));
+		assertEquals(Collections.singletonMap(2L, 1L), thumbNumMap);
+		
+		resultMap = postThumbService.doPostThumbBatchInner(USER_ID, Collections.singletonMap(1L, false));
+		assertEquals(Integer.valueOf(-1), resultMap.get(1L));
+		assertFalse(thumbSet.contains(1L + ":" + USER_ID));
+		assertEquals(Long.valueOf(-1L), thumbNumMap.get(1L));
+	}
+	
+	@Test
+	void testBatchProcessInPostIdOrder() {
+		Map<Long, Boolean> actionMap = new LinkedHashMap<>();
+		actionMap.put(3L, true);
+		actionMap.put(1L, false);
+		actionMap.put(2L, true);
+		postThumbService.doPostThumbBatchInner(USER_ID, actionMap);
+		assertEquals(Arrays.asList(1L, 2L, 3L), orderMap.get(Thread.currentThread()));
+	}
+	
+	@Test
+	void testOverlappingBatchesCountOnce() throws Exception {
+		Map<Long, Boolean> firstActionMap = new LinkedHashMap<>();
+		firstActionMap.put(3L, true);
+		firstActionMap.put(2L, true);
+		firstActionMap.put(1L, true);
+		Map<Long, Boolean> secondActionMap = new LinkedHashMap<>();
+		secondActionMap.put(2L, true);
+		secondActionMap.put(4L, true);
+		secondActionMap.put(3L, true);
+		CountDownLatch startLatch = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		try {
+			Future<Map<Long, Integer>> firstFuture = executorService.submit(() -> {
+				startLatch.await();
+				return postThumbService.doPostThumbBatchInner(USER_ID, firstActionMap);
+			});
+			Future<Map<Long, Integer>> secondFuture = executorService.submit(() -> {
+				startLatch.await();
+				return postThumbService.doPostThumbBatchInner(USER_ID, secondActionMap);
+			});
+			startLatch.countDown();
+			Map<Long, Integer> firstResultMap = firstFuture.get(5, TimeUnit.SECONDS);
+			Map<Long, Integer> secondResultMap = secondFuture.get(5, TimeUnit.SECONDS);
+			// 重叠的帖子只有一个批次计数
+			for (long postId = 1L; postId <= 4L; postId++) {
+				int total = firstResultMap.getOrDefault(postId, 0) + secondResultMap.getOrDefault(postId, 0);
+				assertEquals(1, total, "postId: " + postId);
+				assertEquals(Long.valueOf(1L), thumbNumMap.get(postId), "postId: " + postId);
+				assertTrue(thumbSet.contains(postId + ":" + USER_ID));
+			}
+			// 两个批次按相同顺序处理
+			orderMap.values().forEach(orderList -> {
+				List<Long> sortedList = new ArrayList<>(orderList);
+				Collections.sort(sortedList);
+				assertEquals(sortedList, orderList);
+			});
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+	
+	private void recordOrder(long postId) {
+		orderMap.computeIfAbsent(Thread.currentThread(), key -> Collections.synchronizedList(new ArrayList<>())).add(postId);
+	}
+}
@@ -0,0 +1,121 @@
+package com.stephen.trajectory.utils.sql;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.stephen.trajectory.common.CursorPage;
+import com.stephen.trajectory.common.exception.BusinessException;
+import com.stephen.trajectory.model.entity.Post;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 游标分页工具测试
+ *
+ * @author stephen qiu
+ */
+class CursorUtilsTest {
+	
+	@Test
+	void buildPageRejectsInvalidSize() {
+		assertThrows(BusinessException.class, () -> CursorUtils.buildPage(0));
+		assertThrows(BusinessException.class, () -> CursorUtils.buildPage(-1));
+		assertThrows(BusinessException.class, () -> CursorUtils.buildPage(CursorUtils.MAX_SIZE + 1));
+	}
+	
+	@Test
+	void buildPageFetchesOneExtraRow() {
+		Page<Post> page = CursorUtils.buildPage(1);
+		assertEquals(1, page.getCurrent());
+		assertEquals(2, page.getSize());
+		assertFalse(page.searchCount());
+		assertEquals(CursorUtils.MAX_SIZE + 1, CursorUtils.buildPage(CursorUtils.MAX_SIZE).getSize());
+	}
+	
+	@Test
+	void toCursorPageRejectsInvalidSize() {
+		Page<Post> page = new Page<>(1, 1, false);
+		page.setRecords(buildPostList(1));
+		assertThrows(BusinessException.class, () -> CursorUtils.toCursorPage(page, 0, Post::getCreateTime, Post::getId, Page::getRecords));
+	}
+	
+	@Test
+	void toCursorPageWithSizeOne() {
+		Page<Post> page = CursorUtils.buildPage(1);
+		page.setRecords(buildPostList(2));
+		CursorPage<Long> cursorPage = CursorUtils.toCursorPage(page, 1, Post::getCreateTime, Post::getId, this::toIdList);
+		assertEquals(List.of(100L), cursorPage.getRecords());
+		assertTrue(cursorPage.getHasMore());
+		Post last = page.getRecords().get(0);
+		assertEquals(CursorUtils.encode(last.getCreateTime(), last.getId()), cursorPage.getNextCursor());
+	}
+	
+	@Test
+	void toCursorPageOnLastPageBoundary() {
+		// 恰好查到 size 条：没有下一页
+		Page<Post> page = CursorUtils.buildPage(3);
+		page.setRecords(buildPostList(3));
+		CursorPage<Long> cursorPage = CursorUtils.toCursorPage(page, 3, Post::getCreateTime, Post::getId, this::toIdList);
+		assertEquals(List.of(100L, 99L, 98L), cursorPage.getRecords());
+		assertFalse(cursorPage.getHasMore());
+		assertNull(cursorPage.getNextCursor());
+		// 多查到一条：有下一页，多出的一条不返回
+		page = CursorUtils.buildPage(3);
+		page.setRecords(buildPostList(4));
+		cursorPage = CursorUtils.toCursorPage(page, 3, Post::getCreateTime, Post::getId, this::toIdList);
+		assertEquals(List.of(100L, 99L, 98L), cursorPage.getRecords());
+		assertTrue(cursorPage.getHasMore());
+		assertNotNull(cursorPage.getNextCursor());
+	}
+	
+	@Test
+	void toCursorPageWithEmptyRecords() {
+		Page<Post> page = CursorUtils.buildPage(5);
+		CursorPage<Long> cursorPage = CursorUtils.toCursorPage(page, 5, Post::getCreateTime, Post::getId, this::toIdList);
+		assertTrue(cursorPage.getRecords().isEmpty());
+		assertFalse(cursorPage.getHasMore());
+		assertNull(cursorPage.getNextCursor());
+	}
+	
+	@Test
+	void applyCursorRejectsInvalidCursor() {
+		assertThrows(BusinessException.class, () -> CursorUtils.applyCursor(new QueryWrapper<Post>(), "not-a-cursor!"));
+		assertThrows(BusinessException.class, () -> CursorUtils.applyCursor(new QueryWrapper<Post>(), "YWJjX2RlZg"));
+	}
+	
+	@Test
+	void applyCursorAddsKeysetCondition() {
+		QueryWrapper<Post> firstPageWrapper = new QueryWrapper<>();
+		CursorUtils.applyCursor(firstPageWrapper, null);
+		assertFalse(firstPageWrapper.getSqlSegment().contains("<"));
+		QueryWrapper<Post> nextPageWrapper = new QueryWrapper<>();
+		CursorUtils.applyCursor(nextPageWrapper, CursorUtils.encode(new Date(1000L), 7L));
+		String sqlSegment = nextPageWrapper.getSqlSegment();
+		assertTrue(sqlSegment.contains("createTime <"));
+		assertTrue(sqlSegment.contains("id <"));
+		assertTrue(nextPageWrapper.getParamNameValuePairs().containsValue(7L));
+	}
+	
+	/**
+	 * 构建按 (createTime, id) 倒序排列的帖子列表
+	 */
+	private List<Post> buildPostList(int count) {
+		List<Post> postList = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Post post = new Post();
+			post.setId(100L - i);
+			post.setCreateTime(new Date(10000L - i));
+			postList.add(post);
+		}
+		return postList;
+	}
+	
+	private List<Long> toIdList(Page<Post> page) {
+		return page.getRecords().stream().map(Post::getId).collect(Collectors.toList());
+	}
+}